@@ -0,0 +1,403 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package controller;
+
+import model.items.IEquipableItem;
+import model.map.Field;
+import model.map.Location;
+import model.units.IUnit;
+import model.units.UnitStore;
+import model.units.factoryUnit.UnitType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forecasts the result of an attack before doing it.
+ * <p>
+ * The forecast copies the attacker and the defender into a {@link UnitStore}, which only reads
+ * the live units and their items, and plays some rounds of attacks between the copies. Every
+ * round the attacker uses its item on the defender and the defender counterattacks, like
+ * {@link IUnit#attack(IUnit)}, until one of them can't fight anymore.
+ * <p>
+ * The combat of the game doesn't have random rolls, so a single simulation gives the exact
+ * result and the chances are 0 or 1. The results are cached by the kind, the item and the hit
+ * points of both units, by their distance and by whether they have the same owner. The hit
+ * points are rounded down to buckets. The forecasts of many targets are simulated in parallel
+ * in the common fork-join pool.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public class CombatForecast {
+
+    /** Width of the hit points buckets, the hit points of the game change in halves */
+    public static final double DEFAULT_BUCKET = 0.5;
+    private static final int CACHE_CAPACITY = 1 << 16;
+
+    private final Field map;
+    private final int rounds;
+    private final double bucket;
+    private final Map<Key, Outcome> cache = new ConcurrentHashMap<>();
+    /** Owners of the copies, the store only compares them */
+    private static final Tactician OWNER = new Tactician("owner");
+    private static final Tactician RIVAL = new Tactician("rival");
+
+    /**
+     * Creates the forecasts of a map with the default buckets of hit points.
+     *
+     * @param map of the game
+     * @param rounds number of attacks simulated
+     */
+    public CombatForecast(@NotNull Field map, int rounds){
+        this(map, rounds, DEFAULT_BUCKET);
+    }
+
+    /**
+     * Creates the forecasts of a map, the units whose hit points fall in the same buckets share
+     * the forecast simulated for the lowest hit points of the buckets.
+     *
+     * @param map of the game
+     * @param rounds number of attacks simulated
+     * @param bucket width of the buckets of hit points
+     */
+    public CombatForecast(@NotNull Field map, int rounds, double bucket){
+        if(rounds < 1){
+            throw new IllegalArgumentException("At least one round must be simulated");
+        }
+        if(!(bucket > 0)){
+            throw new IllegalArgumentException("The buckets of hit points must have a width");
+        }
+        this.map = map;
+        this.rounds = rounds;
+        this.bucket = bucket;
+    }
+
+    /**
+     * @return the number of attacks simulated by every forecast
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the number of forecasts cached
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Forgets every cached forecast
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Forecasts the attacks of a unit to another, neither unit changes.
+     *
+     * @param attacker unit that starts the combat
+     * @param defender unit attacked
+     * @return the result of the attacks
+     */
+    public Outcome forecast(@NotNull IUnit attacker, @NotNull IUnit defender){
+        return outcomeOf(keyOf(attacker, defender, distance(attacker, defender)));
+    }
+
+    /**
+     * Forecasts the attacks of a unit to each one of many targets, like the targets that an
+     * opponent evaluates. The distances are searched at once and the forecasts that aren't
+     * cached are simulated in parallel.
+     *
+     * @param attacker unit that starts the combats
+     * @param targets units attacked
+     * @return the result of the attacks to every target, in the same order
+     */
+    public List<Outcome> forecast(@NotNull IUnit attacker, @NotNull List<? extends IUnit> targets){
+        int[] distances = distances(attacker, targets);
+        List<Key> keys = new ArrayList<>(targets.size());
+        Set<Key> missing = new LinkedHashSet<>();
+        for(int i = 0; i < targets.size(); i++){
+            Key key = keyOf(attacker, targets.get(i), distances[i]);
+            keys.add(key);
+            if(!cache.containsKey(key)) missing.add(key);
+        }
+        missing.parallelStream().forEach(this::outcomeOf);
+        List<Outcome> outcomes = new ArrayList<>(keys.size());
+        for(Key key : keys){
+            outcomes.add(outcomeOf(key));
+        }
+        return outcomes;
+    }
+
+    /**
+     * @return the cached forecast of the key, simulating it the first time
+     */
+    private Outcome outcomeOf(Key key){
+        Outcome outcome = cache.get(key);
+        if(outcome == null){
+            if(cache.size() >= CACHE_CAPACITY) cache.clear();
+            outcome = simulate(key);
+            Outcome previous = cache.putIfAbsent(key, outcome);
+            if(previous != null) outcome = previous;
+        }
+        return outcome;
+    }
+
+    /**
+     * Plays the rounds between the copies of the units of the key, the copies are not on the
+     * map: the distance of the key is given to every attack.
+     */
+    private Outcome simulate(Key key){
+        UnitStore store = new UnitStore(map, 2);
+        int attacker = key.attacker.copyTo(store);
+        int defender = key.defender.copyTo(store);
+        if(key.owners != Key.NO_OWNER){
+            store.setTactician(attacker, OWNER);
+            store.setTactician(defender, key.owners == Key.ALLIES ? OWNER : RIVAL);
+        }
+        double attackerHitPoints = store.getHitPoints(attacker);
+        double defenderHitPoints = store.getHitPoints(defender);
+        double damage = 0;
+        double counterDamage = 0;
+        int round = 0;
+        int roundsToKill = -1;
+        while(round < rounds && store.attack(attacker, defender, key.distance)){
+            round++;
+            if(round == 1){
+                damage = defenderHitPoints - store.getHitPoints(defender);
+                counterDamage = attackerHitPoints - store.getHitPoints(attacker);
+            }
+            if(store.getHitPoints(defender) <= 0){
+                roundsToKill = round;
+            }
+        }
+        boolean survives = attackerHitPoints - counterDamage > 0;
+        return new Outcome(damage, counterDamage, survives ? 1 : 0, roundsToKill > 0 ? 1 : 0,
+                roundsToKill);
+    }
+
+    /**
+     * @return the number of steps between the units, up to the farthest range of their items,
+     * or {@link Field#UNREACHABLE}
+     */
+    private int distance(IUnit attacker, IUnit defender){
+        Location from = attacker.getLocation();
+        Location to = defender.getLocation();
+        if(from == null || to == null) return Field.UNREACHABLE;
+        double distance = from.distanceTo(to, Math.max(rangeOf(attacker), rangeOf(defender)));
+        return distance == Double.POSITIVE_INFINITY ? Field.UNREACHABLE : (int) distance;
+    }
+
+    /**
+     * @return the distances from the attacker to every target, with a single search
+     */
+    private int[] distances(IUnit attacker, List<? extends IUnit> targets){
+        int[] distances = new int[targets.size()];
+        Location source = attacker.getLocation();
+        if(source == null || source.getField() != map){
+            for(int i = 0; i < distances.length; i++){
+                distances[i] = distance(attacker, targets.get(i));
+            }
+            return distances;
+        }
+        Location[] cells = new Location[targets.size()];
+        int limit = rangeOf(attacker);
+        for(int i = 0; i < cells.length; i++){
+            cells[i] = targets.get(i).getLocation();
+            limit = Math.max(limit, rangeOf(targets.get(i)));
+        }
+        return map.distances(source, cells, limit);
+    }
+
+    /**
+     * @return the maximum range of the item of the unit, 0 without items
+     */
+    private static int rangeOf(IUnit unit){
+        IEquipableItem item = unit.getEquippedItem();
+        return item != null && item.isUtil() ? item.getMaxRange() : 0;
+    }
+
+    private Key keyOf(IUnit attacker, IUnit defender, int distance){
+        Tactician owner = attacker.getTactician();
+        int owners = owner == null ? Key.NO_OWNER
+                : owner == defender.getTactician() ? Key.ALLIES : Key.RIVALS;
+        return new Key(new Side(attacker, bucket), new Side(defender, bucket), distance, owners);
+    }
+
+    /**
+     * What decides a forecast: both units, their distance and if they have the same owner
+     */
+    private static final class Key {
+        private static final int NO_OWNER = 0;
+        private static final int ALLIES = 1;
+        private static final int RIVALS = 2;
+
+        private final Side attacker;
+        private final Side defender;
+        private final int distance;
+        private final int owners;
+
+        private Key(Side attacker, Side defender, int distance, int owners){
+            this.attacker = attacker;
+            this.defender = defender;
+            this.distance = distance;
+            this.owners = owners;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return distance == key.distance && owners == key.owners
+                    && attacker.equals(key.attacker) && defender.equals(key.defender);
+        }
+
+        @Override
+        public int hashCode() {
+            return (attacker.hashCode() * 31 + defender.hashCode()) * 31 + distance * 3 + owners;
+        }
+    }
+
+    /**
+     * What decides the part of a unit in a forecast: its kind, its maximum hit points, the
+     * bucket of its hit points and the type, power and range of its item. The item is kept to
+     * copy it, the store only reads it.
+     */
+    private static final class Side {
+        private final UnitType type;
+        private final double maxHitPoints;
+        private final int hitPointsBucket;
+        private final double hitPoints;
+        private final IEquipableItem item;
+
+        private Side(IUnit unit, double bucket){
+            IEquipableItem equipped = unit.getEquippedItem();
+            this.type = UnitStore.typeOf(unit);
+            this.maxHitPoints = unit.getMaxCurrentHitPoints();
+            this.hitPointsBucket = (int) Math.floor(unit.getCurrentHitPoints() / bucket);
+            this.hitPoints = hitPointsBucket * bucket;
+            this.item = equipped != null && equipped.isUtil() ? equipped : null;
+        }
+
+        /**
+         * @return the number of a copy of the unit in the store, with the lowest hit points
+         * of its bucket
+         */
+        private int copyTo(UnitStore store){
+            int unit = store.add(type, (int) Math.ceil(maxHitPoints), 0, null);
+            store.setHitPoints(unit, hitPoints);
+            if(item != null) store.equip(unit, store.addItem(item));
+            return unit;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Side)) return false;
+            Side side = (Side) other;
+            if(type != side.type || maxHitPoints != side.maxHitPoints
+                    || hitPointsBucket != side.hitPointsBucket
+                    || (item == null) != (side.item == null)){
+                return false;
+            }
+            return item == null || (item.getType() == side.item.getType()
+                    && item.getPower() == side.item.getPower()
+                    && item.getMinRange() == side.item.getMinRange()
+                    && item.getMaxRange() == side.item.getMaxRange());
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = (type.ordinal() * 31 + Double.hashCode(maxHitPoints)) * 31
+                    + hitPointsBucket;
+            return item == null ? hash : Objects.hash(hash, item.getType(), item.getPower(),
+                    item.getMinRange(), item.getMaxRange());
+        }
+    }
+
+    /**
+     * The result of the attacks of a forecast
+     */
+    public static final class Outcome {
+        private final double damage;
+        private final double counterDamage;
+        private final double survivalChance;
+        private final double killChance;
+        private final int roundsToKill;
+
+        private Outcome(double damage, double counterDamage, double survivalChance,
+                        double killChance, int roundsToKill){
+            this.damage = damage;
+            this.counterDamage = counterDamage;
+            this.survivalChance = survivalChance;
+            this.killChance = killChance;
+            this.roundsToKill = roundsToKill;
+        }
+
+        /**
+         * @return the hit points that the defender loses in the first attack,
+         * negative if the attacker heals it
+         */
+        public double getDamage() {
+            return damage;
+        }
+
+        /**
+         * @return the hit points that the attacker loses in the counterattack of the first attack
+         */
+        public double getCounterDamage() {
+            return counterDamage;
+        }
+
+        /**
+         * @return the chance that the attacker survives the counterattack of the first attack
+         */
+        public double getSurvivalChance() {
+            return survivalChance;
+        }
+
+        /**
+         * @return the chance that the defender is defeated within the rounds of the forecast
+         */
+        public double getKillChance() {
+            return killChance;
+        }
+
+        /**
+         * @return the round in which the defender is defeated, or -1 if it survives
+         */
+        public int getRoundsToKill() {
+            return roundsToKill;
+        }
+    }
+}
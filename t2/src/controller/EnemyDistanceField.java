@@ -0,0 +1,221 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package controller;
+
+import model.map.DistanceField;
+import model.map.Field;
+import model.map.Location;
+import model.units.IUnit;
+import model.units.NormalUnit;
+import model.units.SpecialUnit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The distance from every cell of the map to the nearest enemy unit of a tactician.
+ * <p>
+ * The enemies are the units in the map of all the other tacticians. The distances are kept by a
+ * {@link DistanceField} that is updated incrementally: the enemy distance field listens to the
+ * unit-moved and unit-removed events of the other tacticians and only moves the sources of the
+ * units that changed. A distance field that is no longer needed must be disposed, so the
+ * tacticians stop updating it.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public class EnemyDistanceField implements TacticianListener {
+
+    private final Tactician owner;
+    private final List<Tactician> tacticians;
+    private final Field map;
+    private final DistanceField distances;
+    private final Map<IUnit, Location> sources = new HashMap<>();
+
+    /**
+     * Creates the distance field of a tactician and starts listening to its enemies.
+     *
+     * @param map of the game
+     * @param owner tactician whose enemies are the sources of the distances
+     * @param tacticians all the tacticians of the game
+     */
+    public EnemyDistanceField(@NotNull Field map, @NotNull Tactician owner,
+                              @NotNull List<Tactician> tacticians){
+        this.map = map;
+        this.owner = owner;
+        this.tacticians = tacticians;
+        this.distances = new DistanceField(map);
+        for(Tactician tactician : tacticians){
+            if(tactician != owner){
+                tactician.addTacticianListener(this);
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * A unit of an enemy moved.
+     *
+     * @param tactician owner of the unit
+     * @param unit that moved
+     */
+    @Override
+    public void onUnitMoved(Tactician tactician, IUnit unit) {
+        update(unit);
+    }
+
+    /**
+     * A normal unit of an enemy was removed.
+     *
+     * @param tactician that lost the unit
+     * @param unit that was removed
+     * @param oldUnits number of units before the removal
+     * @param newUnits number of units after the removal
+     */
+    @Override
+    public void onNormalUnitRemoved(Tactician tactician, NormalUnit unit, int oldUnits,
+                                    int newUnits) {
+        update(unit);
+    }
+
+    /**
+     * The special unit of an enemy was removed, with it all its units leave the map.
+     *
+     * @param tactician that lost the unit
+     * @param unit that was removed
+     */
+    @Override
+    public void onSpecialUnitRemoved(Tactician tactician, SpecialUnit unit) {
+        update(unit);
+        for(IUnit other : tactician.getUnits()){
+            update(other);
+        }
+    }
+
+    /**
+     * Moves the source of a single enemy unit to its current location.
+     */
+    private void update(IUnit unit){
+        Location previous = sources.get(unit);
+        Location location = locationOf(unit);
+        if(previous == location) return;
+        if(previous != null){
+            distances.removeSource(previous);
+            sources.remove(unit);
+        }
+        if(location != null){
+            distances.addSource(location);
+            sources.put(unit, location);
+        }
+    }
+
+    /**
+     * @return the cell of the map where the unit is standing, or null if it isn't in the map
+     */
+    private Location locationOf(IUnit unit){
+        Location location = unit.getLocation();
+        return location != null && location.getUnit() == unit && location.getField() == map
+                ? location : null;
+    }
+
+    /**
+     * Stops listening to the tacticians, the distances aren't updated anymore.
+     */
+    public void dispose(){
+        for(Tactician tactician : tacticians){
+            tactician.removeTacticianListener(this);
+        }
+    }
+
+    /**
+     * Looks for the enemy units that were placed, moved or removed since the last update and
+     * moves their sources. Units placed directly in the map don't send events, so this should be
+     * called after placing them.
+     */
+    public void refresh(){
+        Map<IUnit, Location> current = new HashMap<>();
+        for(Tactician tactician : tacticians){
+            if(tactician == owner) continue;
+            for(IUnit unit : tactician.getUnits()){
+                Location location = locationOf(unit);
+                if(location != null){
+                    current.put(unit, location);
+                }
+            }
+        }
+        for(Map.Entry<IUnit, Location> source : sources.entrySet()){
+            if(current.get(source.getKey()) != source.getValue()){
+                distances.removeSource(source.getValue());
+            }
+        }
+        for(Map.Entry<IUnit, Location> source : current.entrySet()){
+            if(sources.get(source.getKey()) != source.getValue()){
+                distances.addSource(source.getValue());
+            }
+        }
+        sources.clear();
+        sources.putAll(current);
+    }
+
+    /**
+     * @param location cell of the map
+     * @return the number of steps from the cell to the nearest enemy unit,
+     * or {@link Field#UNREACHABLE} if no enemy can be reached
+     */
+    public int distanceToEnemy(@NotNull Location location){
+        return distances.distance(location);
+    }
+
+    /**
+     * @return the distances of every cell, indexed by row * getWidth() + column
+     */
+    public int[] getDistances(){
+        return distances.getDistances();
+    }
+
+    /**
+     * @return the number of positions in each row of the array of distances
+     */
+    public int getWidth(){
+        return distances.getWidth();
+    }
+
+    /**
+     * @return the number of enemy units used as sources
+     */
+    public int getEnemyCount(){
+        return sources.size();
+    }
+
+    /**
+     * @return the tactician that owns this distance field
+     */
+    public Tactician getOwner(){
+        return owner;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package controller;
+
+import model.map.Field;
+import model.map.Location;
+import model.units.IUnit;
+import model.units.NormalUnit;
+import model.units.SpecialUnit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cells of the map that every tactician can see.
+ * <p>
+ * A tactician sees the cells within the vision range of its own units, the range is counted in
+ * steps over the rows and columns of the map and the walls don't block the vision. Each tactician
+ * keeps, for every cell, the number of its units that see it and a bitmap with the cells seen by
+ * at least one unit. The fog of war listens to the unit-moved and unit-removed events of the
+ * tacticians and only updates the cells around the units that changed, so the cost of an action
+ * depends on the vision range and not on the size of the map.
+ * <p>
+ * The cells whose visibility changed are collected until they are taken with
+ * {@link #takeChangedCells(Tactician)}. A fog of war that is no longer needed must be disposed,
+ * so the tacticians stop updating it.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public class FogOfWar implements TacticianListener {
+
+    private final Field map;
+    private final int size;
+    private final int visionRange;
+    private final Map<Tactician, Vision> visions = new LinkedHashMap<>();
+
+    /**
+     * Creates the fog of war of the tacticians and starts listening to their units.
+     *
+     * @param map of the game
+     * @param tacticians all the tacticians of the game
+     * @param visionRange number of steps that every unit can see
+     */
+    public FogOfWar(@NotNull Field map, @NotNull List<Tactician> tacticians, int visionRange){
+        if(visionRange < 0){
+            throw new IllegalArgumentException("The vision range can't be negative");
+        }
+        this.map = map;
+        this.size = map.getSize();
+        this.visionRange = visionRange;
+        for(Tactician tactician : tacticians){
+            visions.put(tactician, new Vision(size));
+            tactician.addTacticianListener(this);
+        }
+        refresh();
+    }
+
+    /**
+     * A unit of a tactician moved, only the cells around the unit are updated.
+     *
+     * @param tactician owner of the unit
+     * @param unit that moved
+     */
+    @Override
+    public void onUnitMoved(Tactician tactician, IUnit unit) {
+        Vision vision = visions.get(tactician);
+        if(vision != null) update(vision, unit);
+    }
+
+    /**
+     * A normal unit of a tactician was removed.
+     *
+     * @param tactician that lost the unit
+     * @param unit that was removed
+     * @param oldUnits number of units before the removal
+     * @param newUnits number of units after the removal
+     */
+    @Override
+    public void onNormalUnitRemoved(Tactician tactician, NormalUnit unit, int oldUnits,
+                                    int newUnits) {
+        onUnitMoved(tactician, unit);
+    }
+
+    /**
+     * The special unit of a tactician was removed, with it all its units leave the map.
+     *
+     * @param tactician that lost the unit
+     * @param unit that was removed
+     */
+    @Override
+    public void onSpecialUnitRemoved(Tactician tactician, SpecialUnit unit) {
+        Vision vision = visions.get(tactician);
+        if(vision == null) return;
+        update(vision, unit);
+        for(IUnit other : tactician.getUnits()){
+            update(vision, other);
+        }
+    }
+
+    /**
+     * Stops listening to the tacticians, the visions aren't updated anymore.
+     */
+    public void dispose(){
+        for(Tactician tactician : visions.keySet()){
+            tactician.removeTacticianListener(this);
+        }
+    }
+
+    /**
+     * Looks for the units of every tactician that were placed, moved or removed since the last
+     * update. Units placed directly in the map don't send events, so this should be called after
+     * placing them.
+     */
+    public void refresh(){
+        for(Tactician tactician : visions.keySet()){
+            refresh(tactician);
+        }
+    }
+
+    /**
+     * Looks for the units of a tactician that were placed, moved or removed since the last update.
+     *
+     * @param tactician owner of the units
+     */
+    public void refresh(@NotNull Tactician tactician){
+        Vision vision = visions.get(tactician);
+        if(vision == null) return;
+        Map<IUnit, Location> current = new HashMap<>();
+        for(IUnit unit : tactician.getUnits()){
+            Location location = locationOf(unit);
+            if(location != null){
+                current.put(unit, location);
+            }
+        }
+        for(Map.Entry<IUnit, Location> eye : new ArrayList<>(vision.eyes.entrySet())){
+            if(current.get(eye.getKey()) != eye.getValue()){
+                see(vision, eye.getValue(), -1);
+                vision.eyes.remove(eye.getKey());
+            }
+        }
+        for(Map.Entry<IUnit, Location> eye : current.entrySet()){
+            if(vision.eyes.get(eye.getKey()) != eye.getValue()){
+                see(vision, eye.getValue(), 1);
+                vision.eyes.put(eye.getKey(), eye.getValue());
+            }
+        }
+    }
+
+    /**
+     * Moves the vision of a single unit to its current location.
+     */
+    private void update(Vision vision, IUnit unit){
+        Location previous = vision.eyes.get(unit);
+        Location location = locationOf(unit);
+        if(previous == location) return;
+        if(previous != null){
+            see(vision, previous, -1);
+            vision.eyes.remove(unit);
+        }
+        if(location != null){
+            see(vision, location, 1);
+            vision.eyes.put(unit, location);
+        }
+    }
+
+    /**
+     * @return the cell of the map where the unit is standing, or null if it isn't in the map
+     */
+    private Location locationOf(IUnit unit){
+        Location location = unit.getLocation();
+        if(location != null && location.getUnit() == unit && location.getField() == map
+                && location.getRow() < size && location.getColumn() < size){
+            return location;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a unit to the counts of the cells within the vision range of a location,
+     * or removes it if delta is negative.
+     */
+    private void see(Vision vision, Location location, int delta){
+        int row = location.getRow();
+        int col = location.getColumn();
+        int firstRow = Math.max(0, row - visionRange);
+        int lastRow = Math.min(size - 1, row + visionRange);
+        for(int r = firstRow; r <= lastRow; r++){
+            int reach = visionRange - Math.abs(r - row);
+            int firstCol = Math.max(0, col - reach);
+            int lastCol = Math.min(size - 1, col + reach);
+            for(int position = r * size + firstCol; position <= r * size + lastCol; position++){
+                vision.count(position, delta);
+            }
+        }
+    }
+
+    /**
+     * @param tactician owner of the vision
+     * @param row of the cell
+     * @param col of the cell
+     * @return true if any unit of the tactician sees the cell
+     */
+    public boolean isVisible(@NotNull Tactician tactician, int row, int col){
+        Vision vision = visions.get(tactician);
+        if(vision == null || row < 0 || col < 0 || row >= size || col >= size) return false;
+        return Vision.test(vision.visible, row * size + col);
+    }
+
+    /**
+     * Returns the cells whose visibility changed since the last time they were taken,
+     * the first call returns all the cells that the tactician sees.
+     * A cell that was hidden and seen again in between isn't returned.
+     *
+     * @param tactician owner of the vision
+     * @return the cells that changed, use {@link #isVisible} to know if they are visible now
+     */
+    public List<Location> takeChangedCells(@NotNull Tactician tactician){
+        List<Location> changed = new ArrayList<>();
+        Vision vision = visions.get(tactician);
+        if(vision == null) return changed;
+        for(int i = 0; i < vision.touchedCount; i++){
+            int position = vision.touched[i];
+            Vision.flip(vision.pending, position);
+            if(Vision.test(vision.visible, position) != Vision.test(vision.reported, position)){
+                Vision.flip(vision.reported, position);
+                changed.add(map.getCell(position / size, position % size));
+            }
+        }
+        vision.touchedCount = 0;
+        return changed;
+    }
+
+    /**
+     * @param tactician owner of the vision
+     * @return the number of cells that the tactician sees
+     */
+    public int getVisibleCount(@NotNull Tactician tactician){
+        Vision vision = visions.get(tactician);
+        return vision == null ? 0 : vision.visibleCount;
+    }
+
+    /**
+     * @return the number of steps that every unit can see
+     */
+    public int getVisionRange(){
+        return visionRange;
+    }
+
+    /**
+     * The cells seen by the units of a tactician.
+     */
+    private static final class Vision {
+        private final Map<IUnit, Location> eyes = new HashMap<>();
+        private final int[] counts;
+        private final long[] visible;
+        private final long[] reported;
+        private final long[] pending;
+        private int[] touched = new int[64];
+        private int touchedCount;
+        private int visibleCount;
+
+        private Vision(int size){
+            int cells = size * size;
+            counts = new int[cells];
+            visible = new long[(cells + 63) >>> 6];
+            reported = new long[visible.length];
+            pending = new long[visible.length];
+        }
+
+        /**
+         * Changes the number of units that see a position and marks it as changed
+         * when it becomes visible or hidden.
+         */
+        private void count(int position, int delta){
+            int before = counts[position];
+            int after = before + delta;
+            counts[position] = after;
+            if((before == 0) != (after == 0)){
+                flip(visible, position);
+                visibleCount += after == 0 ? -1 : 1;
+                if(!test(pending, position)){
+                    flip(pending, position);
+                    if(touchedCount == touched.length){
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = position;
+                }
+            }
+        }
+
+        private static boolean test(long[] bits, int position){
+            return (bits[position >>> 6] & (1L << position)) != 0;
+        }
+
+        private static void flip(long[] bits, int position){
+            bits[position >>> 6] ^= 1L << position;
+        }
+    }
+}
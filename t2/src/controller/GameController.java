@@ -31,14 +31,22 @@ import controller.handler.UnitMovedHandler;
 import model.items.IEquipableItem;
 import model.items.factoryItem.*;
 import model.map.Field;
+import model.map.Location;
+import model.map.PathConstraints;
+import model.map.ReachableCells;
 import model.map.factoryMap.FactoryMap;
 import model.map.factoryMap.IFactoryMap;
+import model.units.CombatEngine;
 import model.units.IUnit;
 import model.units.NormalUnit;
 import model.units.SpecialUnit;
 import model.units.factoryUnit.*;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -52,6 +60,8 @@ import java.util.Random;
  */
 public class GameController {
 
+  private static final int DISTANCE_CACHE_CAPACITY = 4096;
+  private static final int SHARED_SEARCH_PAIRS = 4;
   private Random random = new Random(212121);
   private long seedMap = 0;
   private long maxRounds;
@@ -66,6 +76,7 @@ public class GameController {
   private IEquipableItem selectedItem;
   private IFactoryMap factoryMap;
   private List<IUnit> unitsMoved = new ArrayList<>();
+  private final PropertyChangeSupport combatSupport = new PropertyChangeSupport(this);
 
   /**
    * Creates the controller for a new game.
@@ -83,13 +94,18 @@ public class GameController {
   }
 
   /**
-   * Create a instance of Field with a Factory Map
+   * Create a instance of Field with a Factory Map.
+   * The map caches the distances asked from the thread that creates it, the game thread;
+   * the distances asked from other threads, like the forecasts of the combats, are searched
+   * without the cache
    * @return a Field of N x N with tamMap initial
    */
   public Field createNewMap() {
     this.factoryMap = new FactoryMap(this.tamMap);
     if(seedMap!=0) this.factoryMap.setNumLong(this.seedMap);
-    return factoryMap.createMap();
+    Field newMap = factoryMap.createMap();
+    newMap.setDistanceCacheCapacity(DISTANCE_CACHE_CAPACITY);
+    return newMap;
   }
 
   /**
@@ -105,10 +121,10 @@ public class GameController {
       builder.append("Player ");
       builder.append(i);
       Tactician pTactician = new Tactician(builder.toString());
-      pTactician.addObserverNormalUnit(new NormalUnitLoseHandler(this));
-      pTactician.addObserverSpecialUnit(new SpecialUnitLoseHandler(this));
-      pTactician.addObserverStatus(new StatusTacticianHandler(this));
-      pTactician.addObserverUnitMoved(new UnitMovedHandler(this));
+      pTactician.addTacticianListener(new NormalUnitLoseHandler(this));
+      pTactician.addTacticianListener(new SpecialUnitLoseHandler(this));
+      pTactician.addTacticianListener(new StatusTacticianHandler(this));
+      pTactician.addTacticianListener(new UnitMovedHandler(this));
       tacticianList.add(pTactician);
     }
     return tacticianList;
@@ -409,6 +425,90 @@ public class GameController {
     }
   }
 
+  /**
+   * Uses the equipped items of many units of the turn owner, in order, each attacker on its
+   * target.
+   * <p>
+   * A run of consecutive pairs of the same attacker shares a single search of the distances to
+   * their targets, the shorter runs use the distances cached by the map, that are cheaper than a
+   * search for a few targets. The attacks are resolved with
+   * the {@link CombatEngine}. The units still send their changes of hit points, so the defeated
+   * units leave the game, but the observers of the combat receive a single event for the whole
+   * batch.
+   *
+   * @param attackers units that use their items, the ones that left the map or don't belong
+   * to the turn owner are skipped
+   * @param targets units attacked, the target of attackers[i] is targets[i]
+   * @return the number of attacks that were done
+   */
+  public int useItemsOn(IUnit[] attackers, IUnit[] targets) {
+    if(attackers.length != targets.length){
+      throw new IllegalArgumentException("Every attacker needs a target");
+    }
+    int[] distances = distancesOfPairs(attackers, targets);
+    Tactician owner = getTurnOwner();
+    int attacks = 0;
+    for(int i = 0; i < attackers.length; i++){
+      if(owner.hasUnit(attackers[i]) && isInMap(attackers[i]) && isInMap(targets[i])
+          && CombatEngine.attack(attackers[i], targets[i], distances[i])){
+        attacks++;
+      }
+    }
+    // every batch is announced, even when all its pairs attacked and both values are the same
+    PropertyChangeEvent event =
+        new PropertyChangeEvent(this, "combat-batch", attackers.length, attacks);
+    for(PropertyChangeListener listener : combatSupport.getPropertyChangeListeners()){
+      listener.propertyChange(event);
+    }
+    return attacks;
+  }
+
+  /**
+   * @return true if the unit is standing in its location, the units that leave the game
+   * can't attack or be attacked
+   */
+  private boolean isInMap(IUnit unit){
+    return unit != null && unit.getLocation() != null && unit.getLocation().getUnit() == unit;
+  }
+
+  /**
+   * Searches at once the distances of the long runs of pairs of the same attacker,
+   * only up to the range of the attacker
+   *
+   * @return the distance between attackers[i] and targets[i], or -1 if it wasn't searched
+   */
+  private int[] distancesOfPairs(IUnit[] attackers, IUnit[] targets){
+    int[] distances = new int[attackers.length];
+    Arrays.fill(distances, -1);
+    int end;
+    for(int start = 0; start < attackers.length; start = end){
+      IUnit attacker = attackers[start];
+      end = start + 1;
+      while(end < attackers.length && attackers[end] == attacker) end++;
+      if(end - start < SHARED_SEARCH_PAIRS || attacker == null || attacker.getLocation() == null
+          || !getTurnOwner().hasUnit(attacker)) continue;
+      Location[] cells = new Location[end - start];
+      for(int i = start; i < end; i++){
+        cells[i - start] = targets[i] == null ? null : targets[i].getLocation();
+      }
+      Location location = attacker.getLocation();
+      Field field = location.getField() != null ? location.getField() : getGameMap();
+      int[] found = field.distances(location, cells, attacker.getEquippedItem().getMaxRange());
+      System.arraycopy(found, 0, distances, start, found.length);
+    }
+    return distances;
+  }
+
+  /**
+   * Add a listener of the batches of attacks, it receives the number of pairs
+   * and the number of attacks that were done
+   *
+   * @param listener of the batches of attacks
+   */
+  public void addObserverCombat(PropertyChangeListener listener){
+    combatSupport.addPropertyChangeListener(listener);
+  }
+
   /**
    * Selects an item from the selected unit's inventory.
    *
@@ -533,6 +633,80 @@ public class GameController {
     }
   }
 
+  /**
+   * The cells where the selected unit can move, used to validate and highlight the moves
+   *
+   * @return the cells reachable by the selected unit, empty if the unit was already moved
+   */
+  public ReachableCells getReachableCells(){
+    if(getSelectedUnit()==null || getUnitsMoved().contains(getSelectedUnit())){
+      return new ReachableCells();
+    }
+    return getGameMap().reachableWithin(getSelectedUnit().getLocation(),
+        getSelectedUnit().getMovement());
+  }
+
+  /**
+   * The units that the selected unit can use its equipped item on, used to highlight the targets
+   *
+   * @return the targets of the selected unit, nearest first, empty if no unit is selected
+   */
+  public List<IUnit> getTargetsOfSelectedUnit(){
+    if(getSelectedUnit()==null){
+      return new ArrayList<>();
+    }
+    return getSelectedUnit().getTargets();
+  }
+
+  /**
+   * The cells that the selected unit would walk through to reach (x,y), used to animate the moves
+   *
+   * @param x position of the rows in the map
+   * @param y position of the column in the map
+   * @return the path of the move including both ends, empty if the unit can't get there
+   */
+  public List<Location> getPathOfSelectedUnit(int x, int y){
+    if(getSelectedUnit()==null || getUnitsMoved().contains(getSelectedUnit())){
+      return new ArrayList<>();
+    }
+    return getGameMap().findPath(getSelectedUnit().getLocation(), getGameMap().getCell(x,y),
+        PathConstraints.forMovement(getSelectedUnit().getMovement()));
+  }
+
+  /**
+   * Create the distance field from every cell to the nearest enemy of a tactician,
+   * it is kept up to date while the enemies move or die until it is disposed
+   *
+   * @param tactician owner of the distance field
+   * @return the distance field of the tactician
+   */
+  public EnemyDistanceField createEnemyDistanceField(Tactician tactician){
+    return new EnemyDistanceField(getGameMap(), tactician, getTacticians());
+  }
+
+  /**
+   * Create the fog of war of the tacticians, every tactician sees the cells within
+   * the vision range of its units and it is kept up to date while the units move or die
+   * until it is disposed
+   *
+   * @param visionRange number of steps that every unit can see
+   * @return the fog of war of all the tacticians
+   */
+  public FogOfWar createFogOfWar(int visionRange){
+    return new FogOfWar(getGameMap(), getTacticians(), visionRange);
+  }
+
+  /**
+   * Create the forecasts of the attacks between the units of the game, they simulate the
+   * attacks on copies of the units and never change the units of the game
+   *
+   * @param rounds number of attacks simulated by every forecast
+   * @return the forecasts of the game
+   */
+  public CombatForecast createCombatForecast(int rounds){
+    return new CombatForecast(getGameMap(), rounds);
+  }
+
   /**
    * A unit moved can not be moved again in the same turn
    * @param unitMoved
@@ -37,7 +37,10 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Tactician represent to a player, so it know
@@ -54,6 +57,7 @@ public class Tactician {
     private boolean status;
     private final String mark;
     private List<IUnit> units = new ArrayList<>();
+    private final Set<IUnit> unitSet = new HashSet<>();
     private IUnit currentUnit;
     private PropertyChangeSupport
             changesNormalUnit = new PropertyChangeSupport(this),
@@ -61,6 +65,7 @@ public class Tactician {
             changesStatusTactician = new PropertyChangeSupport(this),
             changeMovementUnit = new PropertyChangeSupport(this);
     private List<IUnit> moves = new ArrayList<>();
+    private TacticianListener[] listeners = new TacticianListener[0];
 
     /**
      * Constructor to specify an alternative source of moves
@@ -85,6 +90,17 @@ public class Tactician {
         return units;
     }
 
+    /**
+     * Checks if a unit belongs to the player without going through the list of units,
+     * the units that attack ask it every time.
+     *
+     * @param unit that could belong to the player
+     * @return true if the unit is in the list of units of the player
+     */
+    public boolean hasUnit(IUnit unit){
+        return unitSet.contains(unit);
+    }
+
     /**
      * @return list of units moved
      */
@@ -101,13 +117,19 @@ public class Tactician {
             int initSize = getUnits().size();
             unitDeleted.getLocation().setUnit(null);
             units.remove(unitDeleted);
-            changesNormalUnit.firePropertyChange(
-                    new PropertyChangeEvent(
-                            this,
-                            "Normal Unit deleted",
-                            initSize,
-                            getUnits().size())
-            );
+            if(!units.contains(unitDeleted)) unitSet.remove(unitDeleted);
+            for(TacticianListener listener : listeners){
+                listener.onNormalUnitRemoved(this, unitDeleted, initSize, getUnits().size());
+            }
+            if(changesNormalUnit.hasListeners(null)) {
+                changesNormalUnit.firePropertyChange(
+                        new PropertyChangeEvent(
+                                this,
+                                "Normal Unit deleted",
+                                initSize,
+                                getUnits().size())
+                );
+            }
         }
     }
 
@@ -121,15 +143,21 @@ public class Tactician {
                 u.getLocation().setUnit(null);
             }
             units.remove(specialUnit);
+            if(!units.contains(specialUnit)) unitSet.remove(specialUnit);
             status = false;
-            changesSpecialUnit.firePropertyChange(
-                    new PropertyChangeEvent(
-                            this,
-                            "Special Unit deleted",
-                            null,
-                            getUnits()
-                    )
-            );
+            for(TacticianListener listener : listeners){
+                listener.onSpecialUnitRemoved(this, specialUnit);
+            }
+            if(changesSpecialUnit.hasListeners(null)) {
+                changesSpecialUnit.firePropertyChange(
+                        new PropertyChangeEvent(
+                                this,
+                                "Special Unit deleted",
+                                null,
+                                getUnits()
+                        )
+                );
+            }
         }
     }
 
@@ -141,9 +169,10 @@ public class Tactician {
         final ResponseNormalUnit respNormalUnit = new ResponseNormalUnit(this);
         final ResponseMovementUnit responseMovementUnit = new ResponseMovementUnit(this);
         unitAdded.addResponseNormalUnit(respNormalUnit);
-        unitAdded.addObserverMovement(responseMovementUnit);
+        unitAdded.addUnitListener(responseMovementUnit);
         unitAdded.setTactician(this);
         units.add(unitAdded);
+        unitSet.add(unitAdded);
     }
 
     /**
@@ -154,9 +183,10 @@ public class Tactician {
         final ResponseSpecialUnit respSpecialUnit = new ResponseSpecialUnit(this);
         final ResponseMovementUnit responseMovementUnit = new ResponseMovementUnit(this);
         unitHero.addResponseSpecialUnit(respSpecialUnit);
-        unitHero.addObserverMovement(responseMovementUnit);
+        unitHero.addUnitListener(responseMovementUnit);
         unitHero.setTactician(this);
         units.add(unitHero);
+        unitSet.add(unitHero);
     }
 
     /**
@@ -192,7 +222,7 @@ public class Tactician {
      * @param unit that will change to current unit
      */
     public void setCurrentUnit(IUnit unit) {
-         if(getUnits().contains(unit)) this.currentUnit = unit;
+         if(hasUnit(unit)) this.currentUnit = unit;
     }
 
     // STATUS PLAYER
@@ -202,14 +232,19 @@ public class Tactician {
      */
     public void retire(){
         this.status = false;
-        changesStatusTactician.firePropertyChange(
-                new PropertyChangeEvent(
-                        this,
-                        "change-status",
-                        true,
-                        false
-                )
-        );
+        for(TacticianListener listener : listeners){
+            listener.onStatusChanged(this);
+        }
+        if(changesStatusTactician.hasListeners(null)) {
+            changesStatusTactician.firePropertyChange(
+                    new PropertyChangeEvent(
+                            this,
+                            "change-status",
+                            true,
+                            false
+                    )
+            );
+        }
     }
 
     /**
@@ -293,13 +328,47 @@ public class Tactician {
      */
     public void addUnitMoved(IUnit unitMoved){
         moves.add(unitMoved);
-        changeMovementUnit.firePropertyChange(
-                new PropertyChangeEvent(
-                        this,
-                        "unit-moved",
-                        null,
-                        unitMoved
-                )
-        );
+        for(TacticianListener listener : listeners){
+            listener.onUnitMoved(this, unitMoved);
+        }
+        if(changeMovementUnit.hasListeners(null)) {
+            changeMovementUnit.firePropertyChange(
+                    new PropertyChangeEvent(
+                            this,
+                            "unit-moved",
+                            null,
+                            unitMoved
+                    )
+            );
+        }
+    }
+
+    /**
+     * Adds a typed listener of the removed units, the moves and the status of this tactician,
+     * it is called without creating event objects
+     *
+     * @param listener of this tactician
+     */
+    public void addTacticianListener(@NotNull TacticianListener listener){
+        TacticianListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    /**
+     * Removes a listener added with {@link #addTacticianListener(TacticianListener)}
+     *
+     * @param listener of this tactician
+     */
+    public void removeTacticianListener(@NotNull TacticianListener listener){
+        for(int i = 0; i < listeners.length; i++){
+            if(listeners[i] == listener){
+                TacticianListener[] removed = new TacticianListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, listeners.length - i - 1);
+                listeners = removed;
+                return;
+            }
+        }
     }
 }
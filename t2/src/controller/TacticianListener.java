@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package controller;
+
+import model.units.IUnit;
+import model.units.NormalUnit;
+import model.units.SpecialUnit;
+
+/**
+ * Typed listener of the changes of a tactician.
+ * <p>
+ * The tacticians keep these listeners in a plain array and call them with the values of the
+ * change, without creating an event object. Every method does nothing by default, a listener
+ * only overrides the changes it cares about.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public interface TacticianListener {
+    /**
+     * Called when a normal unit of the tactician is defeated and removed
+     *
+     * @param tactician that lost the unit
+     * @param unit that was removed, it already left the map
+     * @param oldUnits number of units before the removal
+     * @param newUnits number of units after the removal
+     */
+    default void onNormalUnitRemoved(Tactician tactician, NormalUnit unit, int oldUnits,
+                                     int newUnits) { }
+
+    /**
+     * Called when the special unit of the tactician is defeated, the tactician loses
+     *
+     * @param tactician that lost the unit
+     * @param unit that was removed, it and the other units of the tactician already left the map
+     */
+    default void onSpecialUnitRemoved(Tactician tactician, SpecialUnit unit) { }
+
+    /**
+     * Called when the tactician retires from the game
+     *
+     * @param tactician that retired
+     */
+    default void onStatusChanged(Tactician tactician) { }
+
+    /**
+     * Called when a unit of the tactician moves
+     *
+     * @param tactician owner of the unit
+     * @param unit that moved
+     */
+    default void onUnitMoved(Tactician tactician, IUnit unit) { }
+}
@@ -26,11 +26,10 @@ package controller.handler;
 
 import controller.GameController;
 import controller.Tactician;
+import controller.TacticianListener;
+import model.units.NormalUnit;
 import org.jetbrains.annotations.NotNull;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
-
 /**
  * Handler for the change of the units of the player.
  * if the total of units die then the player lose and is removed
@@ -39,7 +38,7 @@ import java.beans.PropertyChangeListener;
  * @version 1.0
  * @since 2.0
  */
-public class NormalUnitLoseHandler implements PropertyChangeListener {
+public class NormalUnitLoseHandler implements TacticianListener {
     private GameController controller;
 
     /**
@@ -50,14 +49,16 @@ public class NormalUnitLoseHandler implements PropertyChangeListener {
         this.controller = gameController;
     }
     /**
-     * This method gets called when a bound property is changed.
+     * If the player has no units left, the player loses and is removed
      *
-     * @param evt A PropertyChangeEvent object describing the event source
-     *            and the property that has changed.
+     * @param tactician that lost the unit
+     * @param unit that was removed
+     * @param oldUnits number of units before the removal
+     * @param newUnits number of units after the removal
      */
     @Override
-    public void propertyChange(@NotNull PropertyChangeEvent evt) {
-        Tactician player = (Tactician) evt.getSource();
-        if((int) evt.getNewValue()==0) controller.removeTactician(player.getName());
+    public void onNormalUnitRemoved(@NotNull Tactician tactician, NormalUnit unit,
+                                    int oldUnits, int newUnits) {
+        if(newUnits==0) controller.removeTactician(tactician.getName());
     }
 }
@@ -26,11 +26,10 @@ package controller.handler;
 
 import controller.GameController;
 import controller.Tactician;
+import controller.TacticianListener;
+import model.units.SpecialUnit;
 import org.jetbrains.annotations.NotNull;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
-
 /**
  * Handler for the change of the special units of the player.
  * if the special unit die then the player lose and is removed
@@ -39,7 +38,7 @@ import java.beans.PropertyChangeListener;
  * @version 1.0
  * @since 2.0
  */
-public class SpecialUnitLoseHandler implements PropertyChangeListener {
+public class SpecialUnitLoseHandler implements TacticianListener {
     private GameController controller;
 
     /**
@@ -51,14 +50,13 @@ public class SpecialUnitLoseHandler implements PropertyChangeListener {
     }
 
     /**
-     * This method gets called when a bound property is changed.
+     * The player that lost the special unit is removed
      *
-     * @param evt A PropertyChangeEvent object describing the event source
-     *            and the property that has changed.
+     * @param tactician that lost the unit
+     * @param unit that was removed
      */
     @Override
-    public void propertyChange(@NotNull PropertyChangeEvent evt) {
-        Tactician player = (Tactician) evt.getSource();
-        controller.removeTactician(player.getName());
+    public void onSpecialUnitRemoved(@NotNull Tactician tactician, SpecialUnit unit) {
+        controller.removeTactician(tactician.getName());
     }
 }
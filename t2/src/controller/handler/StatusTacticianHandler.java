@@ -26,11 +26,9 @@ package controller.handler;
 
 import controller.GameController;
 import controller.Tactician;
+import controller.TacticianListener;
 import org.jetbrains.annotations.NotNull;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
-
 /**
  * Handler for the change of status of the player.
  * if the player lose then the status is false and is removed of the game
@@ -39,7 +37,7 @@ import java.beans.PropertyChangeListener;
  * @version 1.0
  * @since 2.0
  */
-public class StatusTacticianHandler implements PropertyChangeListener {
+public class StatusTacticianHandler implements TacticianListener {
     private GameController controller;
 
     /**
@@ -50,14 +48,12 @@ public class StatusTacticianHandler implements PropertyChangeListener {
         this.controller = gameController;
     }
     /**
-     * This method gets called when a bound property is changed.
+     * The player that retired is removed
      *
-     * @param evt A PropertyChangeEvent object describing the event source
-     *            and the property that has changed.
+     * @param tactician that retired
      */
     @Override
-    public void propertyChange(@NotNull PropertyChangeEvent evt) {
-        Tactician player = (Tactician) evt.getSource();
-        controller.removeTactician(player.getName());
+    public void onStatusChanged(@NotNull Tactician tactician) {
+        controller.removeTactician(tactician.getName());
     }
 }
@@ -25,12 +25,11 @@
 package controller.handler;
 
 import controller.GameController;
+import controller.Tactician;
+import controller.TacticianListener;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
-
 /**
  * Handler for the change of the position of the player's current unit.
  * When a unit is moved the player can not move this unit again
@@ -39,7 +38,7 @@ import java.beans.PropertyChangeListener;
  * @version 1.0
  * @since 2.0
  */
-public class UnitMovedHandler implements PropertyChangeListener {
+public class UnitMovedHandler implements TacticianListener {
     GameController controller;
 
     /**
@@ -51,14 +50,13 @@ public class UnitMovedHandler implements PropertyChangeListener {
     }
 
     /**
-     * This method gets called when a bound property is changed.
+     * The unit moved is added to the units moved in the turn
      *
-     * @param evt A PropertyChangeEvent object describing the event source
-     *            and the property that has changed.
+     * @param tactician owner of the unit
+     * @param unit that moved
      */
     @Override
-    public void propertyChange(@NotNull PropertyChangeEvent evt) {
-        IUnit unitMoved = (IUnit) evt.getNewValue();
-        controller.addUnitMoved(unitMoved);
+    public void onUnitMoved(Tactician tactician, @NotNull IUnit unit) {
+        controller.addUnitMoved(unit);
     }
 }
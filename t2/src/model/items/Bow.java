@@ -27,6 +27,7 @@ package model.items;
 import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -94,4 +95,9 @@ public class Bow extends AbstractAttack {
   public void receiveSoulAttack(Soul attackSoul) {
     super.receiveMagicAttack(attackSoul);
   }
+
+  @Override
+  public ItemType getType() {
+    return ItemType.BOW;
+  }
 }
@@ -27,6 +27,7 @@ package model.items;
 import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 
 /**
@@ -168,6 +169,12 @@ public interface IEquipableItem {
    * @param distance new with the target unit equipped
    */
   void setDistance(int distance);
+
+  /**
+   * @return the type of the item, it selects the row or column of the item in the
+   * table of the {@link model.units.CombatEngine}
+   */
+  ItemType getType();
   /* END COMBAT SECTION */
 
   boolean isUtil();
@@ -27,6 +27,7 @@ package model.items;
 import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -227,4 +228,9 @@ public class ItemNull implements IEquipableItem {
     public boolean isUtil() {
         return false;
     }
+
+    @Override
+    public ItemType getType() {
+        return ItemType.OTHER;
+    }
 }
@@ -27,6 +27,7 @@ package model.items;
 import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -97,4 +98,8 @@ public class Staff extends AbstractHeap  {
     receiveAttackMagic(attackSoul);
   }
 
+  @Override
+  public ItemType getType() {
+    return ItemType.STAFF;
+  }
 }
@@ -27,6 +27,7 @@ package model.items;
 import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -93,4 +94,8 @@ public class Sword extends AbstractAttack {
   public void receiveDarknessAttack(Darkness attackDarkness)
   { receiveMagicAttack(attackDarkness); }
 
+  @Override
+  public ItemType getType() {
+    return ItemType.SWORD;
+  }
 }
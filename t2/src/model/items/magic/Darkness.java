@@ -26,6 +26,7 @@ package model.items.magic;
 
 import model.items.IAttack;
 import model.items.IEquipableItem;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -81,4 +82,9 @@ public class Darkness extends AbstractItemMagic {
     public void receiveSoulAttack(Soul attackSoul) {
         super.receiveSoftAttack(attackSoul);
     }
+
+    @Override
+    public ItemType getType() {
+        return ItemType.DARKNESS;
+    }
 }
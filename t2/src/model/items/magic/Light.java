@@ -26,6 +26,7 @@ package model.items.magic;
 
 import model.items.IAttack;
 import model.items.IEquipableItem;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -77,4 +78,9 @@ public class Light extends AbstractItemMagic {
 
     @Override
     public void receiveSoulAttack(Soul attackSoul) { super.receiveStrongAttack(attackSoul);  }
+
+    @Override
+    public ItemType getType() {
+        return ItemType.LIGHT;
+    }
 }
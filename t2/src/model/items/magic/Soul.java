@@ -26,6 +26,7 @@ package model.items.magic;
 
 import model.items.IAttack;
 import model.items.IEquipableItem;
+import model.items.factoryItem.ItemType;
 import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
@@ -75,4 +76,9 @@ public class Soul extends AbstractItemMagic {
 
     @Override
     public void receiveSoulAttack(Soul attackSoul) { super.receiveAttackNormal(attackSoul); }
+
+    @Override
+    public ItemType getType() {
+        return ItemType.SOUL;
+    }
 }
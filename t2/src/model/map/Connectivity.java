@@ -0,0 +1,210 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Arrays;
+
+/**
+ * The connected components and the bridges of the graph of a field.
+ * <p>
+ * A bridge is a connection whose removal would split the component that contains it. The bridges
+ * are found with Tarjan's algorithm in a single depth-first traversal of the grid, implemented
+ * with an explicit stack so big maps don't overflow the call stack. The arrays are kept between
+ * updates, so recomputing the structure doesn't allocate unless the grid grows.
+ * <p>
+ * After a connection is removed only the 2-edge-connected block that contained it is traversed
+ * again: removing a bridge leaves every other connection as it was, and removing any other
+ * connection can only turn into bridges the connections of its own block.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class Connectivity {
+
+  private int[] discovery = new int[0];
+  private int[] low = new int[0];
+  private int[] stack = new int[0];
+  private byte[] nextDirection = new byte[0];
+  private byte[] parentDirection = new byte[0];
+  private byte[] bridges = new byte[0];
+  private int components;
+  private int fullUpdates;
+
+  /**
+   * Recomputes the components and the bridges of a grid.
+   *
+   * @param grid
+   *     the cells of the field, indexed by position
+   * @param full
+   *     if every position holds a cell, even the ones that weren't created yet
+   * @param links
+   *     the packed connections of every position
+   * @param offsets
+   *     the difference between the positions of two adjacent cells in every direction
+   */
+  void update(final Location[] grid, final boolean full, final byte[] links,
+      final int[] offsets) {
+    int cells = grid.length;
+    if (discovery.length != cells) {
+      discovery = new int[cells];
+      low = new int[cells];
+      stack = new int[cells];
+      nextDirection = new byte[cells];
+      parentDirection = new byte[cells];
+      bridges = new byte[cells];
+    } else {
+      Arrays.fill(discovery, 0);
+      Arrays.fill(bridges, (byte) 0);
+    }
+    fullUpdates++;
+    components = 0;
+    int time = 0;
+    for (int root = 0; root < cells; root++) {
+      if (!full && grid[root] == null || discovery[root] != 0) {
+        continue;
+      }
+      components++;
+      time = search(root, time, links, offsets);
+    }
+  }
+
+  /**
+   * Updates the components and the bridges after a connection was removed from the links.
+   * <p>
+   * It must be called once for every removed connection, while the rest of the links are the same
+   * as in the last update.
+   *
+   * @param position
+   *     the position of one end of the removed connection
+   * @param direction
+   *     the direction of the removed connection from that position
+   * @param links
+   *     the packed connections of every position, without the removed connection
+   * @param offsets
+   *     the difference between the positions of two adjacent cells in every direction
+   */
+  void remove(final int position, final int direction, final byte[] links,
+      final int[] offsets) {
+    int neighbour = position + offsets[direction];
+    if (isBridge(position, direction)) {
+      bridges[position] &= ~(1 << direction);
+      bridges[neighbour] &= ~(1 << (direction ^ 1));
+      components++;
+      return;
+    }
+    // The block is still connected without the removed connection, so it's found by following
+    // the connections that weren't bridges from one of its ends
+    int size = 0;
+    stack[size++] = position;
+    discovery[position] = -1;
+    for (int i = 0; i < size; i++) {
+      int current = stack[i];
+      for (int next = 0; next < Location.DIRECTIONS; next++) {
+        if ((links[current] & 1 << next) != 0 && !isBridge(current, next)) {
+          int cell = current + offsets[next];
+          if (discovery[cell] != -1) {
+            discovery[cell] = -1;
+            stack[size++] = cell;
+          }
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      discovery[stack[i]] = 0;
+    }
+    search(position, 0, links, offsets);
+  }
+
+  /**
+   * Traverses the cells reachable from a root without crossing the known bridges, marking the
+   * connections that are bridges among them.
+   *
+   * @return the last discovery time used
+   */
+  private int search(final int root, int time, final byte[] links, final int[] offsets) {
+    int top = 0;
+    stack[top++] = root;
+    discovery[root] = low[root] = ++time;
+    nextDirection[root] = 0;
+    parentDirection[root] = -1;
+    while (top > 0) {
+      int current = stack[top - 1];
+      int direction = nextDirection[current];
+      if (direction < Location.DIRECTIONS) {
+        nextDirection[current]++;
+        if ((links[current] & 1 << direction) == 0 || direction == parentDirection[current]
+            || isBridge(current, direction)) {
+          continue;
+        }
+        int neighbour = current + offsets[direction];
+        if (discovery[neighbour] == 0) {
+          discovery[neighbour] = low[neighbour] = ++time;
+          nextDirection[neighbour] = 0;
+          parentDirection[neighbour] = (byte) (direction ^ 1);
+          stack[top++] = neighbour;
+        } else {
+          low[current] = Math.min(low[current], discovery[neighbour]);
+        }
+      } else {
+        top--;
+        int toParent = parentDirection[current];
+        if (toParent >= 0) {
+          int parent = current + offsets[toParent];
+          low[parent] = Math.min(low[parent], low[current]);
+          if (low[current] > discovery[parent]) {
+            bridges[current] |= 1 << toParent;
+            bridges[parent] |= 1 << (toParent ^ 1);
+          }
+        }
+      }
+    }
+    return time;
+  }
+
+  /**
+   * @return the number of connected components of the grid
+   */
+  int getComponents() {
+    return components;
+  }
+
+  /**
+   * @return the number of times the whole grid was traversed
+   */
+  int getFullUpdates() {
+    return fullUpdates;
+  }
+
+  /**
+   * @param position
+   *     the position of one end of the connection
+   * @param direction
+   *     the direction of the connection from that position
+   * @return true if removing the connection would split its component
+   */
+  boolean isBridge(final int position, final int direction) {
+    return (bridges[position] & 1 << direction) != 0;
+  }
+}
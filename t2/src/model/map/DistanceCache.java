@@ -0,0 +1,245 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of the distances between pairs of cells of a field, that forgets the pairs used
+ * least recently when it's full.
+ * <p>
+ * The entries are kept in plain arrays: a hash table of chains indexed by the packed ordinals of
+ * the two cells, and a doubly linked list in order of use. Every entry is tagged with the version
+ * of the connections of the field when it was stored, so the entries stored before a change of
+ * the connections are never answered and get replaced as they are found.
+ * <p>
+ * A search that gives up at a limit only proves that the distance is longer than the limit, so
+ * such an entry answers the queries with the same or a lower limit and is searched again for
+ * higher ones. The cache must be used from a single thread.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class DistanceCache {
+
+  private static final int NONE = -1;
+
+  private final int capacity;
+  private final int[] heads;
+  private final long[] keys;
+  private final int[] values;
+  private final int[] epochs;
+  private final int[] chains;
+  private final int[] previous;
+  private final int[] next;
+  private int size;
+  private int first = NONE;
+  private int last = NONE;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity
+   *     the maximum number of pairs of cells kept
+   */
+  DistanceCache(final int capacity) {
+    this.capacity = capacity;
+    heads = new int[Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) * 2];
+    Arrays.fill(heads, NONE);
+    keys = new long[capacity];
+    values = new int[capacity];
+    epochs = new int[capacity];
+    chains = new int[capacity];
+    previous = new int[capacity];
+    next = new int[capacity];
+  }
+
+  /**
+   * Packs the ordinals of two cells in one key, the same for both orders of the cells since the
+   * distances are symmetric.
+   */
+  static long key(final int from, final int to) {
+    return from < to ? (long) from << 32 | to : (long) to << 32 | from;
+  }
+
+  /**
+   * Looks for the distance between two cells.
+   *
+   * @param key
+   *     the packed ordinals of the cells
+   * @param limit
+   *     the maximum distance that is worth knowing
+   * @param epoch
+   *     the current version of the connections of the field
+   * @return the distance, {@link Field#UNREACHABLE} if it's known to be longer than the limit, or
+   *     -1 if the cache doesn't know
+   */
+  int get(final long key, final int limit, final int epoch) {
+    int entry = find(key);
+    if (entry == NONE || epochs[entry] != epoch
+        || values[entry] < 0 && -values[entry] - 1 < limit) {
+      misses++;
+      return NONE;
+    }
+    hits++;
+    moveToFront(entry);
+    int value = values[entry];
+    return value >= 0 && value <= limit ? value : Field.UNREACHABLE;
+  }
+
+  /**
+   * Stores the result of a search between two cells.
+   *
+   * @param key
+   *     the packed ordinals of the cells
+   * @param distance
+   *     the distance found, or {@link Field#UNREACHABLE} if the search gave up
+   * @param limit
+   *     the limit of the search
+   * @param epoch
+   *     the current version of the connections of the field
+   */
+  void put(final long key, final int distance, final int limit, final int epoch) {
+    // an unreachable cell is only known to be further than the limit of the search
+    int value = distance != Field.UNREACHABLE || limit == Field.UNREACHABLE ? distance
+        : -Math.max(limit, 0) - 1;
+    int entry = find(key);
+    if (entry == NONE) {
+      if (size < capacity) {
+        entry = size++;
+      } else {
+        entry = last;
+        unlink(entry);
+        removeFromChain(entry);
+        evictions++;
+      }
+      keys[entry] = key;
+      int bucket = bucket(key);
+      chains[entry] = heads[bucket];
+      heads[bucket] = entry;
+    } else {
+      unlink(entry);
+    }
+    values[entry] = value;
+    epochs[entry] = epoch;
+    linkFirst(entry);
+  }
+
+  /**
+   * @return the number of queries answered by the cache
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return the number of queries that needed a search
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return the number of pairs forgotten to make room for new ones
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return the number of pairs of cells stored, including the ones that are no longer valid
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the maximum number of pairs of cells kept
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private int bucket(final long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & (heads.length - 1);
+  }
+
+  private int find(final long key) {
+    int entry = heads[bucket(key)];
+    while (entry != NONE && keys[entry] != key) {
+      entry = chains[entry];
+    }
+    return entry;
+  }
+
+  private void removeFromChain(final int entry) {
+    int bucket = bucket(keys[entry]);
+    if (heads[bucket] == entry) {
+      heads[bucket] = chains[entry];
+      return;
+    }
+    int current = heads[bucket];
+    while (chains[current] != entry) {
+      current = chains[current];
+    }
+    chains[current] = chains[entry];
+  }
+
+  private void moveToFront(final int entry) {
+    if (entry != first) {
+      unlink(entry);
+      linkFirst(entry);
+    }
+  }
+
+  private void unlink(final int entry) {
+    if (previous[entry] != NONE) {
+      next[previous[entry]] = next[entry];
+    } else {
+      first = next[entry];
+    }
+    if (next[entry] != NONE) {
+      previous[next[entry]] = previous[entry];
+    } else {
+      last = previous[entry];
+    }
+  }
+
+  private void linkFirst(final int entry) {
+    previous[entry] = NONE;
+    next[entry] = first;
+    if (first != NONE) {
+      previous[first] = entry;
+    }
+    first = entry;
+    if (last == NONE) {
+      last = entry;
+    }
+  }
+}
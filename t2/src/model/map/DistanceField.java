@@ -0,0 +1,278 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+
+/**
+ * The distance from every cell of a field to the nearest of a set of source cells.
+ * <p>
+ * The distances are kept in a dense array indexed by the position of the cells in the grid and
+ * they are computed with a single breadth-first search that starts from all the sources at once.
+ * When a source is added only the cells that get closer are visited again, and when a source is
+ * removed only the cells whose distance came from it are computed again, from the cells around
+ * them. If the connections of the field change, the whole array is computed again the next time
+ * it's read. A distance field must be used from a single thread.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class DistanceField implements PropertyChangeListener {
+
+  private final Field field;
+  private int side;
+  private int[] distances = new int[0];
+  private int[] sources = new int[0];
+  private int[] queue = new int[0];
+  private boolean[] invalid = new boolean[0];
+  private long[] seeds = new long[16];
+  private boolean stale = true;
+  private int visitedCells;
+
+  /**
+   * Creates an empty distance field, where every cell is unreachable, and starts observing the
+   * connections of the map.
+   *
+   * @param field
+   *     the map of the distances
+   */
+  public DistanceField(@NotNull final Field field) {
+    this.field = field;
+    field.addConnectionsListener(this);
+  }
+
+  /**
+   * Stops observing the map, the distances aren't updated after this.
+   */
+  public void dispose() {
+    field.removeConnectionsListener(this);
+  }
+
+  @Override
+  public void propertyChange(final PropertyChangeEvent evt) {
+    stale = true;
+  }
+
+  /**
+   * Adds a cell to the sources of the distances.
+   * <p>
+   * A cell can be added more than once, it stops being a source when it was removed as many times
+   * as it was added.
+   *
+   * @param cell
+   *     the new source, ignored if it isn't part of the map
+   */
+  public void addSource(@NotNull final Location cell) {
+    update();
+    if (!field.contains(cell)) {
+      return;
+    }
+    int position = cell.ordinal;
+    if (sources[position]++ == 0 && distances[position] != 0) {
+      seeds[0] = position;
+      propagate(1);
+    }
+  }
+
+  /**
+   * Removes a cell from the sources of the distances.
+   *
+   * @param cell
+   *     a cell added with {@link #addSource(Location)}
+   */
+  public void removeSource(@NotNull final Location cell) {
+    update();
+    if (!field.contains(cell) || sources[cell.ordinal] == 0) {
+      return;
+    }
+    int position = cell.ordinal;
+    if (--sources[position] > 0) {
+      return;
+    }
+    byte[] links = field.getLinks();
+    int[] offsets = {-side, side, -1, 1};
+    // every cell that got its distance through the removed source is forgotten
+    int tail = 0;
+    queue[tail++] = position;
+    invalid[position] = true;
+    for (int head = 0; head < tail; head++) {
+      int current = queue[head];
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int neighbour = current + offsets[direction];
+        if ((links[current] & 1 << direction) != 0 && !invalid[neighbour]
+            && sources[neighbour] == 0 && distances[neighbour] == distances[current] + 1) {
+          invalid[neighbour] = true;
+          queue[tail++] = neighbour;
+        }
+      }
+    }
+    // and computed again from the cells around them
+    int count = 0;
+    for (int i = 0; i < tail; i++) {
+      int current = queue[i];
+      distances[current] = Field.UNREACHABLE;
+      int best = Field.UNREACHABLE;
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int neighbour = current + offsets[direction];
+        if ((links[current] & 1 << direction) != 0 && !invalid[neighbour]
+            && distances[neighbour] != Field.UNREACHABLE) {
+          best = Math.min(best, distances[neighbour] + 1);
+        }
+      }
+      if (best != Field.UNREACHABLE) {
+        addSeed(count++, best, current);
+      }
+    }
+    for (int i = 0; i < tail; i++) {
+      invalid[queue[i]] = false;
+    }
+    propagate(count);
+  }
+
+  /**
+   * @param cell
+   *     a cell of the map
+   * @return the distance from the cell to the nearest source, or {@link Field#UNREACHABLE} if no
+   *     source can be reached from it
+   */
+  public int distance(@NotNull final Location cell) {
+    update();
+    return field.contains(cell) ? distances[cell.ordinal] : Field.UNREACHABLE;
+  }
+
+  /**
+   * Gives the distances of all the cells.
+   * <p>
+   * The distance of the cell at (row, column) is in the position
+   * <code>row * getWidth() + column</code>. The array belongs to the distance field, it must not
+   * be modified and it may change after any update.
+   *
+   * @return the distance from every cell to the nearest source
+   */
+  public int[] getDistances() {
+    update();
+    return distances;
+  }
+
+  /**
+   * @return the number of positions in each row of the array of distances
+   */
+  public int getWidth() {
+    update();
+    return side;
+  }
+
+  /**
+   * @return the number of cells visited by the searches since the distance field was created
+   */
+  public int getVisitedCells() {
+    return visitedCells;
+  }
+
+  /**
+   * Computes all the distances again if the connections of the map changed.
+   */
+  private void update() {
+    if (!stale) {
+      return;
+    }
+    stale = false;
+    int cells = field.getLinks().length;
+    if (field.getSide() != side || distances.length != cells) {
+      // the cells moved to new positions, the sources are taken from the old ones
+      int[] oldSources = sources;
+      int oldSide = side;
+      side = field.getSide();
+      sources = new int[cells];
+      for (int position = 0; position < oldSources.length; position++) {
+        if (oldSources[position] > 0) {
+          sources[position / oldSide * side + position % oldSide] = oldSources[position];
+        }
+      }
+      distances = new int[cells];
+      queue = new int[cells];
+      invalid = new boolean[cells];
+    }
+    Arrays.fill(distances, Field.UNREACHABLE);
+    int count = 0;
+    for (int position = 0; position < cells; position++) {
+      if (sources[position] > 0) {
+        addSeed(count++, 0, position);
+      }
+    }
+    propagate(count);
+  }
+
+  private void addSeed(final int index, final int distance, final int position) {
+    if (index == seeds.length) {
+      seeds = Arrays.copyOf(seeds, index * 2);
+    }
+    seeds[index] = (long) distance << 32 | position;
+  }
+
+  /**
+   * Breadth-first search from a set of seeds with known distances, that only lowers distances.
+   * <p>
+   * The seeds are sorted by distance and taken when the search reaches their distance, so the
+   * cells are still visited in order of distance and every cell is visited at most once.
+   *
+   * @param count
+   *     the number of seeds, packed as distance and position
+   */
+  private void propagate(final int count) {
+    Arrays.sort(seeds, 0, count);
+    byte[] links = field.getLinks();
+    int[] offsets = {-side, side, -1, 1};
+    int head = 0,
+        tail = 0,
+        next = 0;
+    while (head < tail || next < count) {
+      int current;
+      if (head == tail || next < count && (int) (seeds[next] >>> 32) <= distances[queue[head]]) {
+        current = (int) seeds[next];
+        int distance = (int) (seeds[next++] >>> 32);
+        if (distances[current] <= distance) {
+          continue;
+        }
+        distances[current] = distance;
+      } else {
+        current = queue[head++];
+      }
+      visitedCells++;
+      int distance = distances[current] + 1;
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int neighbour = current + offsets[direction];
+        if ((links[current] & 1 << direction) != 0 && distances[neighbour] > distance) {
+          distances[neighbour] = distance;
+          queue[tail++] = neighbour;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a precomputed table with the distance between every pair of cells of a
+ * field.
+ * <p>
+ * The distances are stored in a single <code>short</code> array indexed by the ordinals of the
+ * cells, so every query is answered with one array read. The table needs
+ * <code>2 * cells * cells</code> bytes and a breadth-first search from every cell to be built, so
+ * it's only worth it for small and medium maps.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class DistanceTable {
+
+  /**
+   * Maximum number of cells a table can hold, so every distance fits in a <code>short</code>.
+   */
+  public static final int MAX_CELLS = Short.MAX_VALUE;
+  private static final short NO_PATH = -1;
+
+  private final int cellCount;
+  private final short[] distances;
+  private final long buildTime;
+
+  /**
+   * Creates the table of distances between the cells of a grid.
+   *
+   * @param links
+   *     the packed connections of every position of the grid, where the position of every cell
+   *     is its ordinal
+   * @param side
+   *     the number of positions in each row of the grid
+   */
+  DistanceTable(@NotNull final byte[] links, final int side) {
+    long start = System.nanoTime();
+    cellCount = links.length;
+    distances = new short[cellCount * cellCount];
+    Arrays.fill(distances, NO_PATH);
+    int[] offsets = {-side, side, -1, 1};
+    int[] queue = new int[cellCount];
+    for (int source = 0; source < cellCount; source++) {
+      fillFrom(source, links, offsets, queue);
+    }
+    buildTime = System.nanoTime() - start;
+  }
+
+  /**
+   * Fills the row of a cell with a breadth-first search from it.
+   */
+  private void fillFrom(final int source, final byte[] links, final int[] offsets,
+      final int[] queue) {
+    int offset = source * cellCount;
+    int head = 0, tail = 0;
+    distances[offset + source] = 0;
+    queue[tail++] = source;
+    while (head < tail) {
+      int current = queue[head++];
+      short next = (short) (distances[offset + current] + 1);
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int neighbour = current + offsets[direction];
+        if ((links[current] & 1 << direction) != 0 && distances[offset + neighbour] == NO_PATH) {
+          distances[offset + neighbour] = next;
+          queue[tail++] = neighbour;
+        }
+      }
+    }
+  }
+
+  /**
+   * @param from
+   *     the ordinal of the cell where the path starts
+   * @param to
+   *     the ordinal of the cell where the path ends
+   * @return the length of the shortest path between the cells, or {@link Field#UNREACHABLE} if
+   *     there is no path
+   */
+  public int distance(final int from, final int to) {
+    short distance = distances[from * cellCount + to];
+    return distance == NO_PATH ? Field.UNREACHABLE : distance;
+  }
+
+  /**
+   * @return the number of cells covered by the table, including the empty positions of the grid
+   */
+  public int getCellCount() {
+    return cellCount;
+  }
+
+  /**
+   * @return the number of bytes used by the distances of the table
+   */
+  public long getMemoryUse() {
+    return memoryFor(cellCount);
+  }
+
+  /**
+   * @return the nanoseconds it took to build the table
+   */
+  public long getBuildTime() {
+    return buildTime;
+  }
+
+  /**
+   * Estimates the memory a table would need before building it.
+   *
+   * @param cells
+   *     the number of cells of the field
+   * @return the number of bytes needed by the distances of a table of that size
+   */
+  public static long memoryFor(final int cells) {
+    return 2L * cells * cells;
+  }
+}
@@ -24,9 +24,17 @@
 
 package model.map;
 
+import model.units.IUnit;
 import org.jetbrains.annotations.NotNull;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 /**
  * This class represents the map where the units are located and the game is played.
@@ -40,9 +48,49 @@ import java.util.*;
  */
 public class Field {
 
-  private Map<String, Location> map = new HashMap<>();
+  /**
+   * Distance returned by the searches when there is no path between two cells.
+   */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+  /**
+   * The highest cost of entering a cell.
+   */
+  public static final int MAX_MOVEMENT_COST = 255;
+
+  private static final Location INVALID = new InvalidLocation();
+  private static final ThreadLocal<SearchBuffer> BUFFERS =
+      ThreadLocal.withInitial(SearchBuffer::new);
+  private static final ThreadLocal<PathBuffer> PATH_BUFFERS =
+      ThreadLocal.withInitial(PathBuffer::new);
+  private static final ThreadLocal<SearchBuffer> TARGET_BUFFERS =
+      ThreadLocal.withInitial(SearchBuffer::new);
+
+  private Location[] grid = new Location[0];
+  private byte[] links = new byte[0];
+  private byte[] costs;
+  private int[] offsets = new int[Location.DIRECTIONS];
+  private int side;
+  private int cellCount;
+  private boolean lazy;
   private Random random = new Random(212121);
-  private StringBuilder builder = new StringBuilder();
+  private int topologyEpoch;
+  private int distanceTableLimit;
+  private DistanceTable distanceTable;
+  private int distanceTableEpoch;
+  private DistanceCache distanceCache;
+  private Thread distanceCacheOwner;
+  private boolean bidirectional = true;
+  private final Connectivity connectivity = new Connectivity();
+  private int connectivityEpoch = -1;
+  private boolean connected;
+  private int connectedEpoch = -1;
+  private final PropertyChangeSupport connectionsSupport = new PropertyChangeSupport(this);
+  private UnitIndex unitIndex;
+  private OccupancyLayer occupancy;
+  private long occupancyVersion;
+  private boolean linksShared;
+  private boolean gridShared;
+  private FieldSnapshot lastSnapshot;
 
   /**
    * Add cells to the map.
@@ -53,44 +101,392 @@ public class Field {
    *     the locations that are going to be added to the map
    */
   public void addCells(final boolean connectAll, @NotNull final Location... cells) {
+    int maxCoordinate = -1;
+    for (Location cell : cells) {
+      maxCoordinate = Math.max(maxCoordinate, Math.max(cell.getRow(), cell.getColumn()));
+    }
+    ensureSide(maxCoordinate + 1);
     // Seed inserted
     for (Location cell : cells) {
       addCell(cell);
-      Location[] adjacentCells = getAdjacentCells(cell);
-      for (Location adjacentCell : adjacentCells) {
-        if (connectAll || random.nextDouble() > 1.0 / 3 || cell.getNeighbours().size() < 1) {
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        Location adjacentCell = getAdjacentCell(cell, direction);
+        if (connectAll || random.nextDouble() > 1.0 / 3 || cell.getNeighbourCount() < 1) {
           addConnection(cell, adjacentCell);
         }
       }
     }
   }
 
+  /**
+   * Creates a square map with every cell from the packed connections of the cells.
+   * <p>
+   * The entry <code>row * size + column</code> of the array holds one bit per direction, numbered
+   * as in {@link Location#DIRECTIONS}. Two adjacent cells are connected when the bit is set in
+   * either of them, so a generator only needs to decide the connections of each cell with the
+   * cells above and to the left of it. The rows are built in parallel, in the fork-join pool of
+   * the calling task or in the common pool.
+   *
+   * @param size
+   *     the number of rows and columns of the map
+   * @param connections
+   *     the packed connections of every cell
+   * @return the new map
+   */
+  public static Field fromConnections(final int size, @NotNull final byte[] connections) {
+    if (size < 0 || connections.length != size * size) {
+      throw new IllegalArgumentException(
+          "Expected " + size * size + " connections but got " + connections.length);
+    }
+    Field field = new Field();
+    field.side = size;
+    field.cellCount = connections.length;
+    field.grid = new Location[connections.length];
+    field.links = new byte[connections.length];
+    field.offsets = new int[]{-size, size, -1, 1};
+    IntStream.range(0, size).parallel().forEach(row -> {
+      for (int col = 0; col < size; col++) {
+        Location cell = new Location(row, col);
+        cell.setField(field, row * size + col);
+        field.grid[row * size + col] = cell;
+      }
+    });
+    IntStream.range(0, size).parallel().forEach(row -> {
+      for (int col = 0; col < size; col++) {
+        int index = row * size + col;
+        byte mask = 0;
+        for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+          int adjacentRow = row + Location.ROW_OFFSETS[direction],
+              adjacentCol = col + Location.COLUMN_OFFSETS[direction];
+          int adjacent = index + field.offsets[direction];
+          if (field.isInside(adjacentRow, adjacentCol)
+              && ((connections[index] & 1 << direction) != 0
+              || (connections[adjacent] & 1 << (direction ^ 1)) != 0)) {
+            field.grid[index].setNeighbour(direction, field.grid[adjacent]);
+            mask |= 1 << direction;
+          }
+        }
+        field.links[index] = mask;
+      }
+    });
+    field.topologyEpoch++;
+    return field;
+  }
+
   public void setSeed(long seed){
     this.random = new Random(seed);
   }
 
   /**
-   * Adds a cell to the map
+   * Adds a cell to the map.
+   * <p>
+   * The cell is stored in the position <code>row * side + column</code> of the grid, so cells
+   * with negative coordinates can't be part of the map.
    *
    * @param cell
    *     the location to be added
    */
   private void addCell(final Location cell) {
-    map.put(cell.toString(), cell);
+    int row = cell.getRow(),
+        col = cell.getColumn();
+    if (row < 0 || col < 0) {
+      return;
+    }
+    ensureSide(Math.max(row, col) + 1);
+    int index = row * side + col;
+    if (grid[index] == null && !lazy) {
+      cellCount++;
+    }
+    unshareTopology();
+    grid[index] = cell;
+    cell.setField(this, index);
+    if (occupancy != null) {
+      occupancy.set(index, cell.getUnit());
+    }
+    connectionsChanged(cell);
+  }
+
+  /**
+   * Grows the grid so it can hold cells with coordinates lower than <code>minSide</code>.
+   * <p>
+   * When the grid grows the cells are moved to their new positions, so their ordinals change.
+   */
+  private void ensureSide(final int minSide) {
+    if (minSide <= side) {
+      return;
+    }
+    resolveAll();
+    int newSide = Math.max(minSide, side + side / 2);
+    Location[] newGrid = new Location[newSide * newSide];
+    byte[] newCosts = costs == null ? null : new byte[newGrid.length];
+    if (newCosts != null) {
+      Arrays.fill(newCosts, (byte) 1);
+    }
+    for (Location cell : grid) {
+      if (cell != null) {
+        int index = cell.getRow() * newSide + cell.getColumn();
+        newGrid[index] = cell;
+        if (newCosts != null) {
+          newCosts[index] = costs[cell.ordinal];
+        }
+        cell.setField(this, index);
+      }
+    }
+    costs = newCosts;
+    grid = newGrid;
+    side = newSide;
+    offsets = new int[]{-side, side, -1, 1};
+    links = new byte[grid.length];
+    linksShared = false;
+    gridShared = false;
+    // the units are placed in the new grid by the next snapshot
+    occupancy = null;
+    for (int index = 0; index < grid.length; index++) {
+      updateLinks(index);
+    }
+    topologyEpoch++;
+    fireConnectionsChanged(null);
+  }
+
+  /**
+   * Registers a change in the connections of a cell, updating the packed connections of the cell
+   * and its adjacent positions and making the precomputed distances stale.
+   *
+   * @param cell
+   *     the cell whose connections changed
+   */
+  void connectionsChanged(@NotNull final Location cell) {
+    if (contains(cell)) {
+      unshareTopology();
+      updateLinks(cell.ordinal);
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int row = cell.getRow() + Location.ROW_OFFSETS[direction],
+            col = cell.getColumn() + Location.COLUMN_OFFSETS[direction];
+        if (isInside(row, col)) {
+          updateLinks(row * side + col);
+        }
+      }
+    }
+    topologyEpoch++;
+    fireConnectionsChanged(cell);
+  }
+
+  /**
+   * Adds an observer that is notified every time the connections of a cell change.
+   * <p>
+   * The new value of the event is the cell whose connections changed, or <code>null</code> when
+   * the whole grid was rebuilt.
+   *
+   * @param listener
+   *     the observer of the connections of the map
+   */
+  public void addConnectionsListener(@NotNull final PropertyChangeListener listener) {
+    connectionsSupport.addPropertyChangeListener(listener);
+  }
+
+  /**
+   * @param listener
+   *     an observer added with {@link #addConnectionsListener(PropertyChangeListener)}
+   */
+  public void removeConnectionsListener(@NotNull final PropertyChangeListener listener) {
+    connectionsSupport.removePropertyChangeListener(listener);
+  }
+
+  private void fireConnectionsChanged(final Location cell) {
+    if (connectionsSupport.hasListeners(null)) {
+      connectionsSupport.firePropertyChange(
+          new PropertyChangeEvent(this, "connections-changed", null, cell));
+    }
+  }
+
+  /**
+   * Gives the index of the units standing on this map, creating it the first time it's needed.
+   * <p>
+   * Once created, the index follows every change of the units of the cells.
+   *
+   * @return the index of the units of the map
+   */
+  public UnitIndex getUnitIndex() {
+    if (unitIndex == null) {
+      unitIndex = new UnitIndex(this);
+      for (Location cell : grid) {
+        if (cell != null && cell.getUnit() != null) {
+          unitIndex.update(cell);
+        }
+      }
+    }
+    return unitIndex;
   }
 
   /**
-   * Gets the possible adjacent cells to a given cell
+   * Registers a change of the unit standing on a cell, updating the index of the units.
+   *
+   * @param cell
+   *     the cell whose unit changed
+   */
+  void unitChanged(@NotNull final Location cell) {
+    if (!contains(cell)) {
+      return;
+    }
+    occupancyVersion++;
+    if (unitIndex != null) {
+      unitIndex.update(cell);
+    }
+    if (occupancy != null) {
+      occupancy.set(cell.ordinal, cell.getUnit());
+    }
+  }
+
+  /**
+   * Takes an immutable view of the connections and the units of the map, that other threads can
+   * read while this map keeps changing.
+   * <p>
+   * The snapshot shares the arrays of the map, that are copied only when they change afterwards.
+   * If nothing changed since the last snapshot the same one is given again. Like every change of
+   * the map, snapshots must be taken from the thread that changes the map.
+   *
+   * @return the current state of the map
+   */
+  public FieldSnapshot snapshot() {
+    if (lastSnapshot != null && lastSnapshot.getTopologyVersion() == topologyEpoch
+        && lastSnapshot.getOccupancyVersion() == occupancyVersion) {
+      return lastSnapshot;
+    }
+    if (occupancy == null) {
+      occupancy = new OccupancyLayer(grid.length);
+      for (Location cell : grid) {
+        if (cell != null && cell.getUnit() != null) {
+          occupancy.set(cell.ordinal, cell.getUnit());
+        }
+      }
+    }
+    linksShared = true;
+    // the cells of a map loaded on demand are every position of the grid
+    gridShared = !lazy;
+    lastSnapshot = new FieldSnapshot(side, getSize(), links, lazy ? null : grid,
+        occupancy.share(), topologyEpoch, occupancyVersion);
+    return lastSnapshot;
+  }
+
+  /**
+   * Copies the connections and the cells of the map before they change, if a snapshot has them.
+   */
+  private void unshareTopology() {
+    if (linksShared) {
+      links = links.clone();
+      linksShared = false;
+    }
+    if (gridShared) {
+      grid = grid.clone();
+      gridShared = false;
+    }
+  }
+
+  /**
+   * Packs the connections of a position of the grid in a 4 bit mask, one bit per direction.
+   * <p>
+   * A bit is set only when the neighbour in that direction is the cell stored in the adjacent
+   * position of the grid, so the searches can move between positions with plain arithmetic.
+   */
+  private void updateLinks(final int index) {
+    Location cell = grid[index];
+    if (cell == null && lazy) {
+      // a cell that wasn't created yet can't have changed
+      return;
+    }
+    byte mask = 0;
+    if (cell != null) {
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        Location neighbour = cell.getNeighbour(direction);
+        if (neighbour != null && neighbour == getAdjacentCell(cell, direction)) {
+          mask |= 1 << direction;
+        }
+      }
+    }
+    links[index] = mask;
+  }
+
+  /**
+   * @return true if the position is inside the grid
+   */
+  private boolean isInside(final int row, final int col) {
+    return row >= 0 && col >= 0 && row < side && col < side;
+  }
+
+  /**
+   * Enables the precomputed table of distances between every pair of cells.
+   * <p>
+   * While the grid of the map has at most <code>maxCells</code> positions, the distance queries
+   * are answered from the table, that is rebuilt the first time it's needed after the connections
+   * of the map change. Bigger maps fall back to searching on demand. A limit of 0 disables the
+   * table.
+   *
+   * @param maxCells
+   *     the maximum number of cells for which the table is used
+   */
+  public void setDistanceTableLimit(final int maxCells) {
+    distanceTableLimit = Math.min(maxCells, DistanceTable.MAX_CELLS);
+    distanceTable = null;
+  }
+
+  /**
+   * @return the table of distances of the current map, or <code>null</code> if the map is bigger
+   *     than the limit set for the table
+   */
+  public DistanceTable getDistanceTable() {
+    if (grid.length > distanceTableLimit) {
+      return null;
+    }
+    if (distanceTable == null || distanceTableEpoch != topologyEpoch) {
+      distanceTable = new DistanceTable(links, side);
+      distanceTableEpoch = topologyEpoch;
+    }
+    return distanceTable;
+  }
+
+  /**
+   * Enables a cache of the distances asked between pairs of cells, that keeps the
+   * <code>capacity</code> pairs used most recently.
+   * <p>
+   * The cache is used when there is no table of distances. A change of the connections makes
+   * every cached distance stale. The cache belongs to the thread that enables it: the distances
+   * asked from any other thread are searched without reading or changing the cache, so they can
+   * still be asked concurrently. A capacity of 0 disables the cache.
+   *
+   * @param capacity
+   *     the maximum number of pairs of cells kept
+   */
+  public void setDistanceCacheCapacity(final int capacity) {
+    distanceCache = capacity > 0 ? new DistanceCache(capacity) : null;
+    distanceCacheOwner = capacity > 0 ? Thread.currentThread() : null;
+  }
+
+  /**
+   * @return the cache of distances of the map, or <code>null</code> if it's disabled
+   */
+  public DistanceCache getDistanceCache() {
+    return distanceCache;
+  }
+
+  /**
+   * @return true if the location is one of the cells of this map
+   */
+  boolean contains(@NotNull final Location cell) {
+    return cell.getField() == this && cell.ordinal < grid.length && grid[cell.ordinal] == cell;
+  }
+
+  /**
+   * Gets the possible adjacent cell to a given cell in one direction
    *
    * @param cell
    *     the location of the current cell
-   * @return an array of the adjacent cells
+   * @param direction
+   *     the direction of the adjacent cell, as defined by {@link Location#DIRECTIONS}
+   * @return the adjacent cell
    */
-  private Location[] getAdjacentCells(final Location cell) {
-    int row = cell.getRow(),
-        col = cell.getColumn();
-    return new Location[]{getCell(row - 1, col), getCell(row + 1, col), getCell(row, col - 1),
-        getCell(row, col + 1)};
+  private Location getAdjacentCell(final Location cell, final int direction) {
+    return getCell(cell.getRow() + Location.ROW_OFFSETS[direction],
+        cell.getColumn() + Location.COLUMN_OFFSETS[direction]);
   }
 
   /**
@@ -108,64 +504,827 @@ public class Field {
    * @return the Location that represents the cell at (row, col)
    */
   public Location getCell(final int row, final int col) {
-    String id = generateID(row, col);
-    return map.getOrDefault(id, new InvalidLocation());
+    if (!isInside(row, col)) {
+      return INVALID;
+    }
+    Location cell = getCellAt(row * side + col);
+    return cell == null ? INVALID : cell;
   }
 
   /**
-   * Creates a map key from a row and a column
+   * Creates a view of the cells of the map indexed by their ids.
+   * <p>
+   * The view is built on every call, prefer {@link #getCell(int, int)} to look for a single cell.
    *
-   * @param row
-   *     the row of the cell
-   * @param col
-   *     the column of the cell
-   * @return a string of the form (row, col)
+   * @return an unmodifiable map from the id of every cell to the cell
    */
-  @NotNull
-  private String generateID(final int row, final int col) {
-    builder.setLength(0);
-    builder.append("(").append(row).append(", ").append(col).append(")");
-    return builder.toString();
-  }
-
   public Map<String, Location> getMap() {
-    return Map.copyOf(map);
+    Map<String, Location> view = new HashMap<>();
+    for (int position = 0; position < grid.length; position++) {
+      Location cell = getCellAt(position);
+      if (cell != null) {
+        view.put(cell.toString(), cell);
+      }
+    }
+    return Collections.unmodifiableMap(view);
   }
 
   /**
-   * Checks if the map is connected using BFS.
+   * Checks if every cell of the map can be reached from any other cell.
+   * <p>
+   * The answer is kept between calls. Removing connections through
+   * {@link #removeConnection(Location, Location)} updates it along with the known bridges of the
+   * map, so the grid is only traversed again after other changes to the connections.
    *
    * @return true if the map is connected, false otherwise.
    */
   public boolean isConnected() {
-    Set<Location> visitedNodes = new HashSet<>();
-    Queue<Location> toVisit = new LinkedList<>();
-    toVisit.add(map.entrySet().iterator().next().getValue());
-    while (!toVisit.isEmpty()) {
-      if (visitedNodes.size() == map.size()) {
-        return true;
+    if (connectedEpoch != topologyEpoch) {
+      updateConnectivity();
+    }
+    return connected;
+  }
+
+  /**
+   * Checks if the connection between two cells can be removed without disconnecting the map.
+   * <p>
+   * The bridges of the map are computed once, then kept up to date by
+   * {@link #removeConnection(Location, Location)}, which only traverses the block of cells that
+   * contained the removed connection. Every check costs O(1); other changes to the connections
+   * make the next check compute the bridges of the whole grid again.
+   *
+   * @param cell1
+   *     one end of the connection
+   * @param cell2
+   *     the other end of the connection
+   * @return true if the cells are connected and the connection isn't a bridge
+   */
+  public boolean canRemoveConnection(@NotNull final Location cell1, final Location cell2) {
+    int direction = cell1.directionTo(cell2);
+    if (direction < 0 || !contains(cell1) || (links[cell1.ordinal] & 1 << direction) == 0) {
+      return false;
+    }
+    if (connectivityEpoch != topologyEpoch) {
+      updateConnectivity();
+    }
+    return !connectivity.isBridge(cell1.ordinal, direction);
+  }
+
+  /**
+   * Recomputes the components and bridges of the map.
+   */
+  private void updateConnectivity() {
+    connectivity.update(grid, lazy, links, offsets);
+    connected = cellCount > 0 && connectivity.getComponents() == 1;
+    connectivityEpoch = topologyEpoch;
+    connectedEpoch = topologyEpoch;
+  }
+
+  /**
+   * Calculates the length of the shortest path between two cells of the map.
+   *
+   * @param from
+   *     the cell where the path starts
+   * @param to
+   *     the cell where the path ends
+   * @return the number of steps between the cells, or {@link #UNREACHABLE} if there is no path
+   */
+  public int distance(@NotNull final Location from, @NotNull final Location to) {
+    return distance(from, to, UNREACHABLE);
+  }
+
+  /**
+   * Calculates the length of the shortest path between two cells of the map, exploring only the
+   * cells that are at most <code>limit</code> steps away from the origin.
+   *
+   * @param from
+   *     the cell where the path starts
+   * @param to
+   *     the cell where the path ends
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @return the number of steps between the cells, or {@link #UNREACHABLE} if there is no path
+   *     shorter than the limit
+   */
+  public int distance(@NotNull final Location from, @NotNull final Location to, final int limit) {
+    if (contains(from) && contains(to)) {
+      DistanceTable table = getDistanceTable();
+      if (table != null) {
+        int distance = table.distance(from.ordinal, to.ordinal);
+        return distance <= limit ? distance : UNREACHABLE;
+      }
+      if (distanceCache == null || distanceCacheOwner != Thread.currentThread()) {
+        return searchPair(from.ordinal, to.ordinal, limit);
+      }
+      long key = DistanceCache.key(from.ordinal, to.ordinal);
+      int distance = distanceCache.get(key, limit, topologyEpoch);
+      if (distance < 0) {
+        distance = searchPair(from.ordinal, to.ordinal, limit);
+        distanceCache.put(key, distance, limit, topologyEpoch);
+      }
+      return distance;
+    }
+    return breadthFirstSearch(from, to, limit, new HashMap<>());
+  }
+
+  /**
+   * Chooses between searching from both ends of the path or only from the origin.
+   * <p>
+   * The search from both ends is used by default: the two searches meet halfway, so each one
+   * explores a disc of half the radius. Searching only from the origin is left for comparison.
+   *
+   * @param bidirectional
+   *     if the distances between two cells are searched from both cells
+   */
+  public void setBidirectionalSearch(final boolean bidirectional) {
+    this.bidirectional = bidirectional;
+  }
+
+  /**
+   * @return true if the distances between two cells are searched from both cells
+   */
+  public boolean isBidirectionalSearch() {
+    return bidirectional;
+  }
+
+  /**
+   * Searches the distance between two positions of the grid with the search chosen for the map.
+   */
+  private int searchPair(final int source, final int target, final int limit) {
+    return bidirectional ? searchBothEnds(source, target, limit, BUFFERS.get(),
+        TARGET_BUFFERS.get()) : searchGrid(source, target, limit, BUFFERS.get());
+  }
+
+  /**
+   * Explores the grid level by level from both ends of a path at once, until the two searches
+   * meet.
+   * <p>
+   * Each step completes one level of the search with the smaller frontier. A position found by
+   * both searches gives a path whose length is the sum of its two distances, and no path that
+   * wasn't found yet can be shorter than the levels completed by both searches plus one, so the
+   * search stops as soon as the best path found reaches that bound.
+   *
+   * @param source
+   *     the position where the path starts
+   * @param target
+   *     the position where the path ends
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @param forward
+   *     the working memory of the search from the source
+   * @param backward
+   *     the working memory of the search from the target
+   * @return the distance between the positions, or {@link #UNREACHABLE} if there is no path or
+   *     it's longer than the limit
+   */
+  private int searchBothEnds(final int source, final int target, final int limit,
+      @NotNull final SearchBuffer forward, @NotNull final SearchBuffer backward) {
+    if (source == target) {
+      return 0;
+    }
+    forward.reset(grid.length);
+    backward.reset(grid.length);
+    forward.visit(source, 0);
+    backward.visit(target, 0);
+    int forwardHead = 0,
+        backwardHead = 0,
+        forwardLevel = 0,
+        backwardLevel = 0,
+        best = UNREACHABLE;
+    while (best > forwardLevel + backwardLevel + 1 && forwardLevel + backwardLevel < limit
+        && forwardHead < forward.size && backwardHead < backward.size) {
+      boolean expandForward = forward.size - forwardHead <= backward.size - backwardHead;
+      SearchBuffer buffer = expandForward ? forward : backward,
+          other = expandForward ? backward : forward;
+      int head = expandForward ? forwardHead : backwardHead,
+          end = buffer.size,
+          next = (expandForward ? forwardLevel : backwardLevel) + 1;
+      for (; head < end; head++) {
+        int current = buffer.queue[head];
+        int mask = links[current];
+        for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+          if ((mask & 1 << direction) != 0) {
+            int neighbour = current + offsets[direction];
+            if (buffer.visit(neighbour, next) && other.distance(neighbour) != UNREACHABLE) {
+              best = Math.min(best, next + other.distance(neighbour));
+            }
+          }
+        }
+      }
+      if (expandForward) {
+        forwardHead = head;
+        forwardLevel = next;
+      } else {
+        backwardHead = head;
+        backwardLevel = next;
+      }
+    }
+    return best <= limit ? best : UNREACHABLE;
+  }
+
+  /**
+   * Calculates the distance from a cell to every cell reachable from it.
+   *
+   * @param source
+   *     the cell where the search starts
+   * @return a map from every reachable cell to its distance to the source
+   */
+  public Map<Location, Integer> distancesFrom(@NotNull final Location source) {
+    return distancesFrom(source, UNREACHABLE);
+  }
+
+  /**
+   * Calculates the distance from a cell to every cell at most <code>limit</code> steps away.
+   *
+   * @param source
+   *     the cell where the search starts
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @return a map from every cell inside the limit to its distance to the source
+   */
+  public Map<Location, Integer> distancesFrom(@NotNull final Location source, final int limit) {
+    Map<Location, Integer> distances = new HashMap<>();
+    if (contains(source)) {
+      SearchBuffer buffer = BUFFERS.get();
+      searchGrid(source.ordinal, -1, limit, buffer);
+      for (int i = 0; i < buffer.size; i++) {
+        int index = buffer.queue[i];
+        distances.put(getCellAt(index), buffer.distance(index));
+      }
+    } else {
+      breadthFirstSearch(source, null, limit, distances);
+    }
+    return distances;
+  }
+
+  /**
+   * Calculates the distances from a cell to many cells with a single search that explores only
+   * the cells at most <code>limit</code> steps away.
+   *
+   * @param source
+   *     the cell where the search starts
+   * @param targets
+   *     the cells whose distance is wanted, the <code>null</code> ones are never reached
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @return the distance to every target in the same order, {@link #UNREACHABLE} for the targets
+   *     further than the limit
+   */
+  public int[] distances(@NotNull final Location source, @NotNull final Location[] targets,
+      final int limit) {
+    int[] distances = new int[targets.length];
+    if (!contains(source)) {
+      for (int i = 0; i < targets.length; i++) {
+        distances[i] = targets[i] == null ? UNREACHABLE : distance(source, targets[i], limit);
+      }
+      return distances;
+    }
+    SearchBuffer buffer = BUFFERS.get();
+    searchGrid(source.ordinal, -1, limit, buffer);
+    for (int i = 0; i < targets.length; i++) {
+      if (targets[i] == null) {
+        distances[i] = UNREACHABLE;
+      } else {
+        distances[i] = contains(targets[i]) ? buffer.distance(targets[i].ordinal)
+            : distance(source, targets[i], limit);
+      }
+    }
+    return distances;
+  }
+
+  /**
+   * Sets the cost of entering a cell, that is 1 for every cell until it's changed.
+   * <p>
+   * The costs are used by the moves of the units: {@link #canReach(Location, Location, int)},
+   * {@link #reachableWithin(Location, int)} and {@link #findPath(Location, Location,
+   * PathConstraints)}. The distances between cells still count steps.
+   *
+   * @param cell
+   *     a cell of this map
+   * @param cost
+   *     the cost of entering the cell, between 1 and {@link #MAX_MOVEMENT_COST}
+   * @throws IllegalArgumentException
+   *     if the cell isn't part of the map or the cost is out of range
+   */
+  public void setMovementCost(@NotNull final Location cell, final int cost) {
+    if (!contains(cell) || cost < 1 || cost > MAX_MOVEMENT_COST) {
+      throw new IllegalArgumentException("Invalid cost " + cost + " for the cell " + cell);
+    }
+    if (costs == null) {
+      if (cost == 1) {
+        return;
+      }
+      costs = new byte[grid.length];
+      Arrays.fill(costs, (byte) 1);
+    }
+    costs[cell.ordinal] = (byte) cost;
+  }
+
+  /**
+   * @param cell
+   *     a cell of the map
+   * @return the cost of entering the cell, 1 if it isn't part of this map
+   */
+  public int getMovementCost(@NotNull final Location cell) {
+    return costs == null || !contains(cell) ? 1 : costs[cell.ordinal] & 0xFF;
+  }
+
+  /**
+   * Calculates the cost of the cheapest path between two cells, adding the costs of every cell
+   * entered by the path.
+   * <p>
+   * While every cell costs 1 this is the same as {@link #distance(Location, Location, int)},
+   * otherwise the path is searched with A* like {@link #findPath(Location, Location,
+   * PathConstraints)}, without building the path. The path can go through occupied cells.
+   *
+   * @param from
+   *     the cell where the path starts
+   * @param to
+   *     the cell where the path ends
+   * @param limit
+   *     the maximum cost that is worth exploring
+   * @return the cost of the cheapest path, or {@link #UNREACHABLE} if there is no path or it
+   *     costs more than <code>limit</code>
+   */
+  public int movementCost(@NotNull final Location from, @NotNull final Location to,
+      final int limit) {
+    if (costs == null || !contains(from) || !contains(to)) {
+      return distance(from, to, limit);
+    }
+    PathBuffer buffer = PATH_BUFFERS.get();
+    return searchCosts(from.ordinal, to.ordinal, limit, false, buffer, null);
+  }
+
+  /**
+   * Explores the grid in order of the cost of the cheapest path from a source position, using
+   * the costs of the cells.
+   * <p>
+   * This is Dijkstra's algorithm over the bucket queue of the buffer, since the costs are small
+   * integers, so the search doesn't create objects nor compare entries. Every position taken out
+   * of the queue has its final cost.
+   * When there is a target the search is guided by the Manhattan distance to it, turning it into
+   * A*, that never costs more than the real cost since every cell costs at least 1.
+   *
+   * @param source
+   *     the position where the search starts
+   * @param target
+   *     the position being searched, or -1 to explore every reachable position
+   * @param limit
+   *     the maximum cost that is worth exploring
+   * @param blockOccupied
+   *     if the search can't go through cells that hold a unit
+   * @param buffer
+   *     the working memory of the search
+   * @param reached
+   *     where the positions other than the source are added, or <code>null</code>
+   * @return the cost of the target, or {@link #UNREACHABLE} if it wasn't found
+   */
+  private int searchCosts(final int source, final int target, final int limit,
+      final boolean blockOccupied, @NotNull final PathBuffer buffer,
+      final ReachableCells reached) {
+    int targetRow = target < 0 ? 0 : target / side,
+        targetCol = target < 0 ? 0 : target % side;
+    buffer.reset(grid.length, true);
+    buffer.open(source, 0, target < 0 ? 0 : manhattan(source, targetRow, targetCol), -1);
+    int current;
+    while ((current = buffer.next()) >= 0) {
+      int cost = buffer.cost(current);
+      if (current == target) {
+        return cost;
+      }
+      if (reached != null && current != source) {
+        reached.add(current);
+      }
+      int mask = links[current];
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        if ((mask & 1 << direction) != 0) {
+          int neighbour = current + offsets[direction];
+          int next = cost + (costs[neighbour] & 0xFF);
+          int estimate = target < 0 ? next : next + manhattan(neighbour, targetRow, targetCol);
+          if (estimate <= limit && !(blockOccupied && getUnitAt(neighbour) != null)) {
+            buffer.open(neighbour, next, estimate, direction ^ 1);
+          }
+        }
+      }
+    }
+    return UNREACHABLE;
+  }
+
+  /**
+   * Finds a shortest path between two cells of the map.
+   * <p>
+   * The path is searched with A*, guided by the Manhattan distance between the cells, that is
+   * never longer than the real distance since every step moves to an adjacent cell and costs at
+   * least 1. If some cells cost more than 1 the path is the cheapest one instead of the one with
+   * fewer steps. The origin can always be left even if it's occupied.
+   *
+   * @param from
+   *     the cell where the path starts
+   * @param to
+   *     the cell where the path ends
+   * @param constraints
+   *     the maximum length of the path and if it can go through occupied cells
+   * @return the cells of the path in order, including both ends, or an empty list if there is no
+   *     path that respects the constraints or the cells aren't part of this map
+   */
+  public List<Location> findPath(@NotNull final Location from, @NotNull final Location to,
+      @NotNull final PathConstraints constraints) {
+    if (!contains(from) || !contains(to)) {
+      return new ArrayList<>();
+    }
+    PathBuffer buffer = PATH_BUFFERS.get();
+    int target = to.ordinal,
+        targetRow = to.getRow(),
+        targetCol = to.getColumn(),
+        limit = constraints.getMaxLength();
+    boolean blockOccupied = constraints.isBlockOccupied();
+    buffer.reset(grid.length);
+    buffer.open(from.ordinal, 0, manhattan(from.ordinal, targetRow, targetCol), -1);
+    int current;
+    while ((current = buffer.next()) >= 0 && current != target) {
+      int mask = links[current];
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        if ((mask & 1 << direction) != 0) {
+          int neighbour = current + offsets[direction];
+          int next = buffer.cost(current) + (costs == null ? 1 : costs[neighbour] & 0xFF);
+          int estimate = next + manhattan(neighbour, targetRow, targetCol);
+          if (estimate <= limit && !(blockOccupied && getUnitAt(neighbour) != null)) {
+            buffer.open(neighbour, next, estimate, direction ^ 1);
+          }
+        }
+      }
+    }
+    if (current != target) {
+      return new ArrayList<>();
+    }
+    List<Location> path = new ArrayList<>();
+    path.add(getCellAt(current));
+    while (current != from.ordinal) {
+      current += offsets[buffer.parent(current)];
+      path.add(getCellAt(current));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  /**
+   * @return the Manhattan distance between a position of the grid and a cell
+   */
+  private int manhattan(final int position, final int row, final int col) {
+    return Math.abs(position / side - row) + Math.abs(position % side - col);
+  }
+
+  /**
+   * Finds every cell that a unit standing on a cell can move to with the given movement.
+   * <p>
+   * Cells occupied by other units can't be crossed nor used as destination. The origin itself
+   * isn't part of the result.
+   *
+   * @param origin
+   *     the cell where the unit is standing
+   * @param movement
+   *     the maximum cost of the moves of the unit, its number of steps while every cell costs 1
+   * @return the set of reachable cells
+   */
+  public ReachableCells reachableWithin(@NotNull final Location origin, final int movement) {
+    return reachableWithin(origin, movement, new ReachableCells());
+  }
+
+  /**
+   * Finds every cell that a unit standing on a cell can move to with the given movement, storing
+   * the cells in an existing set.
+   * <p>
+   * The set reflects the map at the moment of the query, it has to be computed again after the
+   * units or the connections of the map change.
+   *
+   * @param origin
+   *     the cell where the unit is standing
+   * @param movement
+   *     the maximum cost of the moves of the unit, its number of steps while every cell costs 1
+   * @param result
+   *     the set that is emptied and filled with the reachable cells
+   * @return the <code>result</code> set
+   */
+  public ReachableCells reachableWithin(@NotNull final Location origin, final int movement,
+      @NotNull final ReachableCells result) {
+    result.clear(this, grid.length);
+    if (contains(origin) && movement > 0 && costs != null) {
+      searchCosts(origin.ordinal, -1, movement, true, PATH_BUFFERS.get(), result);
+    } else if (contains(origin) && movement > 0) {
+      SearchBuffer buffer = BUFFERS.get();
+      searchGrid(origin.ordinal, -1, movement, true, buffer);
+      for (int i = 1; i < buffer.size; i++) {
+        result.add(buffer.queue[i]);
       }
+    }
+    return result;
+  }
+
+  /**
+   * Checks if a unit standing on a cell can move to another cell, with the same rule as
+   * {@link #reachableWithin(Location, int)}: the path can't go through cells that hold a unit,
+   * the destination must be free and its cost can't be higher than the movement.
+   * <p>
+   * Only the path to the destination is searched, so a single move doesn't compute the whole
+   * set of reachable cells.
+   *
+   * @param origin
+   *     the cell where the unit is standing
+   * @param target
+   *     the cell where the unit wants to go
+   * @param movement
+   *     the maximum cost of the moves of the unit
+   * @return true if the target would be part of the reachable cells of the origin
+   */
+  public boolean canReach(@NotNull final Location origin, @NotNull final Location target,
+      final int movement) {
+    if (!contains(origin) || !contains(target) || origin == target || movement <= 0
+        || target.getUnit() != null) {
+      return false;
+    }
+    int cost = costs != null
+        ? searchCosts(origin.ordinal, target.ordinal, movement, true, PATH_BUFFERS.get(), null)
+        : searchGrid(origin.ordinal, target.ordinal, movement, true, BUFFERS.get());
+    return cost <= movement;
+  }
+
+  /**
+   * The positions number the cells row by row, they let other stores keep the cells of the map as
+   * plain integers. The positions change if the map grows, when cells are added outside of it.
+   *
+   * @param cell
+   *     a cell of the map
+   * @return the position of the cell in the grid of the map, or -1 if it isn't part of this map
+   */
+  public int positionOf(@NotNull final Location cell) {
+    return contains(cell) ? cell.ordinal : -1;
+  }
+
+  /**
+   * @param position
+   *     a position of the grid, as given by {@link #positionOf(Location)}
+   * @return the cell stored in a position of the grid, creating it if the map is loaded on demand
+   */
+  public Location getCellAt(final int position) {
+    Location cell = grid[position];
+    if (cell == null && lazy) {
+      cell = new Location(position / side, position % side);
+      cell.setField(this, position);
+      cell.markUnresolved();
+      grid[position] = cell;
+    }
+    return cell;
+  }
+
+  /**
+   * Creates a map whose cells are created the first time they are needed.
+   * <p>
+   * Only the packed connections are kept up front, so the searches over the map work without
+   * creating any cell. A map loaded this way must not be read from several threads at once.
+   *
+   * @param size
+   *     the number of rows and columns of the map
+   * @param links
+   *     the packed connections of every cell, that must be symmetric
+   * @return the new map
+   */
+  static Field onDemand(final int size, @NotNull final byte[] links) {
+    Field field = new Field();
+    field.side = size;
+    field.cellCount = links.length;
+    field.grid = new Location[links.length];
+    field.links = links;
+    field.offsets = new int[]{-size, size, -1, 1};
+    field.lazy = true;
+    field.topologyEpoch++;
+    return field;
+  }
+
+  /**
+   * Fills the neighbours of a cell that was created on demand from the packed connections.
+   */
+  void resolveNeighbours(@NotNull final Location cell) {
+    for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+      if ((links[cell.ordinal] & 1 << direction) != 0) {
+        cell.setNeighbour(direction, getCellAt(cell.ordinal + offsets[direction]));
+      }
+    }
+  }
+
+  /**
+   * Creates every cell of a map loaded on demand, so the cells can be moved to a bigger grid.
+   */
+  private void resolveAll() {
+    if (!lazy) {
+      return;
+    }
+    for (int position = 0; position < grid.length; position++) {
+      getCellAt(position);
+    }
+    for (Location cell : grid) {
+      cell.getNeighbourCount();
+    }
+    lazy = false;
+  }
+
+  /**
+   * @return the packed connections of every position of the grid
+   */
+  byte[] getLinks() {
+    return links;
+  }
+
+  /**
+   * @return the number of positions in each row of the grid
+   */
+  int getSide() {
+    return side;
+  }
+
+  /**
+   * @return the number of cells of the map
+   */
+  int getCellCount() {
+    return cellCount;
+  }
+
+  /**
+   * @return the working memory of the searches of the current thread
+   */
+  static SearchBuffer getSearchBuffer() {
+    return BUFFERS.get();
+  }
+
+  /**
+   * @return the unit in a position of the grid without creating the cell, or <code>null</code>
+   */
+  IUnit getUnitAt(final int position) {
+    Location cell = grid[position];
+    return cell == null ? null : cell.getUnit();
+  }
+
+  /**
+   * Explores the grid level by level from a source position, following the packed connections.
+   * <p>
+   * This is the same search as {@link #breadthFirstSearch(Location, Location, int, Map)} but it
+   * works only with positions of the grid, so it doesn't create objects while searching. The
+   * visited positions are left in the queue of the buffer.
+   *
+   * @param source
+   *     the position where the search starts
+   * @param target
+   *     the position being searched, or -1 to explore every reachable position
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @param buffer
+   *     the working memory of the search
+   * @return the distance to the target, or {@link #UNREACHABLE} if it wasn't found
+   */
+  int searchGrid(final int source, final int target, final int limit,
+      @NotNull final SearchBuffer buffer) {
+    return searchGrid(source, target, limit, false, buffer);
+  }
+
+  /**
+   * Explores the grid level by level from a source position, optionally treating the positions
+   * occupied by a unit as walls.
+   *
+   * @param source
+   *     the position where the search starts
+   * @param target
+   *     the position being searched, or -1 to explore every reachable position
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @param blockOccupied
+   *     if the search can't go through cells that hold a unit
+   * @param buffer
+   *     the working memory of the search
+   * @return the distance to the target, or {@link #UNREACHABLE} if it wasn't found
+   */
+  private int searchGrid(final int source, final int target, final int limit,
+      final boolean blockOccupied, @NotNull final SearchBuffer buffer) {
+    buffer.reset(grid.length);
+    buffer.visit(source, 0);
+    if (source == target) {
+      return 0;
+    }
+    int head = 0;
+    while (head < buffer.size) {
+      int current = buffer.queue[head++];
+      int next = buffer.distance(current) + 1;
+      if (next > limit) {
+        break;
+      }
+      int mask = links[current];
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        if ((mask & 1 << direction) != 0) {
+          int neighbour = current + offsets[direction];
+          if (blockOccupied && getUnitAt(neighbour) != null) {
+            continue;
+          }
+          if (buffer.visit(neighbour, next) && neighbour == target) {
+            return next;
+          }
+        }
+      }
+    }
+    return UNREACHABLE;
+  }
+
+  /**
+   * Explores the graph of locations level by level from a source cell.
+   * <p>
+   * Every cell is visited at most once, so the cost of a search is linear in the number of cells
+   * and connections inside the explored area. The search stops as soon as the target is found or
+   * when the next level would be further than the limit.
+   *
+   * @param source
+   *     the cell where the search starts
+   * @param target
+   *     the cell being searched, or <code>null</code> to explore every reachable cell
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @param distances
+   *     the map where the distance of every visited cell is stored
+   * @return the distance to the target, or {@link #UNREACHABLE} if it wasn't found
+   */
+  static int breadthFirstSearch(@NotNull final Location source, final Location target,
+      final int limit, @NotNull final Map<Location, Integer> distances) {
+    return breadthFirstSearch(source, target, limit, false, distances);
+  }
+
+  /**
+   * Explores the graph of locations level by level from a source cell, optionally treating the
+   * cells that hold a unit as walls.
+   *
+   * @param source
+   *     the cell where the search starts
+   * @param target
+   *     the cell being searched, or <code>null</code> to explore every reachable cell
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @param blockOccupied
+   *     if the search can't go through cells that hold a unit
+   * @param distances
+   *     the map where the distance of every visited cell is stored
+   * @return the distance to the target, or {@link #UNREACHABLE} if it wasn't found
+   */
+  static int breadthFirstSearch(@NotNull final Location source, final Location target,
+      final int limit, final boolean blockOccupied,
+      @NotNull final Map<Location, Integer> distances) {
+    distances.put(source, 0);
+    if (source.equals(target)) {
+      return 0;
+    }
+    Queue<Location> toVisit = new ArrayDeque<>();
+    toVisit.add(source);
+    while (!toVisit.isEmpty()) {
       Location currentNode = toVisit.poll();
-      for (Location neighbour :
-          currentNode.getNeighbours()) {
-        if (!visitedNodes.contains(neighbour)) {
-          visitedNodes.add(neighbour);
+      int next = distances.get(currentNode) + 1;
+      if (next > limit) {
+        break;
+      }
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        Location neighbour = currentNode.getNeighbour(direction);
+        if (neighbour != null && !(blockOccupied && neighbour.getUnit() != null)
+            && distances.putIfAbsent(neighbour, next) == null) {
+          if (neighbour.equals(target)) {
+            return next;
+          }
           toVisit.add(neighbour);
         }
       }
     }
-    return false;
+    return UNREACHABLE;
   }
 
   /**
    * Removes a connection from two locations of the field
    */
   public void removeConnection(@NotNull final Location cell1, final Location cell2) {
-    if (cell1.getNeighbours().size() > 1 && cell2.getNeighbours().size() > 1) {
+    if (cell1.getNeighbourCount() > 1 && cell2.getNeighbourCount() > 1) {
+      // The known bridges are updated from the removed connection, traversing only the block
+      // that contained it instead of the whole grid
+      int direction = cell1.directionTo(cell2);
+      boolean tracked = connectivityEpoch == topologyEpoch && contains(cell1) && direction >= 0
+          && cell1.getNeighbour(direction) == cell2;
       cell1.removeNeighbour(cell2);
+      if (tracked) {
+        connectivity.remove(cell1.ordinal, direction, links, offsets);
+        connected = connectivity.getComponents() == 1;
+        connectivityEpoch = topologyEpoch;
+        connectedEpoch = topologyEpoch;
+      }
     }
   }
 
+  /**
+   * @return the number of times the bridges were computed by traversing the whole grid
+   */
+  int getConnectivityUpdates() {
+    return connectivity.getFullUpdates();
+  }
+
   /**
    * Checks if two cells of the map are connected
    */
@@ -179,7 +1338,7 @@ public class Field {
    * @return size of map
    */
   public int getSize() {
-    return (int) Math.sqrt(getMap().size());
+    return (int) Math.sqrt(cellCount);
   }
 
   public Map<Integer, StringBuilder> toStringGetAdjacent(@NotNull Location cell){
@@ -207,32 +1366,77 @@ public class Field {
     return newMap;
   }
 
-  @Override
-  public String toString(){
-    StringBuilder str = new StringBuilder();
-    for(int i = getSize()-1; i>=0; i--){
-      StringBuilder str_l1 = new StringBuilder();
-      StringBuilder str_l2 = new StringBuilder();
-      StringBuilder str_l3 = new StringBuilder();
-      for(int j = 0; j<getSize(); j++){
-        Map<Integer, StringBuilder> newMap = new HashMap<>();
-        Location cell = getCell(i,j);
-        newMap = toStringGetAdjacent(cell);
-        str_l1.append(newMap.get(0).toString());
-        str_l2.append(newMap.get(1).toString());
-        str_l3.append(newMap.get(2).toString());
-        if(j==getSize()-1){
-          str_l1.append("\n"); str_l2.append("\n"); str_l3.append("\n");
-          if(!str_l1.toString().contains("#")) str_l1.toString().replaceAll(" ", "");
-          else str.append(str_l1.toString());
-          str.append(str_l2.toString());
-          if(!str_l3.toString().contains("#")) str_l3.toString().replaceAll(" ", "");
-          else str.append(str_l3.toString());
-        }
+  /**
+   * Writes the map as text, one row at a time and without building it in memory.
+   * <p>
+   * The rows are written from the last one to the first. Every cell is drawn as <code>+</code>,
+   * or <code>o</code> if there is a unit on it, with a <code>#</code> at the sides where it isn't
+   * connected. The lines between rows are only written when some cells of the row aren't
+   * connected to the next or the previous row.
+   *
+   * @param out
+   *     where the map is written
+   * @throws IOException
+   *     if <code>out</code> can't be written
+   */
+  public void render(@NotNull final Appendable out) throws IOException {
+    render(out, getSize(), side, links, position -> getUnitAt(position) != null);
+  }
+
+  /**
+   * Writes the first <code>size</code> rows and columns of a grid of packed connections as text.
+   *
+   * @param occupied
+   *     tells if there is a unit in a position of the grid
+   */
+  static void render(final Appendable out, final int size, final int side, final byte[] links,
+      final IntPredicate occupied) throws IOException {
+    for (int row = size - 1; row >= 0; row--) {
+      renderWall(out, row, size, side, links, 1);
+      for (int col = 0; col < size; col++) {
+        int mask = linksAt(row, col, side, links);
+        out.append((mask & 1 << 2) != 0 ? ' ' : '#')
+            .append(row < side && col < side && occupied.test(row * side + col) ? 'o' : '+')
+            .append((mask & 1 << 3) != 0 ? ' ' : '#');
       }
+      out.append('\n');
+      renderWall(out, row, size, side, links, 0);
     }
-    return str.toString();
   }
 
+  /**
+   * Writes the line with the connections of a row in one direction, if any of them is missing.
+   */
+  private static void renderWall(final Appendable out, final int row, final int size,
+      final int side, final byte[] links, final int direction) throws IOException {
+    boolean wall = false;
+    for (int col = 0; col < size && !wall; col++) {
+      wall = (linksAt(row, col, side, links) & 1 << direction) == 0;
+    }
+    if (wall) {
+      for (int col = 0; col < size; col++) {
+        out.append((linksAt(row, col, side, links) & 1 << direction) != 0 ? "   " : " # ");
+      }
+      out.append('\n');
+    }
+  }
+
+  /**
+   * @return the packed connections of a cell, or 0 if the position is outside the grid
+   */
+  private static int linksAt(final int row, final int col, final int side, final byte[] links) {
+    return row < side && col < side ? links[row * side + col] : 0;
+  }
 
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder();
+    try {
+      render(str);
+    } catch (IOException e) {
+      // a StringBuilder never fails
+      throw new UncheckedIOException(e);
+    }
+    return str.toString();
+  }
 }
@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import model.units.IUnit;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable view of a map at one moment, that can be read from any thread while the map keeps
+ * changing.
+ * <p>
+ * A snapshot shares the arrays of the map instead of copying them: the map copies its connections
+ * the first time they change after a snapshot was taken, and the units of the cells are kept in
+ * chunks that are copied one at a time when written. Taking a snapshot costs one reference per
+ * chunk of cells, and the versions of the snapshot tell if the map changed since then.
+ * <p>
+ * The units themselves aren't copied, a snapshot only knows which unit was in each cell.
+ *
+ * @author Sebastian Sepulveda
+ * @see Field#snapshot()
+ * @since 2.0
+ */
+public final class FieldSnapshot {
+
+  private final int side;
+  private final int size;
+  private final byte[] links;
+  private final Location[] grid;
+  private final IUnit[][] units;
+  private final int[] offsets;
+  private final int topologyVersion;
+  private final long occupancyVersion;
+
+  /**
+   * Creates a snapshot from arrays that the map won't write again.
+   *
+   * @param grid
+   *     the cells of the map, or <code>null</code> if every position of the grid is a cell
+   */
+  FieldSnapshot(final int side, final int size, @NotNull final byte[] links, final Location[] grid,
+      @NotNull final IUnit[][] units, final int topologyVersion, final long occupancyVersion) {
+    this.side = side;
+    this.size = size;
+    this.links = links;
+    this.grid = grid;
+    this.units = units;
+    this.offsets = new int[]{-side, side, -1, 1};
+    this.topologyVersion = topologyVersion;
+    this.occupancyVersion = occupancyVersion;
+  }
+
+  /**
+   * @return the number of positions in each row of the grid
+   */
+  public int getSide() {
+    return side;
+  }
+
+  /**
+   * @return size of map, as given by {@link Field#getSize()} when the snapshot was taken
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the version of the connections of the map when the snapshot was taken
+   */
+  public int getTopologyVersion() {
+    return topologyVersion;
+  }
+
+  /**
+   * @return the number of changes of the units of the map before the snapshot was taken
+   */
+  public long getOccupancyVersion() {
+    return occupancyVersion;
+  }
+
+  /**
+   * @return true if the map had a cell in the given row and column
+   */
+  public boolean hasCell(final int row, final int col) {
+    return isInside(row, col) && (grid == null || grid[row * side + col] != null);
+  }
+
+  /**
+   * Checks if two cells of the map were connected.
+   *
+   * @return true if the cells are adjacent and connected
+   */
+  public boolean checkConnection(final int row1, final int col1, final int row2, final int col2) {
+    if (!isInside(row1, col1)) {
+      return false;
+    }
+    for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+      if (row1 + Location.ROW_OFFSETS[direction] == row2
+          && col1 + Location.COLUMN_OFFSETS[direction] == col2) {
+        return (links[row1 * side + col1] & 1 << direction) != 0;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the unit that was in the given row and column, or <code>null</code>
+   */
+  public IUnit getUnit(final int row, final int col) {
+    return isInside(row, col) ? OccupancyLayer.get(units, row * side + col) : null;
+  }
+
+  /**
+   * Calculates the length of the shortest path between two cells, with a breadth-first search
+   * over the connections of the snapshot.
+   *
+   * @return the distance between the cells, or {@link Field#UNREACHABLE} if there is no path
+   */
+  public int distance(final int fromRow, final int fromCol, final int toRow, final int toCol) {
+    if (!hasCell(fromRow, fromCol) || !hasCell(toRow, toCol)) {
+      return Field.UNREACHABLE;
+    }
+    int source = fromRow * side + fromCol,
+        target = toRow * side + toCol;
+    SearchBuffer buffer = Field.getSearchBuffer();
+    buffer.reset(links.length);
+    buffer.visit(source, 0);
+    for (int head = 0; head < buffer.size && source != target; head++) {
+      int current = buffer.queue[head];
+      int next = buffer.distance(current) + 1;
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        if ((links[current] & 1 << direction) != 0
+            && buffer.visit(current + offsets[direction], next)
+            && current + offsets[direction] == target) {
+          return next;
+        }
+      }
+    }
+    return buffer.distance(target);
+  }
+
+  /**
+   * Writes the map as it was, in the same format as {@link Field#render(Appendable)}.
+   *
+   * @param out
+   *     where the map is written
+   * @throws IOException
+   *     if <code>out</code> can't be written
+   */
+  public void render(@NotNull final Appendable out) throws IOException {
+    Field.render(out, size, side, links, position -> OccupancyLayer.get(units, position) != null);
+  }
+
+  private boolean isInside(final int row, final int col) {
+    return row >= 0 && col >= 0 && row < side && col < side;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder();
+    try {
+      render(str);
+    } catch (IOException e) {
+      // a StringBuilder never fails
+      throw new UncheckedIOException(e);
+    }
+    return str.toString();
+  }
+}
@@ -0,0 +1,622 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plans paths on big maps using a hierarchy of clusters (HPA*).
+ * <p>
+ * The grid of the field is split in square clusters. Every run of connections that cross the
+ * border between two clusters gets a transition in its middle, made of the two cells at both sides
+ * of the border. Those cells are the nodes of an abstract graph where the cells of the same cluster
+ * are linked by their distance inside the cluster and the two cells of a transition are linked by
+ * a single step. A query searches the abstract graph with A*, and then only the clusters on the
+ * chosen route are searched again to get the cells of the path, so the cost of a query depends on
+ * the number of clusters crossed and not on the area of the map.
+ * <p>
+ * The paths are close to the shortest ones but they are not always the shortest, since they can
+ * only cross the borders at the transitions. The planner observes the connections of the field
+ * and, when they change, rebuilds only the clusters that contain the changed cells, the next time
+ * a path is requested. Units are ignored. A planner must be used from a single thread.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class HierarchicalPlanner implements PropertyChangeListener {
+
+  private final Field field;
+  private final int clusterSize;
+  private final SearchBuffer buffer = new SearchBuffer();
+  private int side;
+  private int clustersPerSide;
+  private boolean stale = true;
+  private boolean[] dirty = new boolean[0];
+  private boolean anyDirty;
+  private int rebuiltClusters;
+
+  // transitions between a cluster and the one below it (horizontal) or at its right (vertical),
+  // stored as pairs of positions: the cell of the cluster and the cell across the border
+  private int[][] horizontalBorders;
+  private int[][] verticalBorders;
+  // abstract nodes of every cluster, the cell across the border of every node and the distances
+  // inside the cluster between every pair of nodes
+  private int[][] nodes;
+  private int[][] partners;
+  private int[][] distances;
+  // global numbering of the abstract nodes
+  private int[] bases;
+  private int[] nodeCluster;
+  private int[] partnerNode;
+  private int nodeCount;
+
+  // working memory of the abstract search
+  private int[] costs = new int[0];
+  private int[] parents = new int[0];
+  private int[] marks = new int[0];
+  private int[] closedMarks = new int[0];
+  private int mark;
+  private long[] heap = new long[16];
+  private int heapSize;
+
+  /**
+   * Creates a planner for a field and starts observing its connections.
+   *
+   * @param field
+   *     the map where the paths are planned
+   * @param clusterSize
+   *     the number of rows and columns of every cluster
+   */
+  public HierarchicalPlanner(@NotNull final Field field, final int clusterSize) {
+    if (clusterSize < 1) {
+      throw new IllegalArgumentException("The clusters must have at least one cell");
+    }
+    this.field = field;
+    this.clusterSize = clusterSize;
+    field.addConnectionsListener(this);
+  }
+
+  /**
+   * Stops observing the field, the planner can't be used after this.
+   */
+  public void dispose() {
+    field.removeConnectionsListener(this);
+  }
+
+  @Override
+  public void propertyChange(final PropertyChangeEvent evt) {
+    Location cell = (Location) evt.getNewValue();
+    if (cell == null || stale || field.getSide() != side) {
+      stale = true;
+      return;
+    }
+    // a change in a border also changes the transitions of the cluster across it
+    for (int direction = -1; direction < Location.DIRECTIONS; direction++) {
+      int row = cell.getRow() + (direction < 0 ? 0 : Location.ROW_OFFSETS[direction]),
+          col = cell.getColumn() + (direction < 0 ? 0 : Location.COLUMN_OFFSETS[direction]);
+      if (row >= 0 && col >= 0 && row < side && col < side) {
+        dirty[clusterOf(row * side + col)] = true;
+        anyDirty = true;
+      }
+    }
+  }
+
+  /**
+   * @return the number of clusters rebuilt since the planner was created, including the first
+   *     build
+   */
+  public int getRebuiltClusters() {
+    return rebuiltClusters;
+  }
+
+  /**
+   * @return the number of nodes of the abstract graph
+   */
+  public int getNodeCount() {
+    update();
+    return nodeCount;
+  }
+
+  /**
+   * Finds a path between two cells of the field.
+   *
+   * @param from
+   *     the cell where the path starts
+   * @param to
+   *     the cell where the path ends
+   * @return the cells of the path in order, including both ends, or an empty list if there is no
+   *     path or the cells aren't part of the field
+   */
+  public List<Location> findPath(@NotNull final Location from, @NotNull final Location to) {
+    List<Location> path = new ArrayList<>();
+    if (!field.contains(from) || !field.contains(to)) {
+      return path;
+    }
+    update();
+    int start = from.ordinal,
+        goal = to.ordinal;
+    if (start == goal) {
+      path.add(from);
+      return path;
+    }
+    int startCluster = clusterOf(start),
+        goalCluster = clusterOf(goal);
+    int[] startDistances = distancesInCluster(startCluster, start);
+    int direct = startCluster == goalCluster ? buffer.distance(goal) : Field.UNREACHABLE;
+    int[] goalDistances = distancesInCluster(goalCluster, goal);
+
+    // the origin and the destination are added as the last two nodes of the abstract graph
+    int startNode = nodeCount,
+        goalNode = nodeCount + 1;
+    resetSearch(nodeCount + 2);
+    open(startNode, 0, manhattan(start, goal), -1);
+    int current;
+    while ((current = next()) >= 0 && current != goalNode) {
+      int cost = costs[current];
+      if (current == startNode) {
+        int base = bases[startCluster];
+        for (int i = 0; i < startDistances.length; i++) {
+          relax(base + i, cost + startDistances[i], current, goal);
+        }
+        relax(goalNode, direct, current, goal);
+        continue;
+      }
+      int cluster = nodeCluster[current],
+          index = current - bases[cluster],
+          count = nodes[cluster].length;
+      relax(partnerNode[current], cost + 1, current, goal);
+      for (int other = 0; other < count; other++) {
+        int distance = distances[cluster][index * count + other];
+        if (other != index && distance != Field.UNREACHABLE) {
+          relax(bases[cluster] + other, cost + distance, current, goal);
+        }
+      }
+      if (cluster == goalCluster && goalDistances[index] != Field.UNREACHABLE) {
+        relax(goalNode, cost + goalDistances[index], current, goal);
+      }
+    }
+    if (current != goalNode) {
+      return path;
+    }
+    // the abstract path is followed backwards and refined inside every cluster it crosses
+    List<Integer> waypoints = new ArrayList<>();
+    for (int node = goalNode; node >= 0; node = parents[node]) {
+      waypoints.add(node == startNode ? start : positionOf(node, goal));
+    }
+    int[] positions = new int[costs[goalNode] + 1];
+    int length = 0;
+    positions[length++] = start;
+    for (int i = waypoints.size() - 2; i >= 0; i--) {
+      int previous = waypoints.get(i + 1),
+          next = waypoints.get(i);
+      if (previous == next) {
+        continue;
+      }
+      if (clusterOf(previous) != clusterOf(next)) {
+        positions[length++] = next;
+      } else {
+        length = refine(previous, next, positions, length);
+      }
+    }
+    for (int i = 0; i < length; i++) {
+      path.add(field.getCellAt(positions[i]));
+    }
+    return path;
+  }
+
+  /**
+   * Rebuilds the clusters whose connections changed.
+   */
+  private void update() {
+    if (stale || side != field.getSide()) {
+      buildAll();
+      return;
+    }
+    if (!anyDirty) {
+      return;
+    }
+    boolean[] rebuild = dirty.clone();
+    for (int cluster = 0; cluster < dirty.length; cluster++) {
+      if (!dirty[cluster]) {
+        continue;
+      }
+      int clusterRow = cluster / clustersPerSide,
+          clusterCol = cluster % clustersPerSide;
+      if (clusterRow + 1 < clustersPerSide && updateHorizontalBorder(cluster)) {
+        rebuild[cluster + clustersPerSide] = true;
+      }
+      if (clusterRow > 0 && updateHorizontalBorder(cluster - clustersPerSide)) {
+        rebuild[cluster - clustersPerSide] = true;
+      }
+      if (clusterCol + 1 < clustersPerSide && updateVerticalBorder(cluster)) {
+        rebuild[cluster + 1] = true;
+      }
+      if (clusterCol > 0 && updateVerticalBorder(cluster - 1)) {
+        rebuild[cluster - 1] = true;
+      }
+    }
+    for (int cluster = 0; cluster < rebuild.length; cluster++) {
+      if (rebuild[cluster]) {
+        buildCluster(cluster);
+      }
+    }
+    Arrays.fill(dirty, false);
+    anyDirty = false;
+    numberNodes();
+  }
+
+  /**
+   * Builds the whole hierarchy from scratch.
+   */
+  private void buildAll() {
+    side = field.getSide();
+    clustersPerSide = (side + clusterSize - 1) / clusterSize;
+    int clusters = clustersPerSide * clustersPerSide;
+    horizontalBorders = new int[clusters][];
+    verticalBorders = new int[clusters][];
+    nodes = new int[clusters][];
+    partners = new int[clusters][];
+    distances = new int[clusters][];
+    dirty = new boolean[clusters];
+    for (int cluster = 0; cluster < clusters; cluster++) {
+      horizontalBorders[cluster] = new int[0];
+      verticalBorders[cluster] = new int[0];
+      if (cluster / clustersPerSide + 1 < clustersPerSide) {
+        updateHorizontalBorder(cluster);
+      }
+      if (cluster % clustersPerSide + 1 < clustersPerSide) {
+        updateVerticalBorder(cluster);
+      }
+    }
+    for (int cluster = 0; cluster < clusters; cluster++) {
+      buildCluster(cluster);
+    }
+    stale = false;
+    anyDirty = false;
+    numberNodes();
+  }
+
+  /**
+   * Finds the transitions between a cluster and the cluster below it.
+   *
+   * @return true if the transitions changed
+   */
+  private boolean updateHorizontalBorder(final int cluster) {
+    int row = (cluster / clustersPerSide + 1) * clusterSize - 1,
+        firstCol = cluster % clustersPerSide * clusterSize;
+    int[] transitions = findTransitions(row * side + firstCol, 1, side,
+        Math.min(clusterSize, side - firstCol), 1, 3);
+    boolean changed = !Arrays.equals(transitions, horizontalBorders[cluster]);
+    horizontalBorders[cluster] = transitions;
+    return changed;
+  }
+
+  /**
+   * Finds the transitions between a cluster and the cluster at its right.
+   *
+   * @return true if the transitions changed
+   */
+  private boolean updateVerticalBorder(final int cluster) {
+    int col = (cluster % clustersPerSide + 1) * clusterSize - 1,
+        firstRow = cluster / clustersPerSide * clusterSize;
+    int[] transitions = findTransitions(firstRow * side + col, side, 1,
+        Math.min(clusterSize, side - firstRow), 3, 1);
+    boolean changed = !Arrays.equals(transitions, verticalBorders[cluster]);
+    verticalBorders[cluster] = transitions;
+    return changed;
+  }
+
+  /**
+   * Walks along a border and puts a transition in the middle of every run of connections that
+   * cross it.
+   * <p>
+   * A run is cut where two consecutive cells of the border aren't connected, at either side, so
+   * every crossing of a run can be reached from its transition without leaving the clusters.
+   *
+   * @param first
+   *     the position of the first cell of the border, inside the first cluster
+   * @param step
+   *     the difference between the positions of consecutive cells of the border
+   * @param across
+   *     the difference between the position of a cell and the cell across the border
+   * @param length
+   *     the number of cells of the border
+   * @param direction
+   *     the direction that crosses the border
+   * @param along
+   *     the direction from a cell of the border to the next one
+   * @return the pairs of positions of the transitions
+   */
+  private int[] findTransitions(final int first, final int step, final int across,
+      final int length, final int direction, final int along) {
+    byte[] links = field.getLinks();
+    int[] transitions = new int[2 * length];
+    int count = 0;
+    int runStart = -1;
+    for (int i = 0; i <= length; i++) {
+      int cell = first + i * step;
+      boolean open = i < length && (links[cell] & 1 << direction) != 0;
+      boolean joined = open && runStart >= 0 && (links[cell - step] & 1 << along) != 0
+          && (links[cell - step + across] & 1 << along) != 0;
+      if (runStart >= 0 && !joined) {
+        int middle = first + (runStart + i - 1) / 2 * step;
+        transitions[count++] = middle;
+        transitions[count++] = middle + across;
+        runStart = -1;
+      }
+      if (open && runStart < 0) {
+        runStart = i;
+      }
+    }
+    return Arrays.copyOf(transitions, count);
+  }
+
+  /**
+   * Collects the nodes of a cluster from the transitions of its 4 borders and computes the
+   * distances between them inside the cluster.
+   */
+  private void buildCluster(final int cluster) {
+    int clusterRow = cluster / clustersPerSide,
+        clusterCol = cluster % clustersPerSide;
+    int[][] borders = new int[4][];
+    int[] offsets = new int[4];
+    borders[0] = horizontalBorders[cluster];
+    borders[1] = clusterRow > 0 ? horizontalBorders[cluster - clustersPerSide] : new int[0];
+    offsets[1] = 1;
+    borders[2] = verticalBorders[cluster];
+    borders[3] = clusterCol > 0 ? verticalBorders[cluster - 1] : new int[0];
+    offsets[3] = 1;
+    int count = 0;
+    for (int[] border : borders) {
+      count += border.length / 2;
+    }
+    int[] clusterNodes = new int[count],
+        clusterPartners = new int[count];
+    count = 0;
+    for (int border = 0; border < 4; border++) {
+      // in the borders shared with the previous clusters, this cluster holds the second cell
+      for (int i = 0; i < borders[border].length; i += 2) {
+        clusterNodes[count] = borders[border][i + offsets[border]];
+        clusterPartners[count++] = borders[border][i + 1 - offsets[border]];
+      }
+    }
+    int[] clusterDistances = new int[count * count];
+    for (int i = 0; i < count; i++) {
+      searchCluster(cluster, clusterNodes[i], -1);
+      for (int j = 0; j < count; j++) {
+        clusterDistances[i * count + j] = buffer.distance(clusterNodes[j]);
+      }
+    }
+    nodes[cluster] = clusterNodes;
+    partners[cluster] = clusterPartners;
+    distances[cluster] = clusterDistances;
+    rebuiltClusters++;
+  }
+
+  /**
+   * Gives a global number to every abstract node and links the nodes of every transition.
+   */
+  private void numberNodes() {
+    bases = new int[nodes.length];
+    nodeCount = 0;
+    for (int cluster = 0; cluster < nodes.length; cluster++) {
+      bases[cluster] = nodeCount;
+      nodeCount += nodes[cluster].length;
+    }
+    nodeCluster = new int[nodeCount];
+    partnerNode = new int[nodeCount];
+    for (int cluster = 0; cluster < nodes.length; cluster++) {
+      for (int i = 0; i < nodes[cluster].length; i++) {
+        int node = bases[cluster] + i,
+            partner = partners[cluster][i],
+            partnerCluster = clusterOf(partner);
+        nodeCluster[node] = cluster;
+        for (int j = 0; j < nodes[partnerCluster].length; j++) {
+          if (nodes[partnerCluster][j] == partner
+              && partners[partnerCluster][j] == nodes[cluster][i]) {
+            partnerNode[node] = bases[partnerCluster] + j;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the distance from a cell to every node of its cluster, moving only inside the cluster
+   */
+  private int[] distancesInCluster(final int cluster, final int source) {
+    searchCluster(cluster, source, -1);
+    int[] result = new int[nodes[cluster].length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = buffer.distance(nodes[cluster][i]);
+    }
+    return result;
+  }
+
+  /**
+   * Appends to a path the cells of a shortest path inside a cluster, without the first one.
+   *
+   * @return the new length of the path
+   */
+  private int refine(final int from, final int to, final int[] path, final int length) {
+    int cluster = clusterOf(from);
+    int distance = searchCluster(cluster, from, to);
+    byte[] links = field.getLinks();
+    int[] offsets = {-side, side, -1, 1};
+    int current = to;
+    for (int i = length + distance - 1; i >= length; i--) {
+      path[i] = current;
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int neighbour = current + offsets[direction];
+        if ((links[current] & 1 << direction) != 0 && clusterOf(neighbour) == cluster
+            && buffer.distance(neighbour) == buffer.distance(current) - 1) {
+          current = neighbour;
+          break;
+        }
+      }
+    }
+    return length + distance;
+  }
+
+  /**
+   * Breadth-first search that doesn't leave a cluster.
+   *
+   * @return the distance to the target, or {@link Field#UNREACHABLE} if it wasn't found
+   */
+  private int searchCluster(final int cluster, final int source, final int target) {
+    byte[] links = field.getLinks();
+    int[] offsets = {-side, side, -1, 1};
+    buffer.reset(links.length);
+    buffer.visit(source, 0);
+    if (source == target) {
+      return 0;
+    }
+    int head = 0;
+    while (head < buffer.size) {
+      int current = buffer.queue[head++];
+      int next = buffer.distance(current) + 1;
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        int neighbour = current + offsets[direction];
+        if ((links[current] & 1 << direction) != 0 && clusterOf(neighbour) == cluster
+            && buffer.visit(neighbour, next) && neighbour == target) {
+          return next;
+        }
+      }
+    }
+    return Field.UNREACHABLE;
+  }
+
+  /**
+   * @return the cluster that contains a position of the grid
+   */
+  private int clusterOf(final int position) {
+    return position / side / clusterSize * clustersPerSide + position % side / clusterSize;
+  }
+
+  /**
+   * @return the Manhattan distance between two positions of the grid
+   */
+  private int manhattan(final int from, final int to) {
+    return Math.abs(from / side - to / side) + Math.abs(from % side - to % side);
+  }
+
+  /**
+   * @return the position of a node of the abstract graph, the destination is the node after the
+   *     origin
+   */
+  private int positionOf(final int node, final int goal) {
+    return node == nodeCount + 1 ? goal : nodes[nodeCluster[node]][node - bases[nodeCluster[node]]];
+  }
+
+  /**
+   * Prepares the working memory for a search over an abstract graph with the given number of
+   * nodes.
+   */
+  private void resetSearch(final int size) {
+    if (marks.length < size) {
+      costs = new int[size];
+      parents = new int[size];
+      marks = new int[size];
+      closedMarks = new int[size];
+      mark = 0;
+    }
+    mark++;
+    if (mark == 0) {
+      Arrays.fill(marks, 0);
+      Arrays.fill(closedMarks, 0);
+      mark = 1;
+    }
+    heapSize = 0;
+  }
+
+  /**
+   * Opens a node reached from another one, unless the cost is unknown.
+   */
+  private void relax(final int node, final int cost, final int parent, final int goal) {
+    if (cost < 0 || cost >= Field.UNREACHABLE) {
+      return;
+    }
+    open(node, cost, cost + manhattan(positionOf(node, goal), goal), parent);
+  }
+
+  /**
+   * Records a path to a node if it's shorter than the best one known and adds the node to the
+   * open set, ordered by the estimated length of the whole path.
+   */
+  private void open(final int node, final int cost, final int estimate, final int parent) {
+    if (closedMarks[node] == mark || marks[node] == mark && costs[node] <= cost) {
+      return;
+    }
+    marks[node] = mark;
+    costs[node] = cost;
+    parents[node] = parent;
+    if (heapSize == heap.length) {
+      heap = Arrays.copyOf(heap, heapSize * 2);
+    }
+    long key = (long) estimate << 32 | node;
+    int child = heapSize++;
+    while (child > 0 && heap[(child - 1) >>> 1] > key) {
+      heap[child] = heap[(child - 1) >>> 1];
+      child = (child - 1) >>> 1;
+    }
+    heap[child] = key;
+  }
+
+  /**
+   * Takes the most promising node out of the open set and closes it.
+   *
+   * @return the node, or -1 if the open set is empty
+   */
+  private int next() {
+    while (heapSize > 0) {
+      int node = (int) heap[0];
+      long last = heap[--heapSize];
+      int parent = 0;
+      while (2 * parent + 1 < heapSize) {
+        int child = 2 * parent + 1;
+        if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+          child++;
+        }
+        if (last <= heap[child]) {
+          break;
+        }
+        heap[parent] = heap[child];
+        parent = child;
+      }
+      heap[parent] = last;
+      if (closedMarks[node] != mark) {
+        closedMarks[node] = mark;
+        return node;
+      }
+    }
+    return -1;
+  }
+}
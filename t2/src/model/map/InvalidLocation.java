@@ -24,6 +24,8 @@
 
 package model.map;
 
+import model.units.IUnit;
+
 /**
  * This class represents an empty or invalid location on the game's map.
  *
@@ -47,4 +49,17 @@ public class InvalidLocation extends Location {
   protected void addTo(final Location location) {
   }
 
+  @Override
+  public void removeNeighbour(final Location neighbour) {
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * No unit can be placed in an invalid location.
+   */
+  @Override
+  public void setUnit(final IUnit unit) {
+  }
+
 }
@@ -28,7 +28,12 @@ import model.units.IUnit;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -36,11 +41,11 @@ import java.util.Set;
  * <p>
  * A location is simply a graph node with connections to all adjacent positions to it. Every node
  * in the graph contains an id that represents it's position, with rows and columns with numbers
- * (just like a cartesian plane), a list of references to all of it's neighbours and a reference to
+ * (just like a cartesian plane), references to all of it's neighbours and a reference to
  * the unit that's currently in that position (in case there is one).
  * <p>
- * Note that a structure like this let's it's user implement more complicated maps than a simple
- * chess one, but for simplicity, it will be assumed that the distance between any node and it's
+ * The neighbours are kept in one slot per direction, so a location can only be connected to the
+ * locations right above, below, left or right of it, and the distance between any node and it's
  * neighbours will be always 1.
  *
  * @author Sebastian Sepulveda
@@ -48,11 +53,23 @@ import java.util.Set;
  */
 public class Location {
 
+  /**
+   * Number of directions in which a location can have a neighbour.
+   * <p>
+   * The directions are numbered in the order (row - 1), (row + 1), (column - 1), (column + 1),
+   * so the opposite of a direction <code>d</code> is <code>d ^ 1</code>.
+   */
+  public static final int DIRECTIONS = 4;
+  static final int[] ROW_OFFSETS = {-1, 1, 0, 0};
+  static final int[] COLUMN_OFFSETS = {0, 0, -1, 1};
+
   private final int row;
   private final int column;
-  private final String id;
-  private Set<Location> neighbours = new HashSet<>();
+  private final Location[] neighbours = new Location[DIRECTIONS];
   private IUnit unit;
+  private Field field;
+  private boolean unresolved;
+  int ordinal = -1;
 
   /**
    * Creates a new location of the game map.
@@ -65,7 +82,6 @@ public class Location {
   public Location(final int row, final int column) {
     this.row = row;
     this.column = column;
-    id = "(" + row + ", " + column + ")";
   }
 
   /**
@@ -85,9 +101,14 @@ public class Location {
         && column == ((Location) other).column;
   }
 
+  @Override
+  public int hashCode() {
+    return 31 * row + column;
+  }
+
   @Override
   public String toString() {
-    return id;
+    return "(" + row + ", " + column + ")";
   }
 
   /**
@@ -98,17 +119,43 @@ public class Location {
    */
   public void addNeighbour(@NotNull final Location neighbour) {
     neighbour.addTo(this);
-    neighbour.neighbours.add(this);
   }
 
   /**
-   * Adds this location as a neighbour to another
+   * Adds this location as a neighbour to another, and the other location as a neighbour of this
    *
    * @param location
    *     location to add this as neighbour
    */
   protected void addTo(@NotNull final Location location) {
-    location.neighbours.add(this);
+    int direction = location.directionTo(this);
+    if (direction < 0) {
+      return;
+    }
+    resolve();
+    location.resolve();
+    location.neighbours[direction] = this;
+    neighbours[direction ^ 1] = location;
+    location.connectionsChanged();
+    connectionsChanged();
+  }
+
+  /**
+   * Gets the direction in which another location is adjacent to this one.
+   *
+   * @param otherLocation
+   *     the other location
+   * @return the direction of the other location, or -1 if it isn't adjacent to this one
+   */
+  int directionTo(@NotNull final Location otherLocation) {
+    int rowOffset = otherLocation.row - row,
+        columnOffset = otherLocation.column - column;
+    for (int direction = 0; direction < DIRECTIONS; direction++) {
+      if (ROW_OFFSETS[direction] == rowOffset && COLUMN_OFFSETS[direction] == columnOffset) {
+        return direction;
+      }
+    }
+    return -1;
   }
 
   /**
@@ -119,7 +166,9 @@ public class Location {
    * @return <code>true</code> if the two locations are adjacent; <code>false</code> otherwise
    */
   public boolean isNeighbour(final Location otherLocation) {
-    return neighbours.contains(otherLocation);
+    int direction = directionTo(otherLocation);
+    resolve();
+    return direction >= 0 && neighbours[direction] != null;
   }
 
   /**
@@ -137,6 +186,9 @@ public class Location {
    */
   public void setUnit(IUnit unit) {
     this.unit = unit;
+    if (field != null) {
+      field.unitChanged(this);
+    }
   }
 
   /**
@@ -146,15 +198,112 @@ public class Location {
    *     the neighbour to be removed
    */
   public void removeNeighbour(final Location neighbour) {
-    neighbours.remove(neighbour);
-    neighbour.neighbours.remove(neighbour);
+    int direction = directionTo(neighbour);
+    resolve();
+    if (direction < 0 || neighbours[direction] == null) {
+      return;
+    }
+    neighbour.resolve();
+    neighbours[direction] = null;
+    neighbour.neighbours[direction ^ 1] = null;
+    connectionsChanged();
+    neighbour.connectionsChanged();
+  }
+
+  /**
+   * Tells the field that contains this location that its connections changed.
+   */
+  private void connectionsChanged() {
+    if (field != null) {
+      field.connectionsChanged(this);
+    }
+  }
+
+  /**
+   * @return the field that contains this location, or <code>null</code> if it wasn't added to one
+   */
+  public Field getField() {
+    return field;
+  }
+
+  /**
+   * Marks this location as created by a field that loads its cells on demand, so its neighbours
+   * are taken from the field the first time they are needed.
+   */
+  void markUnresolved() {
+    unresolved = true;
+  }
+
+  /**
+   * Fills the neighbours of a location created on demand.
+   */
+  private void resolve() {
+    if (unresolved) {
+      unresolved = false;
+      field.resolveNeighbours(this);
+    }
+  }
+
+  /**
+   * Sets the neighbour of this location in one direction without notifying the field, used by
+   * the field when it builds all of its connections at once.
+   */
+  void setNeighbour(final int direction, final Location neighbour) {
+    neighbours[direction] = neighbour;
+  }
+
+  /**
+   * Sets the field that contains this location.
+   *
+   * @param field
+   *     the field where this location was added
+   * @param ordinal
+   *     the index of this location inside the field
+   */
+  void setField(final Field field, final int ordinal) {
+    this.field = field;
+    this.ordinal = ordinal;
   }
 
   /**
    * @return a hash set of this location adjacent cells
    */
   public Set<Location> getNeighbours() {
-    return Set.copyOf(neighbours);
+    resolve();
+    Set<Location> adjacentCells = new HashSet<>();
+    for (Location neighbour : neighbours) {
+      if (neighbour != null) {
+        adjacentCells.add(neighbour);
+      }
+    }
+    return adjacentCells;
+  }
+
+  /**
+   * Gets the neighbour of this location in a given direction, without creating a copy of the
+   * neighbourhood.
+   *
+   * @param direction
+   *     a number between 0 and {@link #DIRECTIONS} - 1
+   * @return the neighbour in that direction, or <code>null</code> if there is none
+   */
+  public Location getNeighbour(final int direction) {
+    resolve();
+    return neighbours[direction];
+  }
+
+  /**
+   * @return the number of neighbours of this location
+   */
+  public int getNeighbourCount() {
+    resolve();
+    int count = 0;
+    for (Location neighbour : neighbours) {
+      if (neighbour != null) {
+        count++;
+      }
+    }
+    return count;
   }
 
   /**
@@ -165,27 +314,91 @@ public class Location {
    * @return the length of the shortest path to the other location
    */
   public double distanceTo(final Location otherNode) {
-    return shortestPathTo(otherNode, new HashSet<>());
+    return distanceTo(otherNode, Field.UNREACHABLE);
+  }
+
+  /**
+   * Calculates the distance from this location to another, giving up as soon as the search goes
+   * further than a given number of steps.
+   *
+   * @param otherNode
+   *     the other location
+   * @param limit
+   *     the maximum distance that is worth exploring
+   * @return the length of the shortest path to the other location, or positive infinity if it is
+   *     unreachable or further than <code>limit</code>
+   */
+  public double distanceTo(final Location otherNode, final int limit) {
+    int distance = field != null ? field.distance(this, otherNode, limit)
+        : Field.breadthFirstSearch(this, otherNode, limit, new HashMap<>());
+    return distance == Field.UNREACHABLE ? Double.POSITIVE_INFINITY : distance;
+  }
+
+  /**
+   * Calculates the cost of moving from this location to another, giving up as soon as the cost
+   * goes over a limit.
+   *
+   * @param otherNode
+   *     the other location
+   * @param limit
+   *     the maximum cost that is worth exploring
+   * @return the cost of the cheapest path to the other location, counting the cost of every cell
+   *     entered, or positive infinity if it is unreachable or costs more than <code>limit</code>
+   * @see Field#setMovementCost(Location, int)
+   */
+  public double movementCostTo(final Location otherNode, final int limit) {
+    int cost = field != null ? field.movementCost(this, otherNode, limit)
+        : Field.breadthFirstSearch(this, otherNode, limit, new HashMap<>());
+    return cost == Field.UNREACHABLE ? Double.POSITIVE_INFINITY : cost;
+  }
+
+  /**
+   * Checks if a unit standing on this location can move to another one. The path can't go
+   * through locations that hold a unit and the destination must be free, the same rule of
+   * {@link Field#reachableWithin(Location, int)}.
+   *
+   * @param otherNode
+   *     the destination of the move
+   * @param movement
+   *     the maximum cost of the move
+   * @return true if the move is allowed
+   * @see Field#canReach(Location, Location, int)
+   */
+  public boolean canMoveTo(@NotNull final Location otherNode, final int movement) {
+    if (field != null) {
+      return field.canReach(this, otherNode, movement);
+    }
+    return otherNode != this && otherNode.getUnit() == null
+        && Field.breadthFirstSearch(this, otherNode, movement, true, new HashMap<>()) <= movement;
   }
 
   /**
-   * Gets the shortest path to another node storing a set of already visited nodes
+   * Finds the units whose distance to this location is between two values.
+   * <p>
+   * The locations of a field are answered by the index of the units of the field, any other
+   * location explores its own graph up to the maximum distance.
    *
-   * @return the distance between the nodes
+   * @param minRange
+   *     the minimum distance of the units
+   * @param maxRange
+   *     the maximum distance of the units
+   * @return the units found, ordered by distance
    */
-  private double shortestPathTo(@NotNull final Location otherNode, final Set<Location> visited) {
-    if (otherNode.equals(this)) {
-      return 0;
+  public List<IUnit> unitsInRing(final int minRange, final int maxRange) {
+    if (field != null && field.contains(this)) {
+      return field.getUnitIndex().unitsInRing(this, minRange, maxRange);
     }
-    visited.add(this);
-    double distance = Double.POSITIVE_INFINITY;
-    for (Location node :
-        neighbours) {
-      if (!visited.contains(node)) {
-        distance = Math.min(distance, 1 + node.shortestPathTo(otherNode, new HashSet<>(visited)));
+    Map<Location, Integer> distances = new HashMap<>();
+    Field.breadthFirstSearch(this, null, maxRange, distances);
+    List<Location> cells = new ArrayList<>(distances.keySet());
+    cells.sort(Comparator.comparing(distances::get));
+    List<IUnit> units = new ArrayList<>();
+    for (Location cell : cells) {
+      if (cell.unit != null && distances.get(cell) >= minRange) {
+        units.add(cell.unit);
       }
     }
-    return distance;
+    return units;
   }
 
   /**
@@ -0,0 +1,279 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * A square map stored in a compact binary file.
+ * <p>
+ * The file starts with a header with the magic number <code>FMAP</code>, the version of the
+ * format, the size of the map, the seed used to generate it and a set of flags. Then come the
+ * connections of every cell, 2 bits per cell in row-major order: the first bit tells if the cell
+ * is connected to the cell in the previous row and the second one if it's connected to the cell
+ * in the previous column. If the {@link #OCCUPANCY} flag is set, the file ends with one bit per
+ * cell telling if there was a unit on it.
+ * <p>
+ * The file is opened through a memory mapping, so opening it reads only the header. The field is
+ * created with {@link #toField()}, that unpacks the connections but leaves the cells to be
+ * created the first time they are used.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class MapFile {
+
+  /**
+   * Flag set when the file stores which cells were occupied.
+   */
+  public static final int OCCUPANCY = 1;
+
+  /**
+   * Version of the format written by this class.
+   */
+  public static final int VERSION = 1;
+
+  private static final int MAGIC = 0x464D4150;
+  private static final int HEADER_SIZE = 24;
+
+  private final MappedByteBuffer buffer;
+  private final int version;
+  private final int size;
+  private final long seed;
+  private final int flags;
+
+  private MapFile(@NotNull final MappedByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("The file doesn't contain a map");
+    }
+    version = buffer.getInt(4);
+    if (version != VERSION) {
+      throw new IOException("Unsupported map file version " + version);
+    }
+    size = buffer.getInt(8);
+    seed = buffer.getLong(12);
+    flags = buffer.getInt(20);
+    if (size < 0 || buffer.capacity() < fileSize(size, flags)) {
+      throw new IOException("The map file is truncated");
+    }
+  }
+
+  /**
+   * Opens a map file.
+   *
+   * @param path
+   *     the path of the file
+   * @return the opened map
+   * @throws IOException
+   *     if the file can't be read or isn't a valid map file
+   */
+  public static MapFile open(@NotNull final Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new MapFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Saves a square map to a file.
+   *
+   * @param field
+   *     the map, that must have a cell in every position of a square of {@link Field#getSize()}
+   *     rows and columns and no other cells, its grid can be bigger
+   * @param seed
+   *     the seed used to generate the map, stored only as information
+   * @param occupancy
+   *     if the cells occupied by units should be saved
+   * @param path
+   *     the path of the file, that is overwritten if it exists
+   * @throws IOException
+   *     if the file can't be written
+   */
+  public static void write(@NotNull final Field field, final long seed, final boolean occupancy,
+      @NotNull final Path path) throws IOException {
+    int size = field.getSize();
+    int side = field.getSide();
+    boolean square = field.getCellCount() == size * size;
+    for (int row = 0; row < size && square; row++) {
+      for (int col = 0; col < size && square; col++) {
+        square = field.getCellAt(row * side + col) != null;
+      }
+    }
+    if (!square) {
+      throw new IllegalArgumentException("Only maps with a cell in every position can be saved");
+    }
+    int flags = occupancy ? OCCUPANCY : 0;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          fileSize(size, flags));
+      out.putInt(MAGIC).putInt(VERSION).putInt(size).putLong(seed).putInt(flags);
+      byte[] links = field.getLinks();
+      int cells = size * size;
+      // the cells of the file are numbered over the square, the positions of the grid over its
+      // side, that is bigger when the grid grew with room to spare
+      for (int first = 0; first < cells; first += 4) {
+        int packed = 0;
+        for (int cell = first; cell < Math.min(first + 4, cells); cell++) {
+          int position = cell / size * side + cell % size;
+          // previous row is direction 0 and previous column is direction 2
+          int bits = (links[position] & 1) | (links[position] >> 1 & 2);
+          packed |= bits << 2 * (cell - first);
+        }
+        out.put((byte) packed);
+      }
+      if (occupancy) {
+        for (int first = 0; first < cells; first += 8) {
+          int packed = 0;
+          for (int cell = first; cell < Math.min(first + 8, cells); cell++) {
+            if (field.getUnitAt(cell / size * side + cell % size) != null) {
+              packed |= 1 << cell - first;
+            }
+          }
+          out.put((byte) packed);
+        }
+      }
+      out.force();
+    }
+  }
+
+  /**
+   * @return the number of bytes of a file with a map of the given size
+   */
+  private static long fileSize(final int size, final int flags) {
+    long cells = (long) size * size;
+    long length = HEADER_SIZE + (cells + 3) / 4;
+    if ((flags & OCCUPANCY) != 0) {
+      length += (cells + 7) / 8;
+    }
+    return length;
+  }
+
+  /**
+   * Creates the field stored in the file.
+   * <p>
+   * The cells of the field are created the first time they are needed, so the cost of loading a
+   * map is a single pass over the packed connections. The field doesn't contain units, use
+   * {@link #isOccupied(int, int)} to know where they were.
+   *
+   * @return a new field with the connections of the file
+   * @throws IllegalStateException
+   *     if the map has more cells than an array can hold
+   */
+  public Field toField() {
+    long total = (long) size * size;
+    if (total > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("The map of " + size + " x " + size
+          + " cells is too big to be loaded");
+    }
+    int cells = (int) total;
+    byte[] packed = new byte[(cells + 3) / 4];
+    ByteBuffer connections = buffer.duplicate();
+    connections.position(HEADER_SIZE);
+    connections.get(packed);
+    byte[] links = new byte[cells];
+    IntStream.range(0, size).parallel().forEach(row -> {
+      for (int col = 0; col < size; col++) {
+        int cell = row * size + col;
+        int own = bits(packed, cell);
+        int mask = 0;
+        // the bits of the file go to the directions 0 and 2, see Location.DIRECTIONS
+        if ((own & 1) != 0) {
+          mask |= 1;
+        }
+        if ((own & 2) != 0) {
+          mask |= 1 << 2;
+        }
+        if (row + 1 < size && (bits(packed, cell + size) & 1) != 0) {
+          mask |= 1 << 1;
+        }
+        if (col + 1 < size && (bits(packed, cell + 1) & 2) != 0) {
+          mask |= 1 << 3;
+        }
+        links[cell] = (byte) mask;
+      }
+    });
+    return Field.onDemand(size, links);
+  }
+
+  /**
+   * @return the 2 bits with the connections of a cell to the previous row and column
+   */
+  private static int bits(final byte[] packed, final int cell) {
+    return packed[cell >> 2] >> 2 * (cell & 3) & 3;
+  }
+
+  /**
+   * @param row
+   *     the row of the cell
+   * @param col
+   *     the column of the cell
+   * @return true if the file says there was a unit on the cell
+   */
+  public boolean isOccupied(final int row, final int col) {
+    if ((flags & OCCUPANCY) == 0 || row < 0 || col < 0 || row >= size || col >= size) {
+      return false;
+    }
+    long cell = (long) row * size + col;
+    int position = (int) (HEADER_SIZE + ((long) size * size + 3) / 4 + cell / 8);
+    return (buffer.get(position) & 1 << (cell & 7)) != 0;
+  }
+
+  /**
+   * @return the version of the format of the file
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the number of rows and columns of the map
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the seed stored in the file
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @return true if the file stores the cells occupied by units
+   */
+  public boolean hasOccupancy() {
+    return (flags & OCCUPANCY) != 0;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import model.units.IUnit;
+
+/**
+ * The unit of every position of a grid, stored in fixed size chunks that are copied only when
+ * written after being shared.
+ * <p>
+ * Sharing the layer gives away the current chunks, and each of them is copied the first time
+ * one of its positions changes after that, so a snapshot costs one reference per chunk and a
+ * change costs at most one chunk. Chunks without units aren't allocated.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class OccupancyLayer {
+
+  static final int CHUNK_BITS = 8;
+  private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+  private IUnit[][] chunks;
+  private final int[] owners;
+  private int generation;
+
+  /**
+   * Creates an empty layer.
+   *
+   * @param cells
+   *     the number of positions of the grid
+   */
+  OccupancyLayer(final int cells) {
+    chunks = new IUnit[(cells + CHUNK_MASK) >> CHUNK_BITS][];
+    owners = new int[chunks.length];
+  }
+
+  /**
+   * Changes the unit of a position, copying its chunk first if it's shared.
+   *
+   * @param position
+   *     a position of the grid
+   * @param unit
+   *     the unit in the position, or <code>null</code>
+   */
+  void set(final int position, final IUnit unit) {
+    int index = position >> CHUNK_BITS;
+    IUnit[] chunk = chunks[index];
+    if (chunk == null) {
+      if (unit == null) {
+        return;
+      }
+      chunk = new IUnit[CHUNK_MASK + 1];
+      chunks[index] = chunk;
+      owners[index] = generation;
+    } else if (owners[index] != generation) {
+      chunk = chunk.clone();
+      chunks[index] = chunk;
+      owners[index] = generation;
+    }
+    chunk[position & CHUNK_MASK] = unit;
+  }
+
+  /**
+   * Gives away the current chunks, that won't be written again by this layer.
+   *
+   * @return the chunks of the layer
+   */
+  IUnit[][] share() {
+    generation++;
+    return chunks.clone();
+  }
+
+  /**
+   * @param chunks
+   *     chunks given by {@link #share()}
+   * @param position
+   *     a position of the grid
+   * @return the unit in the position, or <code>null</code>
+   */
+  static IUnit get(final IUnit[][] chunks, final int position) {
+    IUnit[] chunk = chunks[position >> CHUNK_BITS];
+    return chunk == null ? null : chunk[position & CHUNK_MASK];
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Arrays;
+
+/**
+ * Reusable working memory for the A* searches over the grid of a field.
+ * <p>
+ * Like {@link SearchBuffer}, the cells are marked with the number of the current search instead
+ * of being cleared. The open set is a binary heap of positions ordered by the estimated length of
+ * the path through them; a position can be in the heap more than once, the outdated entries are
+ * skipped when they are taken out.
+ * <p>
+ * The searches over the costs of the cells can use a bucket queue instead of the heap: the
+ * estimates only grow as the search advances, and never by more than the highest cost of a cell
+ * plus one step, so a ring of buckets indexed by the estimate keeps the open set in order without
+ * comparing entries.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class PathBuffer {
+
+  private int[] marks = new int[0];
+  private int[] closedMarks = new int[0];
+  private int[] costs = new int[0];
+  private byte[] parents = new byte[0];
+  private int mark;
+  private long[] heapKeys = new long[16];
+  private int[] heapCells = new int[16];
+  private int heapSize;
+  private static final int BUCKET_MASK = 511;
+  private final long[][] buckets = new long[BUCKET_MASK + 1][];
+  private final int[] bucketSizes = new int[BUCKET_MASK + 1];
+  private boolean bucketed;
+  private int bucketKey;
+  private int bucketCount;
+
+  /**
+   * Prepares the buffer for a new search over a grid of the given size.
+   *
+   * @param cells
+   *     the number of positions of the grid
+   */
+  void reset(final int cells) {
+    reset(cells, false);
+  }
+
+  /**
+   * Prepares the buffer for a new search over a grid of the given size.
+   *
+   * @param cells
+   *     the number of positions of the grid
+   * @param useBuckets
+   *     if the open set is a bucket queue, that needs estimates that never decrease and grow at
+   *     most {@link Field#MAX_MOVEMENT_COST} + 1 from the cell that was taken out last
+   */
+  void reset(final int cells, final boolean useBuckets) {
+    if (marks.length < cells) {
+      marks = new int[cells];
+      closedMarks = new int[cells];
+      costs = new int[cells];
+      parents = new byte[cells];
+      mark = 0;
+    }
+    mark++;
+    if (mark == 0) {
+      Arrays.fill(marks, 0);
+      Arrays.fill(closedMarks, 0);
+      mark = 1;
+    }
+    heapSize = 0;
+    if (bucketCount > 0) {
+      Arrays.fill(bucketSizes, 0);
+      bucketCount = 0;
+    }
+    bucketed = useBuckets;
+    bucketKey = -1;
+  }
+
+  /**
+   * Records a path to a cell if it's shorter than the best one known and adds the cell to the
+   * open set.
+   *
+   * @param cell
+   *     the position of the cell
+   * @param cost
+   *     the length of the path from the origin to the cell
+   * @param estimate
+   *     the estimated length of the whole path through the cell
+   * @param parent
+   *     the direction from the cell to the previous cell of the path, or -1 for the origin
+   */
+  void open(final int cell, final int cost, final int estimate, final int parent) {
+    if (marks[cell] == mark && costs[cell] <= cost || closedMarks[cell] == mark) {
+      return;
+    }
+    marks[cell] = mark;
+    costs[cell] = cost;
+    parents[cell] = (byte) parent;
+    if (bucketed) {
+      pushBucket(estimate, cell);
+    } else {
+      // among equal estimates, the cells further from the origin are taken first
+      push(((long) estimate << 32) | (Integer.MAX_VALUE - cost), cell);
+    }
+  }
+
+  /**
+   * Takes the most promising cell out of the open set and closes it.
+   *
+   * @return the position of the cell, or -1 if the open set is empty
+   */
+  int next() {
+    if (bucketed) {
+      return nextBucket();
+    }
+    while (heapSize > 0) {
+      long key = heapKeys[0];
+      int cell = heapCells[0];
+      pop();
+      if (closedMarks[cell] != mark && Integer.MAX_VALUE - (int) key == costs[cell]) {
+        closedMarks[cell] = mark;
+        return cell;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the length of the best known path to a cell
+   */
+  int cost(final int cell) {
+    return costs[cell];
+  }
+
+  /**
+   * @return the direction from a cell to the previous cell of its best known path
+   */
+  int parent(final int cell) {
+    return parents[cell];
+  }
+
+  /**
+   * Takes the cell with the lowest estimate out of the bucket queue, skipping the outdated
+   * entries, and closes it.
+   *
+   * @return the position of the cell, or -1 if the open set is empty
+   */
+  private int nextBucket() {
+    while (bucketCount > 0) {
+      int slot = bucketKey & BUCKET_MASK;
+      if (bucketSizes[slot] == 0) {
+        bucketKey++;
+        continue;
+      }
+      long entry = buckets[slot][--bucketSizes[slot]];
+      bucketCount--;
+      int cell = (int) entry;
+      if (closedMarks[cell] != mark && (int) (entry >>> 32) == costs[cell]) {
+        closedMarks[cell] = mark;
+        return cell;
+      }
+    }
+    return -1;
+  }
+
+  private void pushBucket(final int estimate, final int cell) {
+    if (bucketKey < 0) {
+      // the first cell of the search
+      bucketKey = estimate;
+    }
+    int slot = estimate & BUCKET_MASK;
+    long[] bucket = buckets[slot];
+    if (bucket == null) {
+      bucket = new long[16];
+      buckets[slot] = bucket;
+    } else if (bucketSizes[slot] == bucket.length) {
+      bucket = Arrays.copyOf(bucket, bucket.length * 2);
+      buckets[slot] = bucket;
+    }
+    bucket[bucketSizes[slot]++] = (long) costs[cell] << 32 | cell;
+    bucketCount++;
+  }
+
+  private void push(final long key, final int cell) {
+    if (heapSize == heapKeys.length) {
+      heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+      heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+    }
+    int child = heapSize++;
+    while (child > 0) {
+      int parent = (child - 1) >>> 1;
+      if (heapKeys[parent] <= key) {
+        break;
+      }
+      heapKeys[child] = heapKeys[parent];
+      heapCells[child] = heapCells[parent];
+      child = parent;
+    }
+    heapKeys[child] = key;
+    heapCells[child] = cell;
+  }
+
+  private void pop() {
+    long key = heapKeys[--heapSize];
+    int cell = heapCells[heapSize];
+    int parent = 0;
+    while (true) {
+      int child = 2 * parent + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+        child++;
+      }
+      if (key <= heapKeys[child]) {
+        break;
+      }
+      heapKeys[parent] = heapKeys[child];
+      heapCells[parent] = heapCells[child];
+      parent = child;
+    }
+    heapKeys[parent] = key;
+    heapCells[parent] = cell;
+  }
+}
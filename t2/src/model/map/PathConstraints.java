@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+/**
+ * The restrictions that a path found by {@link Field#findPath(Location, Location,
+ * PathConstraints)} must respect.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class PathConstraints {
+
+  /**
+   * Paths of any length that can go through any cell.
+   */
+  public static final PathConstraints NONE = new PathConstraints(Field.UNREACHABLE, false);
+
+  private final int maxLength;
+  private final boolean blockOccupied;
+
+  /**
+   * Creates a new set of constraints.
+   *
+   * @param maxLength
+   *     the maximum cost of the path, its number of steps while every cell costs 1
+   * @param blockOccupied
+   *     if the path can't go through or end in a cell occupied by a unit
+   */
+  public PathConstraints(final int maxLength, final boolean blockOccupied) {
+    this.maxLength = maxLength;
+    this.blockOccupied = blockOccupied;
+  }
+
+  /**
+   * Creates the constraints of the moves of a unit: a cost of at most <code>movement</code> and
+   * without going through other units.
+   *
+   * @param movement
+   *     the movement of the unit
+   * @return the constraints of the moves
+   */
+  public static PathConstraints forMovement(final int movement) {
+    return new PathConstraints(movement, true);
+  }
+
+  /**
+   * @return the maximum cost of the path, its number of steps while every cell costs 1
+   */
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  /**
+   * @return true if the path can't go through or end in a cell occupied by a unit
+   */
+  public boolean isBlockOccupied() {
+    return blockOccupied;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The set of cells of a field that a unit can reach with its movement.
+ * <p>
+ * The cells are stored both as a bitset over the positions of the grid, so checking a destination
+ * costs O(1), and as a list of positions, so the set can be iterated without scanning the whole
+ * map. The same instance can be passed again to {@link Field#reachableWithin(Location, int,
+ * ReachableCells)} to avoid allocating a new set on every query.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class ReachableCells {
+
+  private Field field;
+  private long[] bits = new long[0];
+  private int[] cells = new int[0];
+  private int size;
+
+  /**
+   * Empties the set and prepares it to hold cells of a grid with the given number of positions.
+   * <p>
+   * Only the bits of the previous cells are cleared, so emptying the set doesn't depend on the
+   * size of the map.
+   */
+  void clear(final Field field, final int positions) {
+    if (bits.length * 64 < positions || cells.length < positions) {
+      bits = new long[(positions + 63) / 64];
+      cells = new int[positions];
+    } else {
+      for (int i = 0; i < size; i++) {
+        bits[cells[i] >>> 6] = 0;
+      }
+    }
+    this.field = field;
+    size = 0;
+  }
+
+  /**
+   * Adds a position of the grid to the set.
+   */
+  void add(final int position) {
+    bits[position >>> 6] |= 1L << position;
+    cells[size++] = position;
+  }
+
+  /**
+   * @return true if the position of the grid is part of the set
+   */
+  private boolean containsPosition(final int position) {
+    return position >= 0 && position < bits.length * 64
+        && (bits[position >>> 6] & 1L << position) != 0;
+  }
+
+  /**
+   * @param location
+   *     the cell being checked
+   * @return true if the cell can be reached
+   */
+  public boolean contains(@NotNull final Location location) {
+    return field != null && location.getField() == field && containsPosition(location.ordinal)
+        && field.getCell(location.getRow(), location.getColumn()) == location;
+  }
+
+  /**
+   * @param row
+   *     the row of the cell
+   * @param col
+   *     the column of the cell
+   * @return true if the cell at (row, col) can be reached
+   */
+  public boolean contains(final int row, final int col) {
+    return field != null && contains(field.getCell(row, col));
+  }
+
+  /**
+   * @return the number of reachable cells
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param index
+   *     the position of the cell in the order in which they were found
+   * @return the reachable cell, the cells closer to the origin come first
+   */
+  public Location get(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return field.getCellAt(cells[index]);
+  }
+
+  /**
+   * @return a new list with the reachable cells
+   */
+  public List<Location> toList() {
+    List<Location> locations = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      locations.add(get(i));
+    }
+    return locations;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Arrays;
+
+/**
+ * Reusable working memory for the searches over the grid of a field.
+ * <p>
+ * Instead of clearing the visited cells before every search, each search gets a new mark and a
+ * cell counts as visited only if it holds the current mark, so starting a search costs the same
+ * no matter how big the map is.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class SearchBuffer {
+
+  private int[] marks = new int[0];
+  private int[] distances = new int[0];
+  private int mark;
+  int[] queue = new int[0];
+  int size;
+
+  /**
+   * Prepares the buffer for a new search over a grid of the given size.
+   *
+   * @param cells
+   *     the number of positions of the grid
+   */
+  void reset(final int cells) {
+    if (marks.length < cells) {
+      marks = new int[cells];
+      distances = new int[cells];
+      queue = new int[cells];
+      mark = 0;
+    }
+    mark++;
+    if (mark == 0) {
+      Arrays.fill(marks, 0);
+      mark = 1;
+    }
+    size = 0;
+  }
+
+  /**
+   * Marks a cell as visited and adds it to the queue of the search.
+   *
+   * @return true if the cell wasn't visited before in this search
+   */
+  boolean visit(final int cell, final int distance) {
+    if (marks[cell] == mark) {
+      return false;
+    }
+    marks[cell] = mark;
+    distances[cell] = distance;
+    queue[size++] = cell;
+    return true;
+  }
+
+  /**
+   * @return the distance of a cell found by the current search, or {@link Field#UNREACHABLE} if
+   *     the search didn't visit it
+   */
+  int distance(final int cell) {
+    return marks[cell] == mark ? distances[cell] : Field.UNREACHABLE;
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import controller.Tactician;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import model.items.IEquipableItem;
+import model.units.IUnit;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Index of the cells of a map that hold a unit, grouped by the tactician that owns the unit.
+ * <p>
+ * The index is kept by the field itself: every time a unit is put in a cell or taken from it with
+ * {@link Location#setUnit(IUnit)} the cell is indexed again, so moving a unit and removing it from
+ * its tactician keep the index current. The queries only look at the occupied cells and at the
+ * cells around the origin that are close enough to hold an answer, so they cost time in proportion
+ * to the units near the origin instead of the size of the map.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class UnitIndex {
+
+  private final Field field;
+  private final Map<Location, Tactician> owners = new HashMap<>();
+  private final Map<Tactician, Set<Location>> cellsByOwner = new HashMap<>();
+
+  /**
+   * Creates an empty index of a map, the cells that already hold a unit must be added with
+   * {@link #update(Location)}.
+   *
+   * @param field
+   *     the indexed map
+   */
+  UnitIndex(@NotNull final Field field) {
+    this.field = field;
+  }
+
+  /**
+   * Indexes a cell again after its unit changed.
+   *
+   * @param cell
+   *     a cell of the indexed map
+   */
+  void update(@NotNull final Location cell) {
+    if (owners.containsKey(cell)) {
+      Tactician oldOwner = owners.remove(cell);
+      Set<Location> cells = cellsByOwner.get(oldOwner);
+      cells.remove(cell);
+      if (cells.isEmpty()) {
+        cellsByOwner.remove(oldOwner);
+      }
+    }
+    IUnit unit = cell.getUnit();
+    if (unit != null) {
+      owners.put(cell, unit.getTactician());
+      cellsByOwner.computeIfAbsent(unit.getTactician(), owner -> new LinkedHashSet<>()).add(cell);
+    }
+  }
+
+  /**
+   * @return the number of cells of the map that hold a unit
+   */
+  public int size() {
+    return owners.size();
+  }
+
+  /**
+   * @param owner
+   *     a tactician, or <code>null</code> for the units without one
+   * @return the cells that hold a unit of the tactician, in the order the units arrived to them
+   */
+  public Set<Location> getCells(final Tactician owner) {
+    return Collections.unmodifiableSet(cellsByOwner.getOrDefault(owner, Collections.emptySet()));
+  }
+
+  /**
+   * Finds the units at most <code>radius</code> steps away from a cell, including the unit that
+   * stands on the cell.
+   *
+   * @param cell
+   *     the cell where the distances are measured from
+   * @param radius
+   *     the maximum distance of the units
+   * @return the units found, ordered by distance
+   */
+  public List<IUnit> unitsWithin(@NotNull final Location cell, final int radius) {
+    return unitsInRing(cell, 0, radius, null, false);
+  }
+
+  /**
+   * Finds the units whose distance to a cell is between two values.
+   *
+   * @param cell
+   *     the cell where the distances are measured from
+   * @param minRange
+   *     the minimum distance of the units
+   * @param maxRange
+   *     the maximum distance of the units
+   * @return the units found, ordered by distance
+   */
+  public List<IUnit> unitsInRing(@NotNull final Location cell, final int minRange,
+      final int maxRange) {
+    return unitsInRing(cell, minRange, maxRange, null, false);
+  }
+
+  /**
+   * Finds the units of other tacticians that are inside the range of the item equipped by a unit.
+   *
+   * @param unit
+   *     a unit standing on the map
+   * @return the enemies whose distance to the unit is between the minimum and maximum range of
+   *     its equipped item, ordered by distance, or an empty list if the unit has no item equipped
+   */
+  public List<IUnit> enemiesInRange(@NotNull final IUnit unit) {
+    IEquipableItem item = unit.getEquippedItem();
+    if (item == null || !item.isUtil()) {
+      return new ArrayList<>();
+    }
+    return unitsInRing(unit.getLocation(), item.getMinRange(), item.getMaxRange(),
+        unit.getTactician(), true);
+  }
+
+  /**
+   * Finds the unit of another tactician that is closest to a unit.
+   *
+   * @param unit
+   *     a unit standing on the map
+   * @return the nearest enemy, or <code>null</code> if no enemy can be reached from the unit
+   */
+  public IUnit nearestEnemy(@NotNull final IUnit unit) {
+    Location origin = unit.getLocation();
+    if (origin == null || !field.contains(origin)
+        || cellsByOwner.size() - (cellsByOwner.containsKey(unit.getTactician()) ? 1 : 0) == 0) {
+      return null;
+    }
+    byte[] links = field.getLinks();
+    int side = field.getSide();
+    int[] offsets = {-side, side, -1, 1};
+    SearchBuffer buffer = Field.getSearchBuffer();
+    buffer.reset(links.length);
+    buffer.visit(origin.ordinal, 0);
+    for (int head = 0; head < buffer.size; head++) {
+      int current = buffer.queue[head];
+      IUnit found = field.getUnitAt(current);
+      if (found != null && found.getTactician() != unit.getTactician()) {
+        return found;
+      }
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        if ((links[current] & 1 << direction) != 0) {
+          buffer.visit(current + offsets[direction], 0);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the indexed units whose distance to a cell is inside a range.
+   * <p>
+   * The distance through the map is never shorter than the Manhattan distance, so the cells that
+   * are too far in a straight line are discarded without searching, and the search is done only
+   * if some cell is left.
+   *
+   * @param cell
+   *     the cell where the distances are measured from
+   * @param minRange
+   *     the minimum distance of the units
+   * @param maxRange
+   *     the maximum distance of the units
+   * @param owner
+   *     the tactician whose units are skipped if <code>enemiesOnly</code> is set
+   * @param enemiesOnly
+   *     if only the units of other tacticians are wanted
+   * @return the units found, ordered by distance
+   */
+  private List<IUnit> unitsInRing(final Location cell, final int minRange, final int maxRange,
+      final Tactician owner, final boolean enemiesOnly) {
+    List<IUnit> units = new ArrayList<>();
+    if (cell == null || !field.contains(cell) || maxRange < minRange) {
+      return units;
+    }
+    int candidates = 0;
+    for (Map.Entry<Tactician, Set<Location>> entry : cellsByOwner.entrySet()) {
+      if (enemiesOnly && entry.getKey() == owner) {
+        continue;
+      }
+      for (Location other : entry.getValue()) {
+        if (Math.abs(other.getRow() - cell.getRow())
+            + Math.abs(other.getColumn() - cell.getColumn()) <= maxRange) {
+          candidates++;
+        }
+      }
+    }
+    if (candidates == 0) {
+      return units;
+    }
+    SearchBuffer buffer = Field.getSearchBuffer();
+    field.searchGrid(cell.ordinal, -1, maxRange, buffer);
+    for (int i = 0; i < buffer.size && candidates > 0; i++) {
+      int position = buffer.queue[i];
+      IUnit unit = field.getUnitAt(position);
+      if (unit != null && !(enemiesOnly && unit.getTactician() == owner)) {
+        candidates--;
+        if (buffer.distance(position) >= minRange) {
+          units.add(unit);
+        }
+      }
+    }
+    return units;
+  }
+}
@@ -27,9 +27,6 @@ package model.map.factoryMap;
 import model.map.Field;
 import model.map.Location;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class FactoryMap implements IFactoryMap {
     private int tamMap;
     private long numLong;
@@ -49,18 +46,14 @@ public class FactoryMap implements IFactoryMap {
     public Field createMap() {
         Field map = new Field();
         if(numLong!=0) map.setSeed(getLong());
-        List<Location> locations = new ArrayList<>();
         int n = this.tamMap;
+        Location[] locations = new Location[n * n];
         for(int i = 0; i < n; i++){
             for(int j = 0; j < n; j++) {
-                locations.add(new Location(i, j));
+                locations[i * n + j] = new Location(i, j);
             }
         }
-        for(Location loc: locations){
-            map.addCells(false,loc);
-        }
-        //Location[] loc = (Location[]) locations.toArray();
-        //map.addCells(false, loc);
+        map.addCells(false, locations);
         return map;
     }
 
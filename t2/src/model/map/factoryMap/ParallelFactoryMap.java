@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map.factoryMap;
+
+import model.map.Field;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generate a map square of size n x n with random connections, building it in parallel.
+ * <p>
+ * The grid is split in bands of {@link #BAND_ROWS} rows and every band takes its own
+ * <code>SplittableRandom</code> derived from the seed, so the same seed always gives the same map
+ * no matter how many threads build it. Every cell is connected to the cell above it (or to its
+ * left in the first row) and to the cell at its left with probability 2/3, so the map is always
+ * connected.
+ * <p>
+ * This is the distribution of {@link FactoryMap}: it adds the cells row by row and draws every
+ * direction with probability 2/3, but forces the connection of a cell without neighbours. A new
+ * cell has no neighbours yet when its first existing adjacent cell is drawn, the one above it or
+ * the one to its left in the first row, so that connection is always made, and the cells below
+ * and to the right don't exist yet. Only the connections to the left are really random.
+ * <p>
+ * The maps are different from the ones created by {@link FactoryMap} with the same seed, since
+ * the random numbers are drawn in a different order.
+ *
+ * @author Sebastian Sepulveda
+ * @version 2.0
+ * @since 2.0
+ */
+public class ParallelFactoryMap implements IFactoryMap {
+    /**
+     * Number of rows generated by a single task.
+     */
+    public static final int BAND_ROWS = 64;
+
+    private static final long DEFAULT_SEED = 212121;
+
+    private int tamMap;
+    private long numLong;
+    private int parallelism;
+
+    /**
+     * Constructor of the factory, the maps are generated in the common fork-join pool
+     *
+     * @param size of the Map
+     */
+    public ParallelFactoryMap(int size){
+        this(size, 0);
+    }
+
+    /**
+     * Constructor of the factory, the maps are generated by a pool with the given number of threads
+     *
+     * @param size of the Map
+     * @param parallelism number of threads, 0 to use the common fork-join pool
+     */
+    public ParallelFactoryMap(int size, int parallelism){
+        this.tamMap = size;
+        this.parallelism = parallelism;
+        numLong = 0;
+    }
+
+    @Override
+    public Field createMap() {
+        int n = this.tamMap;
+        byte[] connections = new byte[n * n];
+        int bands = (n + BAND_ROWS - 1) / BAND_ROWS;
+        SplittableRandom seedRandom = new SplittableRandom(numLong != 0 ? getLong() : DEFAULT_SEED);
+        SplittableRandom[] randoms = new SplittableRandom[bands];
+        for (int band = 0; band < bands; band++) {
+            randoms[band] = seedRandom.split();
+        }
+        if (parallelism <= 0) {
+            return ForkJoinPool.commonPool().invoke(new MapTask(n, connections, randoms));
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new MapTask(n, connections, randoms));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public void setNumLong(long numLong) {
+        this.numLong = numLong;
+    }
+
+    @Override
+    public long getLong(){
+        return this.numLong;
+    }
+
+    /**
+     * Decides the connections of every cell of a band with the cells above and to the left of it.
+     *
+     * @param n size of the map
+     * @param connections packed connections of the map
+     * @param band index of the band
+     * @param random random numbers of the band
+     */
+    private static void generateBand(int n, byte[] connections, int band, SplittableRandom random) {
+        int lastRow = Math.min(n, (band + 1) * BAND_ROWS);
+        for (int row = band * BAND_ROWS; row < lastRow; row++) {
+            for (int col = 0; col < n; col++) {
+                // up is direction 0 and left is direction 2, see Location.DIRECTIONS
+                byte mask = 0;
+                if (row > 0) {
+                    mask |= 1;
+                }
+                if (col > 0 && (row == 0 || random.nextDouble() > 1.0 / 3)) {
+                    mask |= 1 << 2;
+                }
+                connections[row * n + col] = mask;
+            }
+        }
+    }
+
+    /**
+     * Generates all the bands and then builds the field inside the same pool.
+     */
+    private static class MapTask extends RecursiveTask<Field> {
+        private static final long serialVersionUID = 1L;
+        private final int n;
+        private final byte[] connections;
+        private final SplittableRandom[] randoms;
+
+        MapTask(int n, byte[] connections, SplittableRandom[] randoms) {
+            this.n = n;
+            this.connections = connections;
+            this.randoms = randoms;
+        }
+
+        @Override
+        protected Field compute() {
+            new BandTask(n, connections, randoms, 0, randoms.length).invoke();
+            return Field.fromConnections(n, connections);
+        }
+    }
+
+    /**
+     * Generates a range of bands, splitting it in halves until a single band is left.
+     */
+    private static class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int n;
+        private final byte[] connections;
+        private final SplittableRandom[] randoms;
+        private final int from;
+        private final int to;
+
+        BandTask(int n, byte[] connections, SplittableRandom[] randoms, int from, int to) {
+            this.n = n;
+            this.connections = connections;
+            this.randoms = randoms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    generateBand(n, connections, from, randoms[from]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BandTask(n, connections, randoms, from, middle),
+                new BandTask(n, connections, randoms, middle, to));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map.factoryMap;
+
+import model.map.Field;
+
+import java.util.Random;
+
+/**
+ * Generate a map square of size n x n that is connected by construction.
+ * <p>
+ * The connections are chosen with a randomized version of Kruskal's algorithm: the possible
+ * connections between adjacent cells are shuffled and a connection is kept only if it joins two
+ * groups of cells that weren't already joined, which gives a random spanning tree of the grid.
+ * Then some of the discarded connections are added back until the map has the requested density,
+ * the fraction of all the possible connections that are present.
+ *
+ * @author Sebastian Sepulveda
+ * @version 2.0
+ * @since 2.0
+ */
+public class SpanningTreeFactoryMap implements IFactoryMap {
+    /**
+     * Density of the maps when none is given, about the same of the maps of {@link FactoryMap}.
+     */
+    public static final double DEFAULT_DENSITY = 5.0 / 6;
+
+    private static final long DEFAULT_SEED = 212121;
+    // up is direction 0 and left is direction 2, see Location.DIRECTIONS
+    private static final byte UP = 1;
+    private static final byte LEFT = 1 << 2;
+
+    private int tamMap;
+    private long numLong;
+    private double density;
+
+    /**
+     * Constructor of the factory with the default density
+     *
+     * @param size of the Map
+     */
+    public SpanningTreeFactoryMap(int size){
+        this(size, DEFAULT_DENSITY);
+    }
+
+    /**
+     * Constructor of the factory
+     *
+     * @param size of the Map
+     * @param density fraction of the possible connections present in the map, between 0 and 1.
+     *     The map always has at least the connections of the spanning tree
+     */
+    public SpanningTreeFactoryMap(int size, double density){
+        this.tamMap = size;
+        this.density = density;
+        numLong = 0;
+    }
+
+    @Override
+    public Field createMap() {
+        int n = this.tamMap;
+        Random random = new Random(numLong != 0 ? getLong() : DEFAULT_SEED);
+        // every connection is encoded as 2 * cell + 0 for the cell above or + 1 for the cell at the left
+        int[] edges = new int[2 * n * n];
+        int edgeCount = 0;
+        for (int cell = 0; cell < n * n; cell++) {
+            if (cell >= n) {
+                edges[edgeCount++] = 2 * cell;
+            }
+            if (cell % n > 0) {
+                edges[edgeCount++] = 2 * cell + 1;
+            }
+        }
+        for (int i = edgeCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int edge = edges[i];
+            edges[i] = edges[j];
+            edges[j] = edge;
+        }
+
+        byte[] connections = new byte[n * n];
+        int[] parents = new int[n * n];
+        for (int cell = 0; cell < parents.length; cell++) {
+            parents[cell] = cell;
+        }
+        int extra = (int) Math.round(Math.min(1, density) * edgeCount) - (n * n - 1);
+        int discarded = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            int cell = edges[i] >> 1;
+            int other = (edges[i] & 1) == 0 ? cell - n : cell - 1;
+            int root = find(parents, cell),
+                otherRoot = find(parents, other);
+            if (root != otherRoot) {
+                parents[root] = otherRoot;
+                connect(connections, edges[i]);
+            } else {
+                // the discarded connections are kept in shuffled order at the start of the array
+                edges[discarded++] = edges[i];
+            }
+        }
+        for (int i = 0; i < Math.min(extra, discarded); i++) {
+            connect(connections, edges[i]);
+        }
+        return Field.fromConnections(n, connections);
+    }
+
+    @Override
+    public void setNumLong(long numLong) {
+        this.numLong = numLong;
+    }
+
+    @Override
+    public long getLong(){
+        return this.numLong;
+    }
+
+    /**
+     * @return the representative of the group of a cell, compressing the path to it
+     */
+    private static int find(int[] parents, int cell) {
+        while (parents[cell] != cell) {
+            parents[cell] = parents[parents[cell]];
+            cell = parents[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Adds an encoded connection to the packed connections of the map.
+     */
+    private static void connect(byte[] connections, int edge) {
+        connections[edge >> 1] |= (edge & 1) == 0 ? UP : LEFT;
+    }
+}
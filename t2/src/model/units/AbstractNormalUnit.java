@@ -52,7 +52,7 @@ public abstract class AbstractNormalUnit extends AbstractUnitCombative implement
 
     @Override
     public void addResponseNormalUnit(ResponseNormalUnit plc){
-        changeSupport.addPropertyChangeListener(plc);
+        addUnitListener(plc);
     }
 
 }
@@ -53,6 +53,6 @@ public abstract class AbstractSpecialUnit extends AbstractUnitCombative implemen
 
     @Override
     public void addResponseSpecialUnit(ResponseSpecialUnit plc){
-        changeSupport.addPropertyChangeListener(plc);
+        addUnitListener(plc);
     }
 }
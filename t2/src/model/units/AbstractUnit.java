@@ -30,11 +30,11 @@ import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
 import model.map.Location;
+import model.units.handlers.UnitListener;
 import org.jetbrains.annotations.NotNull;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -62,10 +62,11 @@ public abstract class AbstractUnit implements IUnit{
   private final int maxItems;
   private final double maxHitPoints;
   private static final double EPSILON=1e-7;
-  protected PropertyChangeSupport
-          changeSupport= new PropertyChangeSupport(this),
-          changeMovedSupport = new PropertyChangeSupport(this);
+  private static final UnitListener[] NO_LISTENERS = new UnitListener[0];
+  private static final PropertyChangeListener[] NO_OBSERVERS = new PropertyChangeListener[0];
   protected Tactician tacticianOwner;
+  private UnitListener[] listeners = NO_LISTENERS;
+  private PropertyChangeListener[] movementObservers = NO_OBSERVERS;
 
   /**
    * Creates a new Unit.
@@ -102,10 +103,31 @@ public abstract class AbstractUnit implements IUnit{
 
   @Override
   public boolean initCombat(IUnit unitEnemy) {
-    return this.getCurrentHitPoints()>0 && unitEnemy.getCurrentHitPoints()>0
+    return canTarget(unitEnemy) && this.getCurrentHitPoints()>0
+            && unitEnemy.getCurrentHitPoints()>0
             && this.getEquippedItem().isUtil() && isInRange(unitEnemy);
   }
 
+  @Override
+  public boolean initCombat(IUnit unitEnemy, int distance) {
+    if (canTarget(unitEnemy) && this.getCurrentHitPoints()>0
+            && unitEnemy.getCurrentHitPoints()>0 && this.getEquippedItem().isUtil()) {
+      this.equippedItem.setDistance(distance);
+      return getEquippedItem().inRangeItem();
+    }
+    return false;
+  }
+
+  /**
+   * The kind of units that this unit can use its item on, every unit by default
+   *
+   * @param unit that will be attacked
+   * @return true if the unit can be a target of this unit
+   */
+  protected boolean canTarget(IUnit unit) {
+    return true;
+  }
+
   @Override
   public double getCurrentHitPoints() {
     return currentHitPoints;
@@ -156,17 +178,14 @@ public abstract class AbstractUnit implements IUnit{
   public void receiveAttack(@NotNull IEquipableItem attack) {
     double init = getCurrentHitPoints();
     this.currentHitPoints -= attack.getPower();
-    changeSupport.firePropertyChange(
-            new PropertyChangeEvent(this,"normal-attack", init, currentHitPoints));
+    hpChanged(init);
   }
 
   @Override
   public void receiveAttackWeakness(@NotNull IEquipableItem attack){
     double init = getCurrentHitPoints();
     this.currentHitPoints -= attack.getPower() *1.5;
-    changeSupport.firePropertyChange(
-            new PropertyChangeEvent(this, "critical-attack", init, currentHitPoints)
-    );
+    hpChanged(init);
   }
 
   @Override
@@ -176,9 +195,35 @@ public abstract class AbstractUnit implements IUnit{
     if(power>=0){
       this.currentHitPoints -= attack.getPower() - 20;
     }
-    changeSupport.firePropertyChange(
-            new PropertyChangeEvent(this, "resistant-attack", init, currentHitPoints)
-    );
+    hpChanged(init);
+  }
+
+  @Override
+  public void receiveDamage(double damage) {
+    double init = getCurrentHitPoints();
+    this.currentHitPoints -= damage;
+    hpChanged(init);
+  }
+
+  /**
+   * Tells the listeners of the unit the hit points before and after an attack, if they changed
+   *
+   * @param init hit points before the attack
+   */
+  private void hpChanged(double init) {
+    if (init == currentHitPoints) {
+      return;
+    }
+    for (UnitListener listener : listeners) {
+      listener.onHpChanged(this, init, currentHitPoints);
+    }
+  }
+
+  @Override
+  public void addUnitListener(@NotNull UnitListener listener) {
+    UnitListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+    added[listeners.length] = listener;
+    listeners = added;
   }
 
   @Override
@@ -191,11 +236,24 @@ public abstract class AbstractUnit implements IUnit{
 
   @Override
   public boolean isInRange(@NotNull IUnit unit) {
-    int distance = (int) this.getLocation().distanceTo(unit.getLocation());
+    int distance = (int) this.getLocation().distanceTo(unit.getLocation(),
+        getEquippedItem().getMaxRange());
     this.equippedItem.setDistance(distance);
     return getEquippedItem().inRangeItem();
   }
 
+  @Override
+  public List<IUnit> getTargets() {
+    if (location == null || !equippedItem.isUtil() || getCurrentHitPoints() <= 0) {
+      return new ArrayList<>();
+    }
+    List<IUnit> targets = location.unitsInRing(equippedItem.getMinRange(),
+        equippedItem.getMaxRange());
+    targets.removeIf(unit -> unit == this || unit.getCurrentHitPoints() <= 0
+        || !canTarget(unit));
+    return targets;
+  }
+
   @Override
   public boolean canCounterAttack(int distance) {
     if(this.equippedItem.isUtil()){
@@ -219,7 +277,7 @@ public abstract class AbstractUnit implements IUnit{
   @Override
   public boolean canExchange(IUnit unit, IEquipableItem item) {
     return !this.getItems().isEmpty() && !unit.isItemFull()
-            && this.getLocation().distanceTo(unit.getLocation())==1
+            && this.getLocation().distanceTo(unit.getLocation(), 1)==1
             && this.items.contains(item);
   }
 
@@ -250,20 +308,28 @@ public abstract class AbstractUnit implements IUnit{
   @Override
   public void moveTo(final Location targetLocation) {
     Location oldLocation = getLocation();
-    if (getLocation().distanceTo(targetLocation) <= getMovement()
-        && targetLocation.getUnit() == null) {
+    if (getLocation().canMoveTo(targetLocation, getMovement())) {
       getLocation().setUnit(null);
       setLocation(targetLocation);
       //targetLocation.setUnit(this);
-      this.changeMovedSupport.firePropertyChange(
-              new PropertyChangeEvent(this, "unit-moved", oldLocation, targetLocation)
-      );
+      for (UnitListener listener : listeners) {
+        listener.onMoved(this, oldLocation, targetLocation);
+      }
+      if (movementObservers.length > 0) {
+        PropertyChangeEvent event =
+            new PropertyChangeEvent(this, "unit-moved", oldLocation, targetLocation);
+        for (PropertyChangeListener observer : movementObservers) {
+          observer.propertyChange(event);
+        }
+      }
     }
   }
 
   @Override
   public void addObserverMovement(PropertyChangeListener plc) {
-    this.changeMovedSupport.addPropertyChangeListener(plc);
+    PropertyChangeListener[] added = Arrays.copyOf(movementObservers, movementObservers.length + 1);
+    added[movementObservers.length] = plc;
+    movementObservers = added;
   }
 
   @Override
@@ -274,6 +340,10 @@ public abstract class AbstractUnit implements IUnit{
   @Override
   public void setTactician(Tactician tactician) {
     this.tacticianOwner = tactician;
+    if (location != null && location.getUnit() == this) {
+      // the index of the units of the map groups them by owner
+      location.setUnit(this);
+    }
   }
 
   /**
@@ -49,10 +49,14 @@ public abstract class AbstractUnitCombative extends AbstractUnit implements IUni
         super(hitPoints, movement, location, maxItems, items);
     }
 
+    /**
+     * Without a tactician the unit can target any unit, otherwise only the units of other tacticians
+     *
+     * @param unit that will be attacked
+     * @return true if the unit can be a target of this unit
+     */
     @Override
-    public boolean initCombat(IUnit unitEnemy) {
-        if(getTactician()==null) return super.initCombat(unitEnemy);
-        else if (!getTactician().getUnits().contains(unitEnemy)) return super.initCombat(unitEnemy);
-        else return false;
+    protected boolean canTarget(IUnit unit) {
+        return getTactician()==null || !getTactician().hasUnit(unit);
     }
 }
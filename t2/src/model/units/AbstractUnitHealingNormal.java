@@ -53,13 +53,17 @@ public abstract class AbstractUnitHealingNormal extends AbstractUnit implements
 
     @Override
     public void addResponseNormalUnit(ResponseNormalUnit plc){
-        changeSupport.addPropertyChangeListener(plc);
+        addUnitListener(plc);
     }
 
+    /**
+     * Without a tactician the unit can target any unit, otherwise only the units of its own tactician
+     *
+     * @param unit that will be attacked
+     * @return true if the unit can be a target of this unit
+     */
     @Override
-    public boolean initCombat(IUnit unitEnemy) {
-        if(getTactician()==null) return super.initCombat(unitEnemy);
-        else if (getTactician().getUnits().contains(unitEnemy)) return super.initCombat(unitEnemy);
-        else return false;
+    protected boolean canTarget(IUnit unit) {
+        return getTactician()==null || getTactician().hasUnit(unit);
     }
 }
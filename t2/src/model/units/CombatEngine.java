@@ -0,0 +1,230 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import model.items.IEquipableItem;
+import model.items.factoryItem.ItemType;
+
+/**
+ * Resolves the combat between two units with a table indexed by the types of their items.
+ * <p>
+ * The weapons and the magic books attack through a chain of calls between the items and the
+ * units, the type of the weapon selects the method of the item that receives the attack and that
+ * item decides if its owner receives a normal, a critical or a resistant attack and how the
+ * owner answers. The combat engine compiles these rules into an {@link ItemType} by
+ * {@link ItemType} table, so an exchange is resolved with a few reads of the table:
+ * <ul>
+ *   <li>the effect of the attack on the defender,</li>
+ *   <li>the effect of the counterattack on the attacker, or {@link #NONE} if the item of
+ *   the defender can't counterattack.</li>
+ * </ul>
+ * Every effect is a multiplier and a flat modifier of the power of the item. The attacks of the
+ * units keep the chain of calls, it is the reference of the rules of this table.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public final class CombatEngine {
+
+  /** The item doesn't attack */
+  public static final int NONE = 0;
+  /** Attack without modify damage */
+  public static final int NORMAL = 1;
+  /** Attack that seriously affect the unit, the damage increase x1.5 */
+  public static final int WEAKNESS = 2;
+  /** Attack that not affect the unit too much, the damage reduce 20 points */
+  public static final int RESISTANT = 3;
+
+  private static final double[] MULTIPLIERS = { 0, 1, 1.5, 1 };
+  private static final int[] MODIFIERS = { 0, 0, 0, -20 };
+
+  private static final int TYPES = ItemType.values().length;
+  private static final byte[] ATTACKS = new byte[TYPES * TYPES];
+  private static final byte[] COUNTERS = new byte[TYPES * TYPES];
+
+  static {
+    ItemType[] types = ItemType.values();
+    for (ItemType attacker : types) {
+      for (ItemType defender : types) {
+        int entry = attacker.ordinal() * TYPES + defender.ordinal();
+        if (!isWeapon(attacker)) {
+          continue;
+        }
+        if (!isWeapon(defender)) {
+          // a staff only receives the attacks, and a unit without items can't even do that
+          ATTACKS[entry] = (byte) (defender == ItemType.STAFF && isMagic(attacker)
+              ? WEAKNESS : NORMAL);
+        } else if (isStrong(attacker, defender)) {
+          ATTACKS[entry] = WEAKNESS;
+          COUNTERS[entry] = RESISTANT;
+        } else if (isStrong(defender, attacker)) {
+          ATTACKS[entry] = RESISTANT;
+          COUNTERS[entry] = WEAKNESS;
+        } else if (isMagic(attacker) != isMagic(defender)) {
+          ATTACKS[entry] = WEAKNESS;
+          COUNTERS[entry] = WEAKNESS;
+        } else {
+          ATTACKS[entry] = NORMAL;
+          COUNTERS[entry] = NORMAL;
+        }
+      }
+    }
+  }
+
+  private CombatEngine() { }
+
+  /**
+   * @return true if the items of the type can attack and counterattack
+   */
+  private static boolean isWeapon(ItemType type) {
+    return type != ItemType.STAFF && type != ItemType.OTHER;
+  }
+
+  /**
+   * @return true if the items of the type are magic books
+   */
+  private static boolean isMagic(ItemType type) {
+    return type == ItemType.DARKNESS || type == ItemType.LIGHT || type == ItemType.SOUL;
+  }
+
+  /**
+   * Axes are strong against spears, spears against swords and swords against axes.
+   * Light is strong against darkness, darkness against soul and soul against light.
+   *
+   * @return true if the first type is strong against the second one
+   */
+  private static boolean isStrong(ItemType strong, ItemType weak) {
+    switch (strong) {
+      case AXE:
+        return weak == ItemType.SPEAR;
+      case SPEAR:
+        return weak == ItemType.SWORD;
+      case SWORD:
+        return weak == ItemType.AXE;
+      case LIGHT:
+        return weak == ItemType.DARKNESS;
+      case DARKNESS:
+        return weak == ItemType.SOUL;
+      case SOUL:
+        return weak == ItemType.LIGHT;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @param attacker type of the item that attacks
+   * @param defender type of the item equipped by the unit attacked
+   * @return the effect of the attack on the defender, {@link #NONE} if the item doesn't attack
+   */
+  public static int getAttackEffect(ItemType attacker, ItemType defender) {
+    return ATTACKS[attacker.ordinal() * TYPES + defender.ordinal()];
+  }
+
+  /**
+   * @param attacker type of the item that attacks
+   * @param defender type of the item equipped by the unit attacked
+   * @return the effect of the counterattack on the attacker,
+   * {@link #NONE} if the defender can't counterattack
+   */
+  public static int getCounterEffect(ItemType attacker, ItemType defender) {
+    return COUNTERS[attacker.ordinal() * TYPES + defender.ordinal()];
+  }
+
+  /**
+   * @param effect of an attack
+   * @return the multiplier of the power of the item
+   */
+  public static double getMultiplier(int effect) {
+    return MULTIPLIERS[effect];
+  }
+
+  /**
+   * @param effect of an attack
+   * @return the points added to the power of the item after the multiplier
+   */
+  public static int getModifier(int effect) {
+    return MODIFIERS[effect];
+  }
+
+  /**
+   * The damage of an attack, a resistant attack never recovers hit points.
+   *
+   * @param power of the item
+   * @param effect of the attack
+   * @return the hit points that the unit attacked loses
+   */
+  public static double damage(int power, int effect) {
+    double damage = power * MULTIPLIERS[effect] + MODIFIERS[effect];
+    return damage < 0 && MODIFIERS[effect] < 0 ? 0 : damage;
+  }
+
+  /**
+   * Resolves the attack of a unit to an enemy and the counterattack of the enemy, the same
+   * as {@link IUnit#attack(IUnit)}. The units whose item doesn't attack, like the clerics,
+   * use their own attack.
+   *
+   * @param attacker unit that starts the combat
+   * @param defender unit attacked
+   * @return true if the attacker could use its item on the defender
+   */
+  public static boolean attack(IUnit attacker, IUnit defender) {
+    return attack(attacker, defender, -1);
+  }
+
+  /**
+   * Resolves the attack of a unit to an enemy whose distance is already known.
+   *
+   * @param attacker unit that starts the combat
+   * @param defender unit attacked
+   * @param distance number of steps between the units, or -1 to search it
+   * @return true if the attacker could use its item on the defender
+   */
+  public static boolean attack(IUnit attacker, IUnit defender, int distance) {
+    if (attacker instanceof StoredUnit) {
+      // the units of a store fight with the arrays of the store
+      return ((StoredUnit) attacker).attack(defender, distance);
+    }
+    IEquipableItem weapon = attacker.getEquippedItem();
+    int row = weapon.getType().ordinal() * TYPES;
+    if (distance < 0 ? !attacker.initCombat(defender) : !attacker.initCombat(defender, distance)) {
+      return false;
+    }
+    if (ATTACKS[row + ItemType.OTHER.ordinal()] == NONE) {
+      attacker.attack(defender);
+      return true;
+    }
+    IEquipableItem shield = defender.getEquippedItem();
+    int entry = row + (defender.canCounterAttack(weapon.getDistance())
+        ? shield.getType().ordinal() : ItemType.OTHER.ordinal());
+    defender.receiveDamage(damage(weapon.getPower(), ATTACKS[entry]));
+    int counter = COUNTERS[entry];
+    if (counter != NONE && shield.canAttack(weapon)) {
+      attacker.receiveDamage(damage(shield.getPower(), counter));
+    }
+    return true;
+  }
+}
@@ -30,6 +30,7 @@ import model.items.magic.Darkness;
 import model.items.magic.Light;
 import model.items.magic.Soul;
 import model.map.Location;
+import model.units.handlers.UnitListener;
 
 import java.beans.PropertyChangeListener;
 import java.util.List;
@@ -164,6 +165,14 @@ public interface IUnit {
    */
   void addObserverMovement(PropertyChangeListener plc);
 
+  /**
+   * Adds a typed listener of the changes in the hit points and the location of this unit,
+   * it is called without creating event objects
+   *
+   * @param listener of this unit
+   */
+  void addUnitListener(UnitListener listener);
+
   /* END LOCATION SECTION */
 
   /* BEGIN HIT POINTS SECTION */
@@ -205,6 +214,12 @@ public interface IUnit {
    */
   void receiveAttackResistant(IEquipableItem attack);
 
+  /**
+   * A unit receive the damage of an attack already resolved by the {@link CombatEngine}
+   * @param damage hit points that the unit loses
+   */
+  void receiveDamage(double damage);
+
   /**
    * A unit receive a Attack that recovers it
    * @param attack's damage increase the unit's hp that is attacked
@@ -218,6 +233,15 @@ public interface IUnit {
    */
   boolean isInRange(IUnit unit);
 
+  /**
+   * Lists every unit that can be targeted with the equipped item from the current location,
+   * without changing the state of the item. The units of a tactician target the units of
+   * other tacticians, or the units of their own tactician if they heal
+   * @return the living units that can be targeted whose distance is between MinRange and
+   * MaxRange, nearest first
+   */
+  List<IUnit> getTargets();
+
   /* END COMBAT SECTION */
 
   /**
@@ -251,6 +275,15 @@ public interface IUnit {
    */
   boolean initCombat(IUnit unitEnemy);
 
+  /**
+   * A combat init with the distance to the enemy already known, the same checks
+   * of {@link #initCombat(IUnit)} without searching the distance again
+   * @param unitEnemy that will be attacked
+   * @param distance number of steps between the units
+   * @return true if this unit can attack, false otherwise
+   */
+  boolean initCombat(IUnit unitEnemy, int distance);
+
   /**
    * Verify if a unit can exchange a item to other unit
    *
@@ -0,0 +1,351 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import controller.Tactician;
+import model.items.*;
+import model.items.magic.Darkness;
+import model.items.magic.Light;
+import model.items.magic.Soul;
+import model.map.Location;
+import model.units.factoryUnit.UnitType;
+import model.units.handlers.ResponseNormalUnit;
+import model.units.handlers.ResponseSpecialUnit;
+import model.units.handlers.UnitListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A unit of a {@link UnitStore} seen as any other unit of the game.
+ * <p>
+ * The view only keeps its store and its number, every method reads or writes the arrays of the
+ * store, so the tacticians, the listeners of the units and the controller work with the units
+ * of a store as with the rest. A stored unit carries only its equipped item: it can't receive
+ * or give items, and equipping an item registers it in the store. The units of a store fight
+ * each other with the rules of the store, the other units attack them without counterattack.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public final class StoredUnit implements NormalUnit, SpecialUnit {
+
+  private final UnitStore store;
+  private final int number;
+
+  /**
+   * Creates the view of a unit, the store keeps one view per unit.
+   *
+   * @param store
+   *     the store of the unit
+   * @param number
+   *     the number of the unit in the store
+   */
+  StoredUnit(@NotNull final UnitStore store, final int number) {
+    this.store = store;
+    this.number = number;
+  }
+
+  /**
+   * @return the store of the unit
+   */
+  public UnitStore getStore() {
+    return store;
+  }
+
+  /**
+   * @return the number of the unit in its store
+   */
+  public int getNumber() {
+    return number;
+  }
+
+  /**
+   * @return the kind of unit
+   */
+  public UnitType getType() {
+    return store.getType(number);
+  }
+
+  @Override
+  public void equipItem(@NotNull final IEquipableItem item) {
+    store.equip(number, item);
+  }
+
+  @Override
+  public void equipItemDarkness(Darkness item) { }
+  @Override
+  public void equipItemLight(Light item) { }
+  @Override
+  public void equipItemSoul(Soul item) { }
+  @Override
+  public void equipItemBow(Bow item) { }
+  @Override
+  public void equipItemAxe(Axe item) { }
+  @Override
+  public void equipItemSword(Sword item) { }
+  @Override
+  public void equipItemStaff(Staff item) { }
+  @Override
+  public void equipItemSpear(Spear item) { }
+
+  @Override
+  public List<IEquipableItem> getItems() {
+    int item = store.getEquippedItem(number);
+    return item == UnitStore.EMPTY ? List.of() : List.of(store.getItem(item));
+  }
+
+  @Override
+  public IEquipableItem getEquippedItem() {
+    int item = store.getEquippedItem(number);
+    return item == UnitStore.EMPTY ? new ItemNull() : store.getItem(item);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * A stored unit only carries its equipped item, it doesn't have room for more.
+   */
+  @Override
+  public boolean isItemFull() {
+    return true;
+  }
+
+  @Override
+  public void addItem(IEquipableItem item) { }
+
+  @Override
+  public void removeItem(IEquipableItem item) {
+    if (item != null && item == getEquippedItem()) {
+      store.equip(number, UnitStore.EMPTY);
+    }
+  }
+
+  @Override
+  public Location getLocation() {
+    return store.getLocation(number);
+  }
+
+  @Override
+  public void setLocation(@NotNull final Location location) {
+    store.place(number, location);
+  }
+
+  @Override
+  public int getMovement() {
+    return store.getMovement(number);
+  }
+
+  @Override
+  public void moveTo(@NotNull final Location targetLocation) {
+    store.moveTo(number, targetLocation);
+  }
+
+  @Override
+  public void addObserverMovement(PropertyChangeListener plc) {
+    store.addMovementObserver(number, plc);
+  }
+
+  @Override
+  public void addUnitListener(@NotNull UnitListener listener) {
+    store.addUnitListener(number, listener);
+  }
+
+  @Override
+  public double getCurrentHitPoints() {
+    return store.getHitPoints(number);
+  }
+
+  @Override
+  public double getMaxCurrentHitPoints() {
+    return store.getMaxHitPoints(number);
+  }
+
+  @Override
+  public void attack(IUnit unit) {
+    attack(unit, -1);
+  }
+
+  /**
+   * Attacks a unit of the same store whose distance may be already known.
+   *
+   * @param unit that will be attacked
+   * @param distance number of steps between the units, or -1 to search it
+   * @return true if this unit could use its item on the other one
+   */
+  boolean attack(IUnit unit, int distance) {
+    int enemy = store.numberOf(unit);
+    return enemy != UnitStore.EMPTY && store.attack(number, enemy, distance);
+  }
+
+  @Override
+  public void receiveAttack(@NotNull IEquipableItem attack) {
+    receiveDamage(CombatEngine.damage(attack.getPower(), CombatEngine.NORMAL));
+  }
+
+  @Override
+  public void receiveAttackWeakness(@NotNull IEquipableItem attack) {
+    receiveDamage(CombatEngine.damage(attack.getPower(), CombatEngine.WEAKNESS));
+  }
+
+  @Override
+  public void receiveAttackResistant(@NotNull IEquipableItem attack) {
+    receiveDamage(CombatEngine.damage(attack.getPower(), CombatEngine.RESISTANT));
+  }
+
+  @Override
+  public void receiveDamage(double damage) {
+    store.receiveDamage(number, damage);
+  }
+
+  @Override
+  public void receiveRecovery(@NotNull IEquipableItem recovery) {
+    store.receiveRecovery(number, recovery.getPower());
+  }
+
+  @Override
+  public boolean isInRange(@NotNull IUnit unit) {
+    return inRange(distanceTo(unit));
+  }
+
+  /**
+   * @return the number of steps to another unit, searching up to the range of the item
+   */
+  private int distanceTo(IUnit unit) {
+    int enemy = store.numberOf(unit);
+    int item = store.getEquippedItem(number);
+    int limit = item == UnitStore.EMPTY ? 0 : store.getItem(item).getMaxRange();
+    if (enemy != UnitStore.EMPTY) {
+      return store.distance(number, enemy, limit);
+    }
+    double distance = getLocation() == null || unit.getLocation() == null
+        ? Double.POSITIVE_INFINITY : getLocation().distanceTo(unit.getLocation(), limit);
+    return distance == Double.POSITIVE_INFINITY ? Integer.MAX_VALUE : (int) distance;
+  }
+
+  /**
+   * @return true if the equipped item reaches the distance
+   */
+  private boolean inRange(int distance) {
+    int item = store.getEquippedItem(number);
+    return item != UnitStore.EMPTY && store.getItem(item).getMinRange() <= distance
+        && distance <= store.getItem(item).getMaxRange();
+  }
+
+  @Override
+  public List<IUnit> getTargets() {
+    Location location = getLocation();
+    int item = store.getEquippedItem(number);
+    if (location == null || item == UnitStore.EMPTY || getCurrentHitPoints() <= 0) {
+      return new ArrayList<>();
+    }
+    IEquipableItem equipped = store.getItem(item);
+    List<IUnit> targets = location.unitsInRing(equipped.getMinRange(), equipped.getMaxRange());
+    targets.removeIf(unit -> unit == this || unit.getCurrentHitPoints() <= 0
+        || !canTarget(unit));
+    return targets;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * A stored unit can't exchange items.
+   */
+  @Override
+  public void giveItem(IUnit unit, IEquipableItem item) { }
+
+  @Override
+  public void setEquippedItem(IEquipableItem item) {
+    equipItem(item);
+  }
+
+  @Override
+  public void changeEquippedItem(IEquipableItem item) {
+    equipItem(item);
+  }
+
+  @Override
+  public boolean initCombat(IUnit unitEnemy) {
+    return initCombat(unitEnemy, distanceTo(unitEnemy));
+  }
+
+  @Override
+  public boolean initCombat(IUnit unitEnemy, int distance) {
+    return canTarget(unitEnemy) && getCurrentHitPoints() > 0
+        && unitEnemy.getCurrentHitPoints() > 0 && inRange(distance);
+  }
+
+  /**
+   * The same targets of the other units: the clerics choose the units of its tactician, the
+   * rest the units of other tacticians.
+   */
+  private boolean canTarget(IUnit unit) {
+    Tactician tactician = getTactician();
+    return tactician == null || tactician.hasUnit(unit) == (getType() == UnitType.CLERIC);
+  }
+
+  @Override
+  public boolean canExchange(IUnit unit, IEquipableItem item) {
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * A stored unit only counterattacks the units of its store.
+   */
+  @Override
+  public boolean canCounterAttack(int distance) {
+    return false;
+  }
+
+  @Override
+  public Tactician getTactician() {
+    return store.getTactician(number);
+  }
+
+  @Override
+  public void setTactician(Tactician tactician) {
+    store.setTactician(number, tactician);
+  }
+
+  @Override
+  public boolean isEquipable() {
+    return true;
+  }
+
+  @Override
+  public void addResponseNormalUnit(ResponseNormalUnit plc) {
+    store.addUnitListener(number, plc);
+  }
+
+  @Override
+  public void addResponseSpecialUnit(ResponseSpecialUnit plc) {
+    store.addUnitListener(number, plc);
+  }
+}
@@ -27,8 +27,10 @@ package model.units;
 import controller.Tactician;
 import model.items.IEquipableItem;
 import model.map.Location;
+import model.units.handlers.UnitListener;
 
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.List;
 
 public class UnitNull extends AbstractUnit implements IUnit {
@@ -136,6 +138,16 @@ public class UnitNull extends AbstractUnit implements IUnit {
 
     }
 
+    /**
+     * The null unit never changes, nobody listens to it
+     *
+     * @param listener
+     */
+    @Override
+    public void addUnitListener(UnitListener listener) {
+
+    }
+
     /**
      * @return hit points of the unit
      */
@@ -192,6 +204,16 @@ public class UnitNull extends AbstractUnit implements IUnit {
 
     }
 
+    /**
+     * A unit receive the damage of an attack already resolved by the combat engine
+     *
+     * @param damage hit points that the unit loses
+     */
+    @Override
+    public void receiveDamage(double damage) {
+
+    }
+
     /**
      * A unit receive a Attack that recovers it
      *
@@ -213,6 +235,16 @@ public class UnitNull extends AbstractUnit implements IUnit {
         return false;
     }
 
+    /**
+     * The null unit can't target any unit
+     *
+     * @return an empty list
+     */
+    @Override
+    public List<IUnit> getTargets() {
+        return new ArrayList<>();
+    }
+
     /**
      * Give a item to other
      *
@@ -260,6 +292,18 @@ public class UnitNull extends AbstractUnit implements IUnit {
         return false;
     }
 
+    /**
+     * A combat init with the distance to the enemy already known
+     *
+     * @param unitEnemy that will be attacked
+     * @param distance number of steps between the units
+     * @return true if this unit can attack, false otherwise
+     */
+    @Override
+    public boolean initCombat(IUnit unitEnemy, int distance) {
+        return false;
+    }
+
     /**
      * Verify if a unit can exchange a item to other unit
      *
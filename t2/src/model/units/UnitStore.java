@@ -0,0 +1,701 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import controller.Tactician;
+import model.items.IEquipableItem;
+import model.items.factoryItem.ItemType;
+import model.map.Field;
+import model.map.Location;
+import model.units.factoryUnit.UnitType;
+import model.units.handlers.UnitListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps many units in parallel arrays of primitives, one entry of each array per unit.
+ * <p>
+ * Every {@link AbstractUnit} is an object with its own list of items, two change supports and
+ * references to its cell and its tactician, a battle of many thousands of units spends most of
+ * its memory on them. The store numbers its units and keeps the hit points, the maximum hit
+ * points, the movement, the position of the cell in the grid of the map, the number of the
+ * tactician, the type and the number of the equipped item of each unit. The items are
+ * registered once and shared by every unit that equips them.
+ * <p>
+ * The attacks and the moves of the store follow the rules of the units and only read and write
+ * these arrays, they don't allocate unless a unit has movement observers. {@link #getUnit(int)}
+ * gives a view of a unit that implements {@link IUnit}, so the tacticians and the controller can
+ * use it like any other unit. Only the units with a view are put in the cells of the map, the
+ * rest are found with {@link #unitAt(Location)}.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public final class UnitStore {
+
+  /** The number of the unit of an empty cell and of the item of a unit without items */
+  public static final int EMPTY = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final UnitType[] UNIT_TYPES = UnitType.values();
+  private static final ItemType[] ITEM_TYPES = ItemType.values();
+  private static final boolean[] EQUIPABLE = new boolean[UNIT_TYPES.length * ITEM_TYPES.length];
+  private static final byte CLERIC = (byte) UnitType.CLERIC.ordinal();
+  private static final byte STAFF = (byte) ItemType.STAFF.ordinal();
+  private static final int OTHER = ItemType.OTHER.ordinal();
+
+  static {
+    allow(UnitType.ARCHER, ItemType.BOW);
+    allow(UnitType.CLERIC, ItemType.STAFF);
+    allow(UnitType.FIGHTER, ItemType.AXE);
+    allow(UnitType.HERO, ItemType.SPEAR);
+    allow(UnitType.SORCERER, ItemType.DARKNESS);
+    allow(UnitType.SORCERER, ItemType.LIGHT);
+    allow(UnitType.SORCERER, ItemType.SOUL);
+    allow(UnitType.SWORDMASTER, ItemType.SWORD);
+  }
+
+  private final Field field;
+  private int size;
+  private double[] hitPoints;
+  private double[] maxHitPoints;
+  private int[] movements;
+  private int[] positions;
+  private int[] owners;
+  private byte[] types;
+  private int[] equippedItems;
+  private int[] occupants = new int[0];
+
+  private int itemCount;
+  private IEquipableItem[] items = new IEquipableItem[INITIAL_CAPACITY];
+  private byte[] itemTypes = new byte[INITIAL_CAPACITY];
+  private int[] powers = new int[INITIAL_CAPACITY];
+  private int[] minRanges = new int[INITIAL_CAPACITY];
+  private int[] maxRanges = new int[INITIAL_CAPACITY];
+
+  private final List<Tactician> tacticians = new ArrayList<>();
+  private StoredUnit[] views;
+  private UnitListener[][] listeners;
+  private PropertyChangeListener[][] movementObservers;
+
+  /**
+   * Creates an empty store for the units of a map.
+   *
+   * @param field
+   *     the map where the units stand
+   */
+  public UnitStore(@NotNull final Field field) {
+    this(field, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates an empty store with room for some units, the store grows when more are added.
+   *
+   * @param field
+   *     the map where the units stand
+   * @param capacity
+   *     the number of units expected
+   */
+  public UnitStore(@NotNull final Field field, final int capacity) {
+    this.field = field;
+    int length = Math.max(1, capacity);
+    hitPoints = new double[length];
+    maxHitPoints = new double[length];
+    movements = new int[length];
+    positions = new int[length];
+    owners = new int[length];
+    types = new byte[length];
+    equippedItems = new int[length];
+  }
+
+  private static void allow(final UnitType unit, final ItemType item) {
+    EQUIPABLE[unit.ordinal() * ITEM_TYPES.length + item.ordinal()] = true;
+  }
+
+  /**
+   * Adds a unit to the store.
+   *
+   * @param type
+   *     the kind of unit
+   * @param hitPoints
+   *     the maximum amount of damage the unit can sustain
+   * @param movement
+   *     the number of panels the unit can move
+   * @param location
+   *     the cell of the unit, or null if the unit isn't on the map yet
+   * @return the number of the new unit
+   * @throws IllegalArgumentException
+   *     if the cell isn't a free cell of the map
+   */
+  public int add(@NotNull final UnitType type, final int hitPoints, final int movement,
+      final Location location) {
+    int position = location == null ? EMPTY : field.positionOf(location);
+    if (location != null && (position < 0 || !isFree(position, location))) {
+      throw new IllegalArgumentException("The cell " + location + " isn't a free cell of the map");
+    }
+    if (size == this.hitPoints.length) {
+      grow();
+    }
+    int unit = size++;
+    this.hitPoints[unit] = hitPoints;
+    maxHitPoints[unit] = hitPoints;
+    movements[unit] = movement;
+    positions[unit] = position;
+    owners[unit] = EMPTY;
+    types[unit] = (byte) type.ordinal();
+    equippedItems[unit] = EMPTY;
+    if (position >= 0) {
+      occupy(position, unit);
+    }
+    return unit;
+  }
+
+  /**
+   * @param unit
+   *     any unit of the game
+   * @return the kind of the unit, {@link UnitType#OTHER} for the units that can't be stored
+   */
+  public static UnitType typeOf(@NotNull final IUnit unit) {
+    if (unit instanceof StoredUnit) {
+      return ((StoredUnit) unit).getType();
+    } else if (unit instanceof Alpaca) {
+      return UnitType.ALPACA;
+    } else if (unit instanceof Archer) {
+      return UnitType.ARCHER;
+    } else if (unit instanceof Cleric) {
+      return UnitType.CLERIC;
+    } else if (unit instanceof Fighter) {
+      return UnitType.FIGHTER;
+    } else if (unit instanceof Hero) {
+      return UnitType.HERO;
+    } else if (unit instanceof Sorcerer) {
+      return UnitType.SORCERER;
+    } else if (unit instanceof SwordMaster) {
+      return UnitType.SWORDMASTER;
+    }
+    return UnitType.OTHER;
+  }
+
+  /**
+   * Registers an item, the units of the store equip the items by number. The store reads the
+   * type, the power and the range of the item once, every unit that equips it shares them.
+   *
+   * @param item
+   *     the item
+   * @return the number of the item
+   */
+  public int addItem(@NotNull final IEquipableItem item) {
+    if (itemCount == items.length) {
+      int length = itemCount * 2;
+      items = Arrays.copyOf(items, length);
+      itemTypes = Arrays.copyOf(itemTypes, length);
+      powers = Arrays.copyOf(powers, length);
+      minRanges = Arrays.copyOf(minRanges, length);
+      maxRanges = Arrays.copyOf(maxRanges, length);
+    }
+    int number = itemCount++;
+    items[number] = item;
+    itemTypes[number] = (byte) item.getType().ordinal();
+    powers[number] = item.getPower();
+    minRanges[number] = item.getMinRange();
+    maxRanges[number] = item.getMaxRange();
+    return number;
+  }
+
+  /**
+   * Equips a registered item to a unit, if the kind of unit can use it.
+   *
+   * @param unit
+   *     the number of the unit
+   * @param item
+   *     the number of the item, or {@link #EMPTY} to leave the unit without items
+   * @return true if the unit equipped the item
+   */
+  public boolean equip(final int unit, final int item) {
+    if (item != EMPTY
+        && !EQUIPABLE[types[unit] * ITEM_TYPES.length + itemTypes[item]]) {
+      return false;
+    }
+    equippedItems[unit] = item;
+    return true;
+  }
+
+  /**
+   * Equips an item to a unit, registering the item the first time it's equipped.
+   *
+   * @param unit
+   *     the number of the unit
+   * @param item
+   *     the item
+   * @return true if the unit equipped the item
+   */
+  boolean equip(final int unit, @NotNull final IEquipableItem item) {
+    for (int i = 0; i < itemCount; i++) {
+      if (items[i] == item) {
+        return equip(unit, i);
+      }
+    }
+    return EQUIPABLE[types[unit] * ITEM_TYPES.length + item.getType().ordinal()]
+        && equip(unit, addItem(item));
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @param tactician
+   *     the new owner of the unit, or null to leave it without owner
+   */
+  public void setTactician(final int unit, final Tactician tactician) {
+    int owner = tactician == null ? EMPTY : tacticians.indexOf(tactician);
+    if (tactician != null && owner < 0) {
+      owner = tacticians.size();
+      tacticians.add(tactician);
+    }
+    owners[unit] = owner;
+    Location cell = views != null && views[unit] != null ? getLocation(unit) : null;
+    if (cell != null && cell.getUnit() == views[unit]) {
+      // the index of the units of the map groups them by owner
+      cell.setUnit(views[unit]);
+    }
+  }
+
+  /**
+   * @return the number of units in the store
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the map where the units stand
+   */
+  public Field getField() {
+    return field;
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the current hit points of the unit
+   */
+  public double getHitPoints(final int unit) {
+    return hitPoints[unit];
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @param hitPoints
+   *     the new current hit points of the unit, up to its maximum
+   */
+  public void setHitPoints(final int unit, final double hitPoints) {
+    this.hitPoints[unit] = Math.min(hitPoints, maxHitPoints[unit]);
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the maximum hit points of the unit
+   */
+  public double getMaxHitPoints(final int unit) {
+    return maxHitPoints[unit];
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the number of panels the unit can move
+   */
+  public int getMovement(final int unit) {
+    return movements[unit];
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the kind of unit
+   */
+  public UnitType getType(final int unit) {
+    return UNIT_TYPES[types[unit]];
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the owner of the unit, or null if it doesn't have one
+   */
+  public Tactician getTactician(final int unit) {
+    return owners[unit] == EMPTY ? null : tacticians.get(owners[unit]);
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the number of the item equipped by the unit, or {@link #EMPTY}
+   */
+  public int getEquippedItem(final int unit) {
+    return equippedItems[unit];
+  }
+
+  /**
+   * @param item
+   *     the number of a registered item
+   * @return the item
+   */
+  public IEquipableItem getItem(final int item) {
+    return items[item];
+  }
+
+  /**
+   * @param unit
+   *     the number of the unit
+   * @return the cell of the unit, or null if it isn't on the map
+   */
+  public Location getLocation(final int unit) {
+    int position = positionOf(unit);
+    return position == EMPTY ? null : field.getCellAt(position);
+  }
+
+  /**
+   * @param cell
+   *     a cell of the map
+   * @return the number of the unit of the store in the cell, or {@link #EMPTY}
+   */
+  public int unitAt(@NotNull final Location cell) {
+    int position = field.positionOf(cell);
+    if (position < 0 || position >= occupants.length || occupants[position] == EMPTY) {
+      return EMPTY;
+    }
+    return positionOf(occupants[position]) == position ? occupants[position] : EMPTY;
+  }
+
+  /**
+   * Gives the position of the cell of a unit. A unit with a view leaves the map when its view is
+   * taken out of its cell, as the tacticians do with the units they lose, so the store and the
+   * cells of the map always agree on who stands in a cell.
+   *
+   * @return the position of the unit in the grid of the map, or {@link #EMPTY}
+   */
+  private int positionOf(final int unit) {
+    int position = positions[unit];
+    if (position != EMPTY && views != null && views[unit] != null
+        && field.getCellAt(position).getUnit() != views[unit]) {
+      occupants[position] = EMPTY;
+      positions[unit] = EMPTY;
+      return EMPTY;
+    }
+    return position;
+  }
+
+  /**
+   * Gives a view of a unit, the same view every time. The view is put in the cell of the unit,
+   * from then on the moves of the unit also update the cells of the map.
+   *
+   * @param unit
+   *     the number of the unit
+   * @return the unit seen as any other unit of the game
+   */
+  public StoredUnit getUnit(final int unit) {
+    if (unit < 0 || unit >= size) {
+      throw new IndexOutOfBoundsException("There isn't a unit " + unit + " in the store");
+    }
+    if (views == null) {
+      views = new StoredUnit[hitPoints.length];
+    }
+    if (views[unit] == null) {
+      Location cell = getLocation(unit);
+      views[unit] = new StoredUnit(this, unit);
+      if (cell != null && cell.getUnit() == null) {
+        cell.setUnit(views[unit]);
+      }
+    }
+    return views[unit];
+  }
+
+  /**
+   * @return the number of a view of this store, or {@link #EMPTY} if the unit isn't stored here
+   */
+  int numberOf(final IUnit unit) {
+    if (unit instanceof StoredUnit && ((StoredUnit) unit).getStore() == this) {
+      return ((StoredUnit) unit).getNumber();
+    }
+    return EMPTY;
+  }
+
+  /**
+   * A unit with an owner uses its item on the units of other tacticians, the clerics on the
+   * units of its own tactician. A unit without owner uses its item on any unit.
+   *
+   * @return true if the first unit can use its item on the second one
+   */
+  private boolean canTarget(final int unit, final int target) {
+    int owner = owners[unit];
+    return owner == EMPTY || (owners[target] == owner) == (types[unit] == CLERIC);
+  }
+
+  /**
+   * Resolves the attack of a unit to another and the counterattack, with the rules of
+   * {@link CombatEngine}. The clerics heal the units of their tactician instead.
+   *
+   * @param attacker
+   *     the number of the unit that starts the combat
+   * @param defender
+   *     the number of the unit attacked
+   * @return true if the attacker could use its item on the defender
+   */
+  public boolean attack(final int attacker, final int defender) {
+    return attack(attacker, defender, EMPTY);
+  }
+
+  /**
+   * Resolves the attack of a unit to another whose distance is already known.
+   *
+   * @param attacker
+   *     the number of the unit that starts the combat
+   * @param defender
+   *     the number of the unit attacked
+   * @param distance
+   *     the number of steps between the units, or -1 to search it
+   * @return true if the attacker could use its item on the defender
+   */
+  public boolean attack(final int attacker, final int defender, final int distance) {
+    int weapon = equippedItems[attacker];
+    if (weapon == EMPTY || hitPoints[attacker] <= 0 || hitPoints[defender] <= 0
+        || !canTarget(attacker, defender)) {
+      return false;
+    }
+    int steps = distance < 0 ? distance(attacker, defender, maxRanges[weapon]) : distance;
+    if (steps < minRanges[weapon] || steps > maxRanges[weapon]) {
+      return false;
+    }
+    if (itemTypes[weapon] == STAFF) {
+      hitPoints[defender] = Math.min(hitPoints[defender] + powers[weapon],
+          maxHitPoints[defender]);
+      return true;
+    }
+    int shield = equippedItems[defender];
+    ItemType weaponType = ITEM_TYPES[itemTypes[weapon]];
+    ItemType shieldType = ITEM_TYPES[shield == EMPTY ? OTHER : itemTypes[shield]];
+    receiveDamage(defender,
+        CombatEngine.damage(powers[weapon], CombatEngine.getAttackEffect(weaponType, shieldType)));
+    int counter = CombatEngine.getCounterEffect(weaponType, shieldType);
+    if (counter != CombatEngine.NONE && hitPoints[attacker] > 0 && hitPoints[defender] > 0
+        && steps >= minRanges[shield] && steps <= maxRanges[shield]) {
+      receiveDamage(attacker, CombatEngine.damage(powers[shield], counter));
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of steps between the cells of two units, or {@link Field#UNREACHABLE}
+   *     if one of them isn't on the map or they are further than the limit
+   */
+  int distance(final int unit, final int other, final int limit) {
+    int from = positionOf(unit),
+        to = positionOf(other);
+    if (from == EMPTY || to == EMPTY) {
+      return Field.UNREACHABLE;
+    }
+    return field.distance(field.getCellAt(from), field.getCellAt(to), limit);
+  }
+
+  /**
+   * Subtracts hit points from a unit and tells the listeners of the unit, if it has any.
+   *
+   * @param unit
+   *     the number of the unit
+   * @param damage
+   *     the hit points lost
+   */
+  void receiveDamage(final int unit, final double damage) {
+    double init = hitPoints[unit];
+    hitPoints[unit] -= damage;
+    if (listeners != null && listeners[unit] != null && init != hitPoints[unit]) {
+      for (UnitListener listener : listeners[unit]) {
+        listener.onHpChanged(views[unit], init, hitPoints[unit]);
+      }
+    }
+  }
+
+  /**
+   * Adds hit points to a unit, up to its maximum.
+   */
+  void receiveRecovery(final int unit, final double recovery) {
+    hitPoints[unit] = Math.min(hitPoints[unit] + recovery, maxHitPoints[unit]);
+  }
+
+  /**
+   * Moves a unit to a free cell that it can reach with its movement, with the rule of
+   * {@link Field#canReach(Location, Location, int)}: the cells that hold a unit of the map block
+   * the way.
+   *
+   * @param unit
+   *     the number of the unit
+   * @param target
+   *     the cell where the unit goes
+   * @return true if the unit moved
+   */
+  public boolean moveTo(final int unit, @NotNull final Location target) {
+    int from = positionOf(unit);
+    int to = field.positionOf(target);
+    if (from == EMPTY || to < 0 || !isFree(to, target)) {
+      return false;
+    }
+    Location origin = field.getCellAt(from);
+    if (!field.canReach(origin, target, movements[unit])) {
+      return false;
+    }
+    relocate(unit, to);
+    if (listeners != null && listeners[unit] != null) {
+      for (UnitListener listener : listeners[unit]) {
+        listener.onMoved(views[unit], origin, target);
+      }
+    }
+    if (movementObservers != null && movementObservers[unit] != null) {
+      PropertyChangeEvent event =
+          new PropertyChangeEvent(views[unit], "unit-moved", origin, target);
+      for (PropertyChangeListener observer : movementObservers[unit]) {
+        observer.propertyChange(event);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Puts a unit in a free cell, without checking the movement of the unit.
+   *
+   * @param unit
+   *     the number of the unit
+   * @param target
+   *     the cell where the unit is put
+   * @return true if the cell was free
+   */
+  public boolean place(final int unit, @NotNull final Location target) {
+    int to = field.positionOf(target);
+    if (to < 0 || !isFree(to, target)) {
+      return false;
+    }
+    relocate(unit, to);
+    return true;
+  }
+
+  /**
+   * Changes the cell of a unit, and the cells of the map if the unit has a view.
+   */
+  private void relocate(final int unit, final int position) {
+    int from = positionOf(unit);
+    if (from != EMPTY) {
+      occupants[from] = EMPTY;
+    }
+    positions[unit] = position;
+    occupy(position, unit);
+    if (views != null && views[unit] != null) {
+      if (from != EMPTY && field.getCellAt(from).getUnit() == views[unit]) {
+        field.getCellAt(from).setUnit(null);
+      }
+      field.getCellAt(position).setUnit(views[unit]);
+    }
+  }
+
+  /**
+   * @return true if neither a unit of the store nor any other unit is in the cell
+   */
+  private boolean isFree(final int position, final Location cell) {
+    return (position >= occupants.length || occupants[position] == EMPTY
+        || positionOf(occupants[position]) != position) && cell.getUnit() == null;
+  }
+
+  private void occupy(final int position, final int unit) {
+    if (position >= occupants.length) {
+      int length = occupants.length;
+      occupants = Arrays.copyOf(occupants, Math.max(position + 1, length * 2));
+      Arrays.fill(occupants, length, occupants.length, EMPTY);
+    }
+    occupants[position] = unit;
+  }
+
+  /**
+   * Adds a typed listener of the changes in the hit points and the cell of a unit with a view.
+   */
+  void addUnitListener(final int unit, @NotNull final UnitListener listener) {
+    if (listeners == null) {
+      listeners = new UnitListener[hitPoints.length][];
+    }
+    listeners[unit] = append(listeners[unit], listener, UnitListener[]::new);
+  }
+
+  /**
+   * Adds a listener of the moves of a unit with a view.
+   */
+  void addMovementObserver(final int unit, @NotNull final PropertyChangeListener observer) {
+    if (movementObservers == null) {
+      movementObservers = new PropertyChangeListener[hitPoints.length][];
+    }
+    movementObservers[unit] = append(movementObservers[unit], observer,
+        PropertyChangeListener[]::new);
+  }
+
+  private static <T> T[] append(final T[] array, final T element,
+      final IntFunction<T[]> creator) {
+    if (array == null) {
+      T[] result = creator.apply(1);
+      result[0] = element;
+      return result;
+    }
+    T[] result = Arrays.copyOf(array, array.length + 1);
+    result[array.length] = element;
+    return result;
+  }
+
+  /**
+   * Doubles the room of every array of the units.
+   */
+  private void grow() {
+    int length = hitPoints.length * 2;
+    hitPoints = Arrays.copyOf(hitPoints, length);
+    maxHitPoints = Arrays.copyOf(maxHitPoints, length);
+    movements = Arrays.copyOf(movements, length);
+    positions = Arrays.copyOf(positions, length);
+    owners = Arrays.copyOf(owners, length);
+    types = Arrays.copyOf(types, length);
+    equippedItems = Arrays.copyOf(equippedItems, length);
+    if (views != null) {
+      views = Arrays.copyOf(views, length);
+    }
+    if (listeners != null) {
+      listeners = Arrays.copyOf(listeners, length);
+    }
+    if (movementObservers != null) {
+      movementObservers = Arrays.copyOf(movementObservers, length);
+    }
+  }
+}
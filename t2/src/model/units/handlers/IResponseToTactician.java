@@ -30,13 +30,13 @@ import java.beans.PropertyChangeListener;
 
 /**
  * Interface that represent all the Listener that a IUnit have
- * when change a property
+ * when change a property, the units call them through the typed methods
  *
  * @author Sebastian Sepulveda
  * @version 1.0
  * @since 2.0
  */
-public interface IResponseToTactician extends PropertyChangeListener {
+public interface IResponseToTactician extends PropertyChangeListener, UnitListener {
     /**
      *
      * @return
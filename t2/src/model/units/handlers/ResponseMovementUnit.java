@@ -25,6 +25,7 @@
 package model.units.handlers;
 
 import controller.Tactician;
+import model.map.Location;
 import model.units.IUnit;
 
 import java.beans.PropertyChangeEvent;
@@ -55,8 +56,19 @@ public class ResponseMovementUnit implements IResponseToTactician {
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        IUnit unitMoved = (IUnit) evt.getSource();
-        player.addUnitMoved(unitMoved);
+        onMoved((IUnit) evt.getSource(), (Location) evt.getOldValue(), (Location) evt.getNewValue());
+    }
+
+    /**
+     * The unit that moved is added to the moves of the player
+     *
+     * @param unit that moved
+     * @param from cell where the unit was
+     * @param to cell where the unit is now
+     */
+    @Override
+    public void onMoved(IUnit unit, Location from, Location to) {
+        player.addUnitMoved(unit);
     }
 
     @Override
@@ -25,6 +25,7 @@
 package model.units.handlers;
 
 import controller.Tactician;
+import model.units.IUnit;
 import model.units.NormalUnit;
 
 import java.beans.PropertyChangeEvent;
@@ -49,6 +50,18 @@ public class ResponseNormalUnit implements IResponseToTactician {
         this.player = tactician;
     }
 
+    /**
+     * If the normal unit dies, it is removed of the player's inventory
+     *
+     * @param unit whose hit points changed
+     * @param oldHitPoints hit points before the change
+     * @param newHitPoints hit points after the change
+     */
+    @Override
+    public void onHpChanged(IUnit unit, double oldHitPoints, double newHitPoints) {
+        if(newHitPoints <= 0) player.removeUnit((NormalUnit) unit);
+    }
+
     /**
      * This method gets called when a bound property is changed.
      *
@@ -57,8 +70,7 @@ public class ResponseNormalUnit implements IResponseToTactician {
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        //System.out.println("HP change of: " +  evt.getOldValue() + " to: " + evt.getNewValue());
-        if((double) evt.getNewValue() <= 0) player.removeUnit((NormalUnit) evt.getSource());
+        onHpChanged((IUnit) evt.getSource(), (double) evt.getOldValue(), (double) evt.getNewValue());
     }
 
     @Override
@@ -25,6 +25,7 @@
 package model.units.handlers;
 
 import controller.Tactician;
+import model.units.IUnit;
 import model.units.SpecialUnit;
 
 import java.beans.PropertyChangeEvent;
@@ -48,6 +49,18 @@ public class ResponseSpecialUnit implements IResponseToTactician {
         this.player = tactician;
     }
 
+    /**
+     * If the special unit dies, the player loses
+     *
+     * @param unit whose hit points changed
+     * @param oldHitPoints hit points before the change
+     * @param newHitPoints hit points after the change
+     */
+    @Override
+    public void onHpChanged(IUnit unit, double oldHitPoints, double newHitPoints) {
+        if(newHitPoints <= 0) player.removeSpecialUnit((SpecialUnit) unit);
+    }
+
     /**
      * This method gets called when a bound property is changed.
      *
@@ -56,8 +69,7 @@ public class ResponseSpecialUnit implements IResponseToTactician {
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        //System.out.println("HP change of: " +  evt.getOldValue() + " to: " + evt.getNewValue());
-        if((double) evt.getNewValue() <= 0) player.removeSpecialUnit((SpecialUnit) evt.getSource());
+        onHpChanged((IUnit) evt.getSource(), (double) evt.getOldValue(), (double) evt.getNewValue());
     }
 
     @Override
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units.handlers;
+
+import model.map.Location;
+import model.units.IUnit;
+
+/**
+ * Typed listener of the changes of a unit.
+ * <p>
+ * The units keep these listeners in plain arrays and call them with the values of the change,
+ * so a hit or a move doesn't create an event object nor box the hit points. Every method does
+ * nothing by default, a listener only overrides the changes it cares about.
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ */
+public interface UnitListener {
+    /**
+     * Called when an attack or a hit changes the hit points of the unit
+     *
+     * @param unit whose hit points changed
+     * @param oldHitPoints hit points before the change
+     * @param newHitPoints hit points after the change
+     */
+    default void onHpChanged(IUnit unit, double oldHitPoints, double newHitPoints) { }
+
+    /**
+     * Called after the unit moves to another cell
+     *
+     * @param unit that moved
+     * @param from cell where the unit was
+     * @param to cell where the unit is now
+     */
+    default void onMoved(IUnit unit, Location from, Location to) { }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.items.Axe;
+import model.items.Sword;
+import model.map.Field;
+import model.map.Location;
+import model.units.Fighter;
+import model.units.IUnit;
+import model.units.NormalUnit;
+import model.units.SwordMaster;
+
+/**
+ * Compares {@link GameController#useItemsOn(IUnit[], IUnit[])} with selecting every attacker and
+ * calling {@link GameController#useItemOn(int, int)}, for the units of two tacticians that attack
+ * the enemies next to them many times.
+ * <p>
+ * Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class BatchCombatBenchmark {
+
+  private static final int SIZE = 64;
+  private static final int BATCHES = 200;
+
+  public static void main(String[] args) {
+    GameController controller = new GameController(2, SIZE);
+    controller.initEndlessGame();
+    Field map = controller.getGameMap();
+    Random random = new Random(SIZE);
+    // the units of the first tactician stand in the even rows and their enemies below them
+    for (int player = 0; player < 2; player++) {
+      for (int row = player; row < SIZE; row += 2) {
+        for (int col = 0; col < SIZE; col += 2) {
+          NormalUnit unit = random.nextBoolean()
+              ? new Fighter(Integer.MAX_VALUE, 2, null, new Axe("axe", 10, 1, 2))
+              : new SwordMaster(Integer.MAX_VALUE, 2, null, new Sword("sword", 10, 1, 2));
+          unit.equipItem(unit.getItems().get(0));
+          controller.addUnitToTactician(unit);
+          controller.putUnitInMap(unit, row, col);
+        }
+      }
+      controller.changeToNextTurn();
+    }
+    List<IUnit> attackers = new ArrayList<>();
+    List<IUnit> targets = new ArrayList<>();
+    // every unit attacks the enemies above and below it that are in range
+    for (int row = 0; row < SIZE; row += 2) {
+      for (int col = 0; col < SIZE; col += 2) {
+        IUnit attacker = map.getCell(row, col).getUnit();
+        for (int enemyRow : new int[]{row - 1, row + 1}) {
+          if (enemyRow < 0 || enemyRow >= SIZE) {
+            continue;
+          }
+          IUnit target = map.getCell(enemyRow, col).getUnit();
+          if (map.distance(attacker.getLocation(), target.getLocation()) <= 2) {
+            attackers.add(attacker);
+            targets.add(target);
+          }
+        }
+      }
+    }
+    IUnit[] attackerArray = attackers.toArray(new IUnit[0]);
+    IUnit[] targetArray = targets.toArray(new IUnit[0]);
+    System.out.println(attackerArray.length + " attacks in each batch");
+
+    // the first rounds let the compiler warm up both ways
+    for (int round = 0; round < 5; round++) {
+      double before = hitPoints(attackers, targets);
+      long start = System.nanoTime();
+      for (int batch = 0; batch < BATCHES; batch++) {
+        for (int i = 0; i < attackerArray.length; i++) {
+          Location attacker = attackerArray[i].getLocation();
+          Location target = targetArray[i].getLocation();
+          controller.selectUnitIn(attacker.getRow(), attacker.getColumn());
+          controller.useItemOn(target.getRow(), target.getColumn());
+        }
+      }
+      long single = System.nanoTime() - start;
+      double middle = hitPoints(attackers, targets);
+
+      start = System.nanoTime();
+      int attacks = 0;
+      for (int batch = 0; batch < BATCHES; batch++) {
+        attacks += controller.useItemsOn(attackerArray, targetArray);
+      }
+      long batched = System.nanoTime() - start;
+      if (attacks != BATCHES * attackerArray.length
+          || Math.abs((before - middle) - (middle - hitPoints(attackers, targets))) > 1e-3) {
+        throw new IllegalStateException("the batches don't match the single attacks");
+      }
+      long total = (long) BATCHES * attackerArray.length;
+      System.out.printf("round %d: single calls %d attacks/s, batches %d attacks/s, speedup %.1f%n",
+          round, total * 1_000_000_000L / single, total * 1_000_000_000L / batched,
+          (double) single / batched);
+    }
+  }
+
+  private static double hitPoints(List<IUnit> attackers, List<IUnit> targets) {
+    double total = 0;
+    for (int i = 0; i < attackers.size(); i++) {
+      total += attackers.get(i).getCurrentHitPoints() + targets.get(i).getCurrentHitPoints();
+    }
+    return total;
+  }
+}
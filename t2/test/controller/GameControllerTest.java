@@ -37,10 +37,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
@@ -539,6 +542,7 @@ class GameControllerTest {
     // System.out.println(controller.getGameMap().toString());
     controller.selectUnitIn(6,0);
     IUnit unitSelected = controller.getSelectedUnit();
+    assertFalse(controller.getReachableCells().contains(5,1));
     controller.moveToSelectedUnit(5,1);
     assertFalse(unitSelected.equals(controller.getGameMap().getCell(5,1).getUnit()));
     assertEquals(unitSelected.getLocation(), controller.getSelectedUnit().getLocation());
@@ -546,16 +550,26 @@ class GameControllerTest {
     // test moving unit to max movement
     controller.selectUnitIn(5,1);
     IUnit unitMoved = controller.getSelectedUnit();
+    assertTrue(controller.getReachableCells().contains(4,2));
+    assertEquals(controller.getGameMap().getCell(4,2),
+        controller.getPathOfSelectedUnit(4,2).get(controller.getPathOfSelectedUnit(4,2).size()-1));
     controller.moveToSelectedUnit(4,2);
     assertEquals(unitMoved,controller.getGameMap().getCell(4,2).getUnit());
     assertFalse(unitMoved.getLocation().equals(controller.getSelectedUnit()));
     // System.out.println(controller.getGameMap().toString());
 
-    // test move unit to position valid and there are not duplicate
+    // test a unit can't move over other, the same as the reachable cells
     controller.selectUnitIn(5,0);
     IUnit unitMovedOverOther =  controller.getSelectedUnit();
+    assertFalse(controller.getReachableCells().contains(6,1));
     controller.moveToSelectedUnit(6,1);
-    assertEquals(unitMovedOverOther, controller.getGameMap().getCell(6,1).getUnit());
+    assertNull(controller.getGameMap().getCell(6,1).getUnit());
+    assertEquals(unitMovedOverOther, controller.getGameMap().getCell(5,0).getUnit());
+
+    // test move unit to position valid and there are not duplicate
+    assertTrue(controller.getReachableCells().contains(3,0));
+    controller.moveToSelectedUnit(3,0);
+    assertEquals(unitMovedOverOther, controller.getGameMap().getCell(3,0).getUnit());
     // System.out.println(controller.getGameMap().toString());
     assertNull(controller.getGameMap().getCell(5,0).getUnit());
   }
@@ -564,25 +578,423 @@ class GameControllerTest {
   public void movedToUnitInGame(){
     controllerSmall.initGame(2);
     assignUnitToSmallController();
-    controllerSmall.selectUnitIn(0,0);
-    controllerSmall.moveToSelectedUnit(2,0);
+    // the units on the way block the moves, so the first row moves from its free end
+    controllerSmall.selectUnitIn(0,2);
+    controllerSmall.moveToSelectedUnit(0,4);
     assertEquals(1, controllerSmall.getTurnOwner().getMoves().size());
     assertEquals(1, controllerSmall.getUnitsMoved().size());
     controllerSmall.selectUnitIn(0,1);
-    controllerSmall.moveToSelectedUnit(2,1);
+    controllerSmall.moveToSelectedUnit(0,3);
     assertEquals(2, controllerSmall.getTurnOwner().getMoves().size());
     assertEquals(2, controllerSmall.getUnitsMoved().size());
-    controllerSmall.selectUnitIn(0,2);
-    controllerSmall.moveToSelectedUnit(2,2);
+    controllerSmall.selectUnitIn(0,0);
+    controllerSmall.moveToSelectedUnit(0,2);
     assertEquals(3, controllerSmall.getTurnOwner().getMoves().size());
     assertEquals(3, controllerSmall.getUnitsMoved().size());
     controllerSmall.selectUnitIn(1,1);
-    controllerSmall.moveToSelectedUnit(0,0);
+    controllerSmall.moveToSelectedUnit(0,1);
     assertEquals(4, controllerSmall.getUnitsMoved().size());
     assertEquals(3, controllerSmall.getTurnOwner().getMoves().size());
     System.out.println(controllerSmall.getGameMap().toString());
   }
 
+  @Test
+  public void enemyDistanceFieldInGame(){
+    controllerSmall.initGame(2);
+    assignUnitToSmallController();
+    Field map = controllerSmall.getGameMap();
+    Tactician owner = map.getCell(0,0).getUnit().getTactician();
+    Tactician enemy = map.getCell(1,0).getUnit().getTactician();
+    EnemyDistanceField distances = controllerSmall.createEnemyDistanceField(owner);
+    assertEquals(3, distances.getEnemyCount());
+    assertEquals(0, distances.distanceToEnemy(map.getCell(1,1)));
+    checkEnemyDistances(map, enemy, distances);
+    EnemyDistanceField disposed = controllerSmall.createEnemyDistanceField(owner);
+    disposed.dispose();
+
+    // the enemy moves away
+    controllerSmall.selectUnitIn(1,1);
+    controllerSmall.moveToSelectedUnit(3,1);
+    assertEquals(map.getCell(3,1), controllerSmall.getSelectedUnit().getLocation());
+    assertEquals(0, distances.distanceToEnemy(map.getCell(3,1)));
+    assertEquals(0, disposed.distanceToEnemy(map.getCell(1,1)));
+    checkEnemyDistances(map, enemy, distances);
+
+    // and dies
+    enemy.removeUnit((NormalUnit) controllerSmall.getSelectedUnit());
+    assertEquals(2, distances.getEnemyCount());
+    checkEnemyDistances(map, enemy, distances);
+
+    // moves of the own units don't change the distances
+    controllerSmall.selectUnitIn(0,0);
+    controllerSmall.moveToSelectedUnit(2,0);
+    checkEnemyDistances(map, enemy, distances);
+
+    // the hero dies and every unit of the enemy leaves the map
+    enemy.removeSpecialUnit((SpecialUnit) map.getCell(1,2).getUnit());
+    assertEquals(0, distances.getEnemyCount());
+    checkEnemyDistances(map, enemy, distances);
+  }
+
+  /**
+   * Compares the distance field with the distance from every cell to every enemy unit
+   */
+  private void checkEnemyDistances(Field map, Tactician enemy, EnemyDistanceField distances){
+    for(int row = 0; row < map.getSize(); row++){
+      for(int col = 0; col < map.getSize(); col++){
+        int nearest = Field.UNREACHABLE;
+        for(IUnit unit : enemy.getUnits()){
+          if(unit.getLocation().getUnit() == unit){
+            nearest = Math.min(nearest, map.distance(map.getCell(row,col), unit.getLocation()));
+          }
+        }
+        assertEquals(nearest, distances.distanceToEnemy(map.getCell(row,col)));
+        assertEquals(nearest, distances.getDistances()[row * distances.getWidth() + col]);
+      }
+    }
+  }
+
+  @Test
+  public void fogOfWarInGame(){
+    controllerSmall.initGame(2);
+    assignUnitToSmallController();
+    Field map = controllerSmall.getGameMap();
+    Tactician owner = map.getCell(0,0).getUnit().getTactician();
+    Tactician enemy = map.getCell(1,0).getUnit().getTactician();
+    FogOfWar fog = controllerSmall.createFogOfWar(1);
+    assertEquals(1, fog.getVisionRange());
+    checkFogOfWar(map, owner, fog, 1);
+    checkFogOfWar(map, enemy, fog, 1);
+    Set<Location> seen = new HashSet<>(fog.takeChangedCells(enemy));
+    assertEquals(fog.getVisibleCount(enemy), seen.size());
+    assertTrue(fog.takeChangedCells(enemy).isEmpty());
+    boolean[][] before = visibleCells(map, enemy, fog);
+    FogOfWar disposed = controllerSmall.createFogOfWar(1);
+    disposed.dispose();
+
+    // the enemy moves away, only the cells around the old and new location change
+    controllerSmall.selectUnitIn(1,1);
+    controllerSmall.moveToSelectedUnit(3,1);
+    assertTrue(fog.isVisible(enemy, 4, 1));
+    assertFalse(disposed.isVisible(enemy, 4, 1));
+    checkFogOfWar(map, enemy, fog, 1);
+    checkChangedCells(map, enemy, fog, before);
+
+    // and dies
+    before = visibleCells(map, enemy, fog);
+    enemy.removeUnit((NormalUnit) controllerSmall.getSelectedUnit());
+    assertFalse(fog.isVisible(enemy, 4, 1));
+    checkFogOfWar(map, enemy, fog, 1);
+    checkChangedCells(map, enemy, fog, before);
+
+    // moves of the own units don't change the cells seen by the enemy
+    controllerSmall.selectUnitIn(0,0);
+    controllerSmall.moveToSelectedUnit(2,0);
+    assertTrue(fog.takeChangedCells(enemy).isEmpty());
+    checkFogOfWar(map, owner, fog, 1);
+    assertFalse(fog.isVisible(owner, -1, 0));
+    assertThrows(IllegalArgumentException.class, () -> controllerSmall.createFogOfWar(-1));
+
+    // the hero dies and every unit of the enemy leaves the map
+    enemy.removeSpecialUnit((SpecialUnit) map.getCell(1,2).getUnit());
+    assertEquals(0, fog.getVisibleCount(enemy));
+    checkFogOfWar(map, enemy, fog, 1);
+  }
+
+  /**
+   * Compares the fog of war with the distance from every cell to every unit of the tactician
+   */
+  private void checkFogOfWar(Field map, Tactician tactician, FogOfWar fog, int range){
+    int visible = 0;
+    for(int row = 0; row < map.getSize(); row++){
+      for(int col = 0; col < map.getSize(); col++){
+        boolean seen = false;
+        for(IUnit unit : tactician.getUnits()){
+          Location location = unit.getLocation();
+          if(location.getUnit() == unit && Math.abs(location.getRow() - row)
+              + Math.abs(location.getColumn() - col) <= range){
+            seen = true;
+          }
+        }
+        assertEquals(seen, fog.isVisible(tactician, row, col));
+        visible += seen ? 1 : 0;
+      }
+    }
+    assertEquals(visible, fog.getVisibleCount(tactician));
+  }
+
+  private boolean[][] visibleCells(Field map, Tactician tactician, FogOfWar fog){
+    boolean[][] visible = new boolean[map.getSize()][map.getSize()];
+    for(int row = 0; row < map.getSize(); row++){
+      for(int col = 0; col < map.getSize(); col++){
+        visible[row][col] = fog.isVisible(tactician, row, col);
+      }
+    }
+    return visible;
+  }
+
+  /**
+   * Checks that the changed cells are exactly the cells whose visibility differs from before
+   */
+  private void checkChangedCells(Field map, Tactician tactician, FogOfWar fog, boolean[][] before){
+    Set<Location> changed = new HashSet<>(fog.takeChangedCells(tactician));
+    for(int row = 0; row < map.getSize(); row++){
+      for(int col = 0; col < map.getSize(); col++){
+        assertEquals(before[row][col] != fog.isVisible(tactician, row, col),
+            changed.contains(map.getCell(row, col)));
+      }
+    }
+    assertTrue(fog.takeChangedCells(tactician).isEmpty());
+  }
+
+  @Test
+  public void distanceCacheInGame(){
+    Field map = controllerSmall.getGameMap();
+    assertNotNull(map.getDistanceCache());
+    long misses = map.getDistanceCache().getMisses();
+    map.getCell(0,0).distanceTo(map.getCell(2,2));
+    map.getCell(2,2).distanceTo(map.getCell(0,0));
+    assertEquals(misses + 1, map.getDistanceCache().getMisses());
+    assertEquals(1, map.getDistanceCache().getHits());
+  }
+
+  @Test
+  public void targetsOfSelectedUnitInGame(){
+    controllerSmall.initGame(2);
+    assignUnitToSmallController();
+    controllerSmall.selectUnitIn(0,2);
+    assertTrue(controllerSmall.getTargetsOfSelectedUnit().isEmpty());
+    controllerSmall.equipItem(0);
+    IUnit unit = controllerSmall.getSelectedUnit();
+    IEquipableItem item = unit.getEquippedItem();
+    int distance = item.getDistance();
+    Field map = controllerSmall.getGameMap();
+    Tactician owner = unit.getTactician();
+    List<IUnit> targets = controllerSmall.getTargetsOfSelectedUnit();
+    // the attackers only target the units of other tacticians
+    assertEquals(targetsInRing(map, unit, false), new HashSet<>(targets));
+    assertFalse(targets.isEmpty());
+    assertTrue(targets.stream().noneMatch(owner::hasUnit));
+    assertEquals(targets.size(), new HashSet<>(targets).size());
+    assertEquals(distance, item.getDistance());
+
+    // the healers only target the units of their own tactician
+    Cleric cleric = new Cleric(50, 2, map.getCell(2,1), new Staff("Staff", 10, 1, 3));
+    cleric.equipItem(cleric.getItems().get(0));
+    owner.addUnitInventory(cleric);
+    Set<IUnit> allies = targetsInRing(map, cleric, true);
+    assertFalse(allies.isEmpty());
+    assertFalse(targetsInRing(map, cleric, false).isEmpty());
+    assertEquals(allies, new HashSet<>(cleric.getTargets()));
+  }
+
+  /**
+   * @return the other living units whose distance is in the range of the item of the unit,
+   * only the allies or only the enemies of the unit
+   */
+  private Set<IUnit> targetsInRing(Field map, IUnit unit, boolean allies){
+    IEquipableItem item = unit.getEquippedItem();
+    Set<IUnit> units = new HashSet<>();
+    for(int row = 0; row < map.getSize(); row++){
+      for(int col = 0; col < map.getSize(); col++){
+        IUnit other = map.getCell(row,col).getUnit();
+        int range = map.distance(unit.getLocation(), map.getCell(row,col));
+        if(other != null && other != unit && other.getCurrentHitPoints() > 0
+            && range >= item.getMinRange() && range <= item.getMaxRange()
+            && unit.getTactician().hasUnit(other) == allies){
+          units.add(other);
+        }
+      }
+    }
+    return units;
+  }
+
+  @Test
+  public void batchCombatInGame(){
+    controllerSmall.initGame(4);
+    assignUnitToSmallController();
+    Field map = controllerSmall.getGameMap();
+    for(int[] cell : new int[][]{{0,2},{1,1},{0,1}}){
+      controllerSmall.selectUnitIn(cell[0],cell[1]);
+      controllerSmall.equipItem(0);
+    }
+    IUnit alpaca0 = map.getCell(0,0).getUnit();
+    IUnit fighter0 = map.getCell(0,1).getUnit();
+    IUnit hero0 = map.getCell(0,2).getUnit();
+    IUnit fighter1 = map.getCell(1,1).getUnit();
+    List<Object> events = new java.util.ArrayList<>();
+    controllerSmall.addObserverCombat(evt -> events.add(evt.getNewValue()));
+
+    // only the units of the turn owner attack
+    assertTrue(controllerSmall.getTurnOwner().hasUnit(hero0));
+    assertEquals(1, controllerSmall.useItemsOn(new IUnit[]{fighter1, hero0},
+        new IUnit[]{hero0, fighter1}));
+    assertEquals(List.of(1), events);
+    assertEquals(35, hero0.getCurrentHitPoints());
+    assertEquals(50, fighter1.getCurrentHitPoints());
+    controllerSmall.changeToNextTurn();
+    assertEquals(0, controllerSmall.useItemsOn(new IUnit[]{hero0}, new IUnit[]{fighter1}));
+    assertEquals(1, controllerSmall.useItemsOn(new IUnit[]{fighter1}, new IUnit[]{hero0}));
+    assertEquals(List.of(1, 0, 1), events);
+    controllerSmall.changeToNextTurn();
+    events.clear();
+
+    // the same attacks of generateAttackInGame, plus attacks that can't be done
+    IUnit[] attackers = {hero0, fighter1, fighter0, alpaca0, fighter0, fighter1, fighter0};
+    IUnit[] targets = {fighter1, fighter0, fighter1, fighter1, hero0, fighter0, fighter1};
+    assertEquals(5, useItemsInTurns(attackers, targets));
+    assertEquals(5, events.stream().mapToInt(attacks -> (Integer) attacks).sum());
+    assertEquals(5, hero0.getCurrentHitPoints());
+    assertEquals(10, fighter0.getCurrentHitPoints());
+    assertEquals(10, fighter1.getCurrentHitPoints());
+    assertEquals(50, alpaca0.getCurrentHitPoints());
+
+    // the defeated units leave the game
+    useItemsInTurns(new IUnit[]{fighter0}, new IUnit[]{fighter1});
+    assertNull(map.getCell(1,1).getUnit());
+    assertEquals(fighter0, map.getCell(0,1).getUnit());
+    assertEquals(10, fighter0.getCurrentHitPoints());
+    assertEquals(0, controllerSmall.useItemsOn(new IUnit[]{fighter0}, new IUnit[]{fighter1}));
+    assertThrows(IllegalArgumentException.class,
+        () -> controllerSmall.useItemsOn(new IUnit[1], new IUnit[0]));
+  }
+
+  @Test
+  public void batchCombatMatchesSingleAttacks(){
+    // runs of the same attacker share a search, and some units die in the middle
+    int[][] pairs = {{0,2, 1,1}, {0,2, 1,1}, {0,2, 1,1}, {0,2, 1,1}, {1,1, 0,1}, {1,1, 0,1},
+        {1,1, 0,1}, {1,1, 0,1}, {1,1, 0,1}, {0,1, 1,1}, {0,1, 1,1}, {0,1, 1,1}, {0,1, 1,1},
+        {0,1, 1,1}, {0,1, 1,1}, {1,0, 0,0}};
+    double[] batch = hitPointsAfterAttacks(pairs, true);
+    controllerSmall = new GameController(2,6);
+    double[] single = hitPointsAfterAttacks(pairs, false);
+    assertArrayEquals(single, batch);
+  }
+
+  @Test
+  public void combatForecastInGame(){
+    controllerSmall.initGame(4);
+    assignUnitToSmallController();
+    Field map = controllerSmall.getGameMap();
+    for(int[] cell : new int[][]{{0,2},{1,1},{0,1}}){
+      controllerSmall.selectUnitIn(cell[0],cell[1]);
+      controllerSmall.equipItem(0);
+    }
+    IUnit alpaca0 = map.getCell(0,0).getUnit();
+    IUnit fighter0 = map.getCell(0,1).getUnit();
+    IUnit hero0 = map.getCell(0,2).getUnit();
+    IUnit fighter1 = map.getCell(1,1).getUnit();
+    assertThrows(IllegalArgumentException.class, () -> controllerSmall.createCombatForecast(0));
+    CombatForecast forecast = controllerSmall.createCombatForecast(10);
+    assertEquals(10, forecast.getRounds());
+
+    // the forecast never changes the units and is cached
+    CombatForecast.Outcome outcome = forecast.forecast(hero0, fighter1);
+    assertEquals(0, outcome.getDamage());
+    assertEquals(15, outcome.getCounterDamage());
+    assertEquals(50, hero0.getCurrentHitPoints());
+    assertEquals(50, fighter1.getCurrentHitPoints());
+    assertSame(outcome, forecast.forecast(hero0, fighter1));
+    assertEquals(1, forecast.getCacheSize());
+    List<CombatForecast.Outcome> outcomes =
+        forecast.forecast(fighter1, List.of(hero0, fighter0, alpaca0, fighter1));
+    assertEquals(50, hero0.getCurrentHitPoints());
+    assertSame(forecast.forecast(fighter1, fighter0), outcomes.get(1));
+    // the alpaca can't counterattack and a unit can't attack itself
+    assertEquals(0, outcomes.get(2).getCounterDamage());
+    assertEquals(1, outcomes.get(2).getSurvivalChance());
+    assertEquals(0, outcomes.get(3).getDamage());
+
+    // the forecasts match the attacks of the game
+    checkForecast(forecast, fighter1, hero0);
+    checkForecast(forecast, hero0, fighter1);
+    checkForecast(forecast, fighter0, fighter1);
+    assertTrue(fighter1.getCurrentHitPoints() <= 0);
+    forecast.clear();
+    assertEquals(0, forecast.getCacheSize());
+  }
+
+  /**
+   * Compares a forecast with the attacks of the attacker, the attacks change the units
+   */
+  private void checkForecast(CombatForecast forecast, IUnit attacker, IUnit defender){
+    CombatForecast.Outcome outcome = forecast.forecast(attacker, defender);
+    double attackerHitPoints = attacker.getCurrentHitPoints();
+    double defenderHitPoints = defender.getCurrentHitPoints();
+    attacker.attack(defender);
+    assertEquals(defenderHitPoints - defender.getCurrentHitPoints(), outcome.getDamage());
+    assertEquals(attackerHitPoints - attacker.getCurrentHitPoints(), outcome.getCounterDamage());
+    assertEquals(attacker.getCurrentHitPoints() > 0 ? 1 : 0, outcome.getSurvivalChance());
+    int rounds = 1;
+    while(rounds < forecast.getRounds() && defender.getCurrentHitPoints() > 0
+        && attacker.getCurrentHitPoints() > 0){
+      attacker.attack(defender);
+      rounds++;
+    }
+    assertEquals(defender.getCurrentHitPoints() <= 0 ? 1 : 0, outcome.getKillChance());
+    assertEquals(defender.getCurrentHitPoints() <= 0 ? rounds : -1, outcome.getRoundsToKill());
+  }
+
+  /**
+   * Plays the attacks with a batch or one by one in a new small game
+   *
+   * @return the hit points of the units of the game after the attacks
+   */
+  private double[] hitPointsAfterAttacks(int[][] pairs, boolean batch){
+    controllerSmall.initGame(10);
+    assignUnitToSmallController();
+    Field map = controllerSmall.getGameMap();
+    for(int[] cell : new int[][]{{0,2},{1,1},{0,1}}){
+      controllerSmall.selectUnitIn(cell[0],cell[1]);
+      controllerSmall.equipItem(0);
+    }
+    List<IUnit> units = new java.util.ArrayList<>();
+    for(int row = 0; row < 2; row++){
+      for(int col = 0; col < 3; col++){
+        units.add(map.getCell(row,col).getUnit());
+      }
+    }
+    if(batch){
+      IUnit[] attackers = new IUnit[pairs.length];
+      IUnit[] targets = new IUnit[pairs.length];
+      for(int i = 0; i < pairs.length; i++){
+        attackers[i] = map.getCell(pairs[i][0],pairs[i][1]).getUnit();
+        targets[i] = map.getCell(pairs[i][2],pairs[i][3]).getUnit();
+      }
+      useItemsInTurns(attackers, targets);
+    }
+    else{
+      for(int[] pair : pairs){
+        controllerSmall.selectUnitIn(pair[0],pair[1]);
+        controllerSmall.useItemOn(pair[2],pair[3]);
+      }
+    }
+    return units.stream().mapToDouble(IUnit::getCurrentHitPoints).toArray();
+  }
+
+  /**
+   * Uses the items of the attackers in batches, each run of attackers of the same tactician in
+   * the turn of its tactician
+   *
+   * @return the number of attacks that were done
+   */
+  private int useItemsInTurns(IUnit[] attackers, IUnit[] targets){
+    int attacks = 0;
+    int end;
+    for(int start = 0; start < attackers.length; start = end){
+      Tactician owner = attackers[start].getTactician();
+      end = start + 1;
+      while(end < attackers.length && attackers[end].getTactician() == owner) end++;
+      for(int turn = 0; turn < controllerSmall.getTacticians().size()
+          && controllerSmall.getTurnOwner() != owner; turn++){
+        controllerSmall.changeToNextTurn();
+      }
+      attacks += controllerSmall.useItemsOn(Arrays.copyOfRange(attackers, start, end),
+          Arrays.copyOfRange(targets, start, end));
+    }
+    return attacks;
+  }
+
   @Test
   public void generateAttackInGame(){
     controllerSmall.initGame(4);
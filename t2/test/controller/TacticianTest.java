@@ -34,6 +34,9 @@ import model.units.factoryUnit.IFactoryUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -89,6 +92,53 @@ public class TacticianTest {
         assertTrue(tactician01.getUnits().contains(unit2));
     }
 
+    @Test
+    public void tacticianListener(){
+        List<String> changes = new ArrayList<>();
+        NormalUnit fighter = (NormalUnit) controller.getFighterFab().createUnit();
+        SpecialUnit hero = controller.getHeroFab().createUnit();
+        TacticianListener listener = new TacticianListener() {
+            @Override
+            public void onNormalUnitRemoved(Tactician tactician, NormalUnit unit, int oldUnits,
+                                            int newUnits) {
+                assertSame(fighter, unit);
+                changes.add("removed " + oldUnits + " -> " + newUnits);
+            }
+
+            @Override
+            public void onSpecialUnitRemoved(Tactician tactician, SpecialUnit unit) {
+                assertSame(hero, unit);
+                changes.add("special removed");
+            }
+
+            @Override
+            public void onStatusChanged(Tactician tactician) {
+                changes.add("status " + tactician.getStatus());
+            }
+
+            @Override
+            public void onUnitMoved(Tactician tactician, IUnit unit) {
+                assertSame(tactician01, tactician);
+                changes.add("moved " + tactician.getMoves().size());
+            }
+        };
+        tactician01.addTacticianListener(listener);
+        Field map = controller.getGameMap();
+        tactician01.addUnitInventory(fighter);
+        tactician01.addUnitHero(hero);
+        fighter.setLocation(map.getCell(0,0));
+        hero.setLocation(map.getCell(4,4));
+        fighter.moveTo(map.getCell(0,1));
+        tactician01.removeUnit(fighter);
+        tactician01.removeSpecialUnit(hero);
+        tactician01.retire();
+        assertEquals(List.of("moved 1", "removed 2 -> 1", "special removed", "status false"),
+                changes);
+        tactician01.removeTacticianListener(listener);
+        tactician01.retire();
+        assertEquals(4, changes.size());
+    }
+
     @Test
     public void addNormalUnit(){
         NormalUnit normalUnit01 = (NormalUnit) controller.getFighterFab().createUnit();
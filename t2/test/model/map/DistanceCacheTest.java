@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test set for the cache of distances of a map.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class DistanceCacheTest {
+
+  private Field map;
+  private Field uncached;
+
+  @BeforeEach
+  void setUp() {
+    map = new SpanningTreeFactoryMap(20, 0.7).createMap();
+    uncached = new SpanningTreeFactoryMap(20, 0.7).createMap();
+    map.setDistanceCacheCapacity(3);
+  }
+
+  /**
+   * Checks the counters of the cache and the order in which the pairs are forgotten.
+   */
+  @Test
+  public void testLeastRecentlyUsed() {
+    DistanceCache cache = map.getDistanceCache();
+    assertEquals(3, cache.getCapacity());
+    Location a = map.getCell(0, 0),
+        b = map.getCell(19, 19),
+        c = map.getCell(5, 7),
+        d = map.getCell(12, 3);
+    map.distance(a, b);
+    map.distance(a, c);
+    map.distance(b, a);
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(2, cache.size());
+
+    map.distance(a, d);
+    map.distance(c, d);
+    assertEquals(1, cache.getEvictions());
+    // (a, c) was the least recently used pair
+    map.distance(a, b);
+    map.distance(c, a);
+    assertEquals(2, cache.getHits());
+    assertEquals(5, cache.getMisses());
+    assertEquals(2, cache.getEvictions());
+    assertEquals(3, cache.size());
+
+    map.setDistanceCacheCapacity(0);
+    assertNull(map.getDistanceCache());
+  }
+
+  /**
+   * Checks that a search that gave up at a limit only answers the queries with lower limits.
+   */
+  @Test
+  public void testLimits() {
+    DistanceCache cache = map.getDistanceCache();
+    Location a = map.getCell(0, 0),
+        b = map.getCell(19, 19);
+    int distance = uncached.distance(uncached.getCell(0, 0), uncached.getCell(19, 19));
+    assertEquals(Field.UNREACHABLE, map.distance(a, b, distance - 2));
+    assertEquals(Field.UNREACHABLE, map.distance(a, b, distance - 3));
+    assertEquals(1, cache.getHits());
+    assertEquals(distance, map.distance(a, b, distance));
+    assertEquals(2, cache.getMisses());
+    assertEquals(Field.UNREACHABLE, map.distance(a, b, distance - 1));
+    assertEquals(distance, map.distance(a, b, distance + 5));
+    assertEquals(3, cache.getHits());
+  }
+
+  /**
+   * Checks that the cached distances follow the changes of the connections.
+   */
+  @Test
+  public void testConnectionChanges() {
+    map.setDistanceCacheCapacity(100);
+    Random random = new Random(23);
+    Location[] cells = new Location[10];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = map.getCell(random.nextInt(20), random.nextInt(20));
+    }
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 30; i++) {
+        Location from = cells[random.nextInt(cells.length)],
+            to = cells[random.nextInt(cells.length)];
+        int limit = random.nextInt(40);
+        assertEquals(uncached.distance(uncached.getCell(from.getRow(), from.getColumn()),
+            uncached.getCell(to.getRow(), to.getColumn()), limit), map.distance(from, to, limit));
+      }
+      Location cell = map.getCell(random.nextInt(20), random.nextInt(20));
+      for (Location neighbour : cell.getNeighbours()) {
+        map.removeConnection(cell, neighbour);
+        uncached.removeConnection(uncached.getCell(cell.getRow(), cell.getColumn()),
+            uncached.getCell(neighbour.getRow(), neighbour.getColumn()));
+        break;
+      }
+    }
+    DistanceCache cache = map.getDistanceCache();
+    assertEquals(300, cache.getHits() + cache.getMisses());
+    assertEquals(0, cache.getEvictions());
+  }
+
+  /**
+   * Checks that the distances asked from other threads don't use the cache.
+   */
+  @Test
+  public void testOtherThreads() throws Exception {
+    map.setDistanceCacheCapacity(100);
+    DistanceCache cache = map.getDistanceCache();
+    Location a = map.getCell(0, 0),
+        b = map.getCell(19, 19);
+    int distance = map.distance(a, b);
+    assertEquals(1, cache.getMisses());
+    int[] others = new int[4];
+    Thread[] threads = new Thread[others.length];
+    for (int i = 0; i < threads.length; i++) {
+      int index = i;
+      threads[i] = new Thread(() -> {
+        for (int row = 0; row < 20; row++) {
+          others[index] += map.distance(a, map.getCell(row, 19 - row));
+        }
+        others[index] += map.distance(b, a);
+      });
+      threads[i].start();
+    }
+    int expected = distance;
+    for (int row = 0; row < 20; row++) {
+      expected += uncached.distance(uncached.getCell(0, 0), uncached.getCell(row, 19 - row));
+    }
+    for (int i = 0; i < threads.length; i++) {
+      threads[i].join();
+      assertEquals(expected, others[i]);
+    }
+    assertEquals(1, cache.getMisses());
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.size());
+    assertEquals(distance, map.distance(b, a));
+    assertEquals(1, cache.getHits());
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+
+/**
+ * Compares the incremental updates of a {@link DistanceField} with asking the distance to every
+ * unit, when a cell needs the distance to the nearest of many units that move one at a time.
+ * <p>
+ * Every step moves one unit to a neighbour cell and asks the distance to the nearest unit from a
+ * random cell. Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class DistanceFieldBenchmark {
+
+  private static final int SIZE = 256;
+  private static final int UNITS = 128;
+  private static final int STEPS = 200;
+
+  public static void main(String[] args) {
+    Field map = new SpanningTreeFactoryMap(SIZE).createMap();
+    Random random = new Random(SIZE);
+    Location[] units = new Location[UNITS];
+    DistanceField distances = new DistanceField(map);
+    for (int i = 0; i < UNITS; i++) {
+      units[i] = map.getCell(random.nextInt(SIZE), random.nextInt(SIZE));
+      distances.addSource(units[i]);
+    }
+    int[] moved = new int[STEPS];
+    Location[] targets = new Location[STEPS],
+        queries = new Location[STEPS];
+    Location[] positions = units.clone();
+    for (int i = 0; i < STEPS; i++) {
+      moved[i] = random.nextInt(UNITS);
+      Location[] neighbours = positions[moved[i]].getNeighbours().toArray(new Location[0]);
+      targets[i] = neighbours[random.nextInt(neighbours.length)];
+      positions[moved[i]] = targets[i];
+      queries[i] = map.getCell(random.nextInt(SIZE), random.nextInt(SIZE));
+    }
+
+    long check = 0;
+    long start = System.nanoTime();
+    positions = units.clone();
+    for (int i = 0; i < STEPS; i++) {
+      positions[moved[i]] = targets[i];
+      int nearest = Field.UNREACHABLE;
+      for (Location unit : positions) {
+        nearest = Math.min(nearest, map.distance(queries[i], unit));
+      }
+      check += nearest;
+    }
+    long naive = (System.nanoTime() - start) / STEPS;
+
+    int visited = distances.getVisitedCells();
+    start = System.nanoTime();
+    positions = units.clone();
+    for (int i = 0; i < STEPS; i++) {
+      distances.removeSource(positions[moved[i]]);
+      positions[moved[i]] = targets[i];
+      distances.addSource(targets[i]);
+      check -= distances.distance(queries[i]);
+    }
+    long incremental = (System.nanoTime() - start) / STEPS;
+    if (check != 0) {
+      throw new IllegalStateException("the distance field gave a wrong distance");
+    }
+
+    start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      DistanceField full = new DistanceField(map);
+      for (Location unit : positions) {
+        full.addSource(unit);
+      }
+      full.distance(queries[i]);
+      full.dispose();
+    }
+    long rebuild = (System.nanoTime() - start) / 10;
+
+    System.out.printf("per-unit searches: %d ns/step%n", naive);
+    System.out.printf("incremental field: %d ns/step, %d cells/step%n", incremental,
+        (distances.getVisitedCells() - visited) / STEPS);
+    System.out.printf("field from scratch: %d ns%n", rebuild);
+    System.out.printf("speedup: %.1f%n", (double) naive / incremental);
+  }
+}
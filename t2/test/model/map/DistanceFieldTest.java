@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test set for the multi-source distance fields.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class DistanceFieldTest {
+
+  private Field map;
+  private DistanceField distances;
+  private List<Location> sources;
+
+  @BeforeEach
+  void setUp() {
+    SpanningTreeFactoryMap factory = new SpanningTreeFactoryMap(30, 0.7);
+    factory.setNumLong(8);
+    map = factory.createMap();
+    distances = new DistanceField(map);
+    sources = new ArrayList<>();
+  }
+
+  /**
+   * Checks every distance against the distances to each one of the sources.
+   */
+  private void checkDistances() {
+    int[] all = distances.getDistances();
+    int width = distances.getWidth();
+    for (int row = 0; row < width; row++) {
+      for (int col = 0; col < width; col++) {
+        Location cell = map.getCell(row, col);
+        int expected = Field.UNREACHABLE;
+        for (int i = 0; i < sources.size() && !(cell instanceof InvalidLocation); i++) {
+          Location source = sources.get(i);
+          expected = Math.min(expected, map.distance(cell, source));
+        }
+        assertEquals(expected, distances.distance(cell));
+        assertEquals(expected, all[row * width + col]);
+      }
+    }
+  }
+
+  /**
+   * Checks the distances while the sources are added and removed.
+   */
+  @Test
+  public void testSources() {
+    checkDistances();
+    Random random = new Random(7);
+    for (int i = 0; i < 60; i++) {
+      if (sources.isEmpty() || random.nextInt(3) > 0) {
+        Location cell = map.getCell(random.nextInt(30), random.nextInt(30));
+        sources.add(cell);
+        distances.addSource(cell);
+      } else {
+        distances.removeSource(sources.remove(random.nextInt(sources.size())));
+      }
+      checkDistances();
+    }
+    while (!sources.isEmpty()) {
+      distances.removeSource(sources.remove(sources.size() - 1));
+      checkDistances();
+    }
+    // cells outside the map are ignored
+    distances.addSource(new Location(0, 0));
+    distances.removeSource(new Location(0, 0));
+    assertEquals(Field.UNREACHABLE, distances.distance(new Location(0, 0)));
+  }
+
+  /**
+   * Checks that the updates visit fewer cells than computing the whole field again.
+   */
+  @Test
+  public void testIncrementalUpdates() {
+    for (int i = 0; i < 10; i++) {
+      Location cell = map.getCell(3 * i, 29 - 3 * i);
+      sources.add(cell);
+      distances.addSource(cell);
+    }
+    checkDistances();
+    int visited = distances.getVisitedCells();
+    Location moved = sources.remove(4);
+    distances.removeSource(moved);
+    Location target = moved.getNeighbours().iterator().next();
+    sources.add(target);
+    distances.addSource(target);
+    checkDistances();
+    assertTrue(distances.getVisitedCells() - visited < 900);
+  }
+
+  /**
+   * Checks that the distances follow the changes of the connections and the size of the map.
+   */
+  @Test
+  public void testConnectionChanges() {
+    Random random = new Random(11);
+    for (int i = 0; i < 5; i++) {
+      Location cell = map.getCell(random.nextInt(30), random.nextInt(30));
+      sources.add(cell);
+      distances.addSource(cell);
+    }
+    checkDistances();
+    for (int i = 0; i < 20; i++) {
+      Location cell = map.getCell(random.nextInt(30), random.nextInt(30));
+      for (Location neighbour : cell.getNeighbours()) {
+        map.removeConnection(cell, neighbour);
+        break;
+      }
+      checkDistances();
+    }
+    Location far = new Location(40, 40);
+    map.addCells(true, far, new Location(39, 40));
+    checkDistances();
+    sources.add(far);
+    distances.addSource(far);
+    checkDistances();
+
+    distances.dispose();
+    map.removeConnection(sources.get(0), sources.get(0).getNeighbours().iterator().next());
+    assertTrue(distances.getWidth() > 0);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+/**
+ * Measures the cost of the distance queries of the field on square maps of growing size.
+ * <p>
+ * The searches visit every cell at most once, so the time per query divided by the number of
+ * cells should stay roughly constant while the size of the map grows. The second part shows the
+ * memory and build time of the precomputed distance tables, to choose the limit of the field.
+ * Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class FieldDistanceBenchmark {
+
+  private static final int REPETITIONS = 20;
+
+  public static void main(String[] args) {
+    System.out.println("size\tcells\tns/query\tns/cell");
+    for (int size : new int[]{10, 20, 50, 100, 200, 400}) {
+      Field map = createMap(size);
+      Location from = map.getCell(0, 0);
+      Location to = map.getCell(size - 1, size - 1);
+      map.distance(from, to);
+      long start = System.nanoTime();
+      for (int i = 0; i < REPETITIONS; i++) {
+        map.distance(from, to);
+      }
+      long perQuery = (System.nanoTime() - start) / REPETITIONS;
+      int cells = size * size;
+      System.out.println(size + "\t" + cells + "\t" + perQuery + "\t" + perQuery / cells);
+    }
+    System.out.println();
+    System.out.println("size\tcells\ttable bytes\tbuild ms\tns/query");
+    for (int size : new int[]{10, 20, 30, 50, 70}) {
+      Field map = createMap(size);
+      map.setDistanceTableLimit(size * size);
+      DistanceTable table = map.getDistanceTable();
+      Location from = map.getCell(0, 0);
+      Location to = map.getCell(size - 1, size - 1);
+      long start = System.nanoTime();
+      for (int i = 0; i < REPETITIONS; i++) {
+        map.distance(from, to);
+      }
+      long perQuery = (System.nanoTime() - start) / REPETITIONS;
+      System.out.println(size + "\t" + size * size + "\t" + table.getMemoryUse() + "\t"
+          + table.getBuildTime() / 1_000_000 + "\t" + perQuery);
+    }
+  }
+
+  /**
+   * Creates a square map with all its cells connected.
+   */
+  static Field createMap(final int size) {
+    Field map = new Field();
+    Location[] cells = new Location[size * size];
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        cells[row * size + col] = new Location(row, col);
+      }
+    }
+    map.addCells(true, cells);
+    return map;
+  }
+}
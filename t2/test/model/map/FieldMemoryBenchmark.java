@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares the memory used per cell by a fully connected field with the memory the same
+ * neighbourhoods would use stored in one <code>HashSet</code> per cell, as locations did before
+ * keeping their neighbours in one slot per direction.
+ * Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class FieldMemoryBenchmark {
+
+  public static void main(String[] args) {
+    int size = 500;
+    int cells = size * size;
+
+    long before = usedMemory();
+    Field map = FieldDistanceBenchmark.createMap(size);
+    long fieldBytes = usedMemory() - before;
+
+    before = usedMemory();
+    Set<?>[] neighbourSets = new Set<?>[cells];
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        neighbourSets[row * size + col] = new HashSet<>(map.getCell(row, col).getNeighbours());
+      }
+    }
+    long setBytes = usedMemory() - before;
+
+    // both structures must stay reachable until they are measured
+    System.out.println("cells: " + map.getSize() * map.getSize() + " = " + neighbourSets.length);
+    System.out.println("field bytes/cell (locations, slots and packed links): "
+        + fieldBytes / cells);
+    System.out.println("neighbourhood bytes/cell, slots and packed links: "
+        + (16 + 4 * Location.DIRECTIONS + 1));
+    System.out.println("neighbourhood bytes/cell, hash sets: " + setBytes / cells);
+  }
+
+  /**
+   * @return the bytes of the heap in use after collecting the garbage
+   */
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
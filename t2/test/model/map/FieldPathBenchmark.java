@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+
+/**
+ * Compares the A* search of {@link Field#findPath(Location, Location, PathConstraints)} with the
+ * plain breadth-first search of {@link Field#distance(Location, Location)} on random maps.
+ * <p>
+ * Both searches get the same random pairs of cells. A* also builds the list of cells of the
+ * path, while the breadth-first search only returns its length. Run it as a plain java program,
+ * it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class FieldPathBenchmark {
+
+  private static final int QUERIES = 50;
+
+  public static void main(String[] args) {
+    System.out.println("size\tbfs ns/query\ta* ns/query\tspeedup");
+    for (int size = 32; size <= 2048; size *= 2) {
+      Field map = new SpanningTreeFactoryMap(size).createMap();
+      map.setBidirectionalSearch(false);
+      Location[] from = new Location[QUERIES],
+          to = new Location[QUERIES];
+      Random random = new Random(size);
+      for (int i = 0; i < QUERIES; i++) {
+        from[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+        to[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+      }
+      long check = 0;
+      for (int i = 0; i < QUERIES; i++) {
+        check += map.distance(from[i], to[i]) - (map.findPath(from[i], to[i],
+            PathConstraints.NONE).size() - 1);
+      }
+      if (check != 0) {
+        throw new IllegalStateException("A* found a path that isn't the shortest");
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        map.distance(from[i], to[i]);
+      }
+      long bfs = (System.nanoTime() - start) / QUERIES;
+      start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        map.findPath(from[i], to[i], PathConstraints.NONE);
+      }
+      long aStar = (System.nanoTime() - start) / QUERIES;
+      System.out.printf("%d\t%d\t%d\t%.2f%n", size, bfs, aStar, (double) bfs / aStar);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import model.units.Fighter;
+import model.units.IUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test set for the snapshots of a map.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class FieldSnapshotTest {
+
+  private Field map;
+  private List<IUnit> units;
+  private Random random;
+
+  @BeforeEach
+  void setUp() {
+    map = new SpanningTreeFactoryMap(40, 0.7).createMap();
+    random = new Random(17);
+    units = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      Location cell = map.getCell(random.nextInt(40), random.nextInt(40));
+      if (cell.getUnit() == null) {
+        units.add(new Fighter(50, 5, cell));
+      }
+    }
+  }
+
+  /**
+   * Checks that a snapshot shows the same cells, connections and units as the map.
+   */
+  private void checkSnapshot(final FieldSnapshot snapshot) {
+    assertEquals(map.toString(), snapshot.toString());
+    for (int row = 0; row < snapshot.getSide(); row++) {
+      for (int col = 0; col < snapshot.getSide(); col++) {
+        Location cell = map.getCell(row, col);
+        assertEquals(!(cell instanceof InvalidLocation), snapshot.hasCell(row, col));
+        assertSame(cell.getUnit(), snapshot.getUnit(row, col));
+        assertEquals(cell.isNeighbour(map.getCell(row, col + 1)),
+            snapshot.checkConnection(row, col, row, col + 1));
+        assertEquals(cell.isNeighbour(map.getCell(row + 1, col)),
+            snapshot.checkConnection(row, col, row + 1, col));
+      }
+    }
+    for (int i = 0; i < 20; i++) {
+      int fromRow = random.nextInt(40),
+          fromCol = random.nextInt(40),
+          toRow = random.nextInt(40),
+          toCol = random.nextInt(40);
+      assertEquals(map.distance(map.getCell(fromRow, fromCol), map.getCell(toRow, toCol)),
+          snapshot.distance(fromRow, fromCol, toRow, toCol));
+    }
+  }
+
+  /**
+   * Changes the map: moves some units and removes some connections.
+   */
+  private void changeMap() {
+    for (int i = 0; i < 5; i++) {
+      IUnit unit = units.get(random.nextInt(units.size()));
+      unit.moveTo(map.getCell(random.nextInt(40), random.nextInt(40)));
+    }
+    Location cell = map.getCell(random.nextInt(40), random.nextInt(40));
+    for (Location neighbour : cell.getNeighbours()) {
+      map.removeConnection(cell, neighbour);
+      break;
+    }
+  }
+
+  /**
+   * Checks that the snapshots keep the state of the map when they were taken.
+   */
+  @Test
+  public void testSnapshots() {
+    FieldSnapshot first = map.snapshot();
+    checkSnapshot(first);
+    assertSame(first, map.snapshot());
+    String firstText = first.toString();
+
+    List<FieldSnapshot> snapshots = new ArrayList<>();
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      changeMap();
+      FieldSnapshot snapshot = map.snapshot();
+      checkSnapshot(snapshot);
+      snapshots.add(snapshot);
+      texts.add(snapshot.toString());
+    }
+    assertEquals(firstText, first.toString());
+    for (int i = 0; i < snapshots.size(); i++) {
+      assertEquals(texts.get(i), snapshots.get(i).toString());
+    }
+    assertTrue(snapshots.get(9).getOccupancyVersion() > first.getOccupancyVersion());
+    assertTrue(snapshots.get(9).getTopologyVersion() > first.getTopologyVersion());
+
+    // a bigger grid doesn't change the old snapshots either
+    FieldSnapshot before = map.snapshot();
+    Location far = new Location(44, 44);
+    map.addCells(true, far);
+    new Fighter(50, 5, far);
+    FieldSnapshot after = map.snapshot();
+    assertNotSame(before, after);
+    assertFalse(before.hasCell(44, 44));
+    assertNull(before.getUnit(44, 44));
+    assertTrue(after.hasCell(44, 44));
+    assertSame(far.getUnit(), after.getUnit(44, 44));
+    checkSnapshot(after);
+  }
+
+  /**
+   * Checks that other threads read consistent snapshots while the map changes.
+   */
+  @Test
+  public void testConcurrentReaders() throws Exception {
+    ExecutorService readers = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        FieldSnapshot snapshot = map.snapshot();
+        String text = snapshot.toString();
+        int distance = snapshot.distance(0, 0, 39, 39);
+        results.add(readers.submit(() -> {
+          boolean same = true;
+          for (int j = 0; j < 20; j++) {
+            same &= text.equals(snapshot.toString())
+                && distance == snapshot.distance(0, 0, 39, 39);
+          }
+          return same;
+        }));
+        changeMap();
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      readers.shutdown();
+    }
+  }
+
+  /**
+   * Checks the snapshots of a map whose cells are created on demand.
+   */
+  @Test
+  public void testMapOnDemand() {
+    Field lazy = Field.onDemand(40, map.getLinks().clone());
+    FieldSnapshot snapshot = lazy.snapshot();
+    assertEquals(map.toString().replace('o', '+'), snapshot.toString());
+    new Fighter(50, 5, lazy.getCell(3, 4));
+    lazy.removeConnection(lazy.getCell(3, 4), lazy.getCell(3, 4).getNeighbours().iterator()
+        .next());
+    assertNull(snapshot.getUnit(3, 4));
+    assertEquals(map.toString().replace('o', '+'), snapshot.toString());
+    assertTrue(snapshot.hasCell(39, 39));
+    assertSame(lazy.getCell(3, 4).getUnit(), lazy.snapshot().getUnit(3, 4));
+    assertEquals(lazy.toString(), lazy.snapshot().toString());
+  }
+}
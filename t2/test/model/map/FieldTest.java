@@ -26,8 +26,23 @@ package model.map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import model.units.Alpaca;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -95,6 +110,158 @@ class FieldTest {
     }
   }
 
+  /**
+   * Checks that the cells outside the map are represented by a single invalid location and that
+   * the map keeps its cells when it grows.
+   */
+  @Test
+  public void testInvalidCells() {
+    Location outside = map.getCell(3, 0);
+    assertEquals(new InvalidLocation(), outside);
+    assertSame(outside, map.getCell(-1, 2));
+    assertSame(outside, map.getCell(1, 7));
+    outside.setUnit(new Alpaca(50, 2, null));
+    assertNull(map.getCell(3, 0).getUnit());
+
+    Location farCell = new Location(10, 4);
+    map.addCells(true, farCell);
+    assertSame(farCell, map.getCell(10, 4));
+    assertSame(outside, map.getCell(9, 4));
+    assertEquals(10, map.getMap().size());
+    assertEquals(3, map.getSize());
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        assertEquals(new Location(row, col), map.getCell(row, col));
+      }
+    }
+    assertEquals(4, map.getCell(0, 0).distanceTo(map.getCell(2, 2)));
+  }
+
+  /**
+   * Checks that the reachable cells respect the movement and the cells occupied by other units.
+   */
+  @Test
+  public void testReachableWithin() {
+    Location location00 = map.getCell(0, 0);
+    ReachableCells reachable = map.reachableWithin(location00, 2);
+    assertEquals(5, reachable.size());
+    assertFalse(reachable.contains(location00));
+    assertTrue(reachable.contains(0, 2));
+    assertTrue(reachable.contains(map.getCell(1, 1)));
+    assertFalse(reachable.contains(1, 2));
+    assertFalse(reachable.contains(new Location(0, 1)));
+    assertEquals(1, location00.distanceTo(reachable.get(0)));
+
+    map.getCell(0, 1).setUnit(new Alpaca(50, 2, null));
+    assertSame(reachable, map.reachableWithin(location00, 2, reachable));
+    assertEquals(3, reachable.size());
+    assertTrue(reachable.contains(1, 0));
+    assertTrue(reachable.contains(2, 0));
+    assertTrue(reachable.contains(1, 1));
+    assertFalse(reachable.contains(0, 1));
+    assertFalse(reachable.contains(0, 2));
+
+    map.getCell(1, 0).setUnit(new Alpaca(50, 2, null));
+    assertEquals(0, map.reachableWithin(location00, 4, reachable).size());
+    assertEquals(0, map.reachableWithin(new Location(0, 0), 4).size());
+    reachable = map.reachableWithin(map.getCell(2, 2), 4);
+    assertEquals(5, reachable.toList().size());
+    assertFalse(reachable.contains(0, 0));
+  }
+
+  /**
+   * Checks that the same set can be reused on maps of different sizes.
+   */
+  @Test
+  public void testReachableReusedAcrossFields() {
+    Field small = new Field();
+    small.addCells(true, new Location(0, 0), new Location(0, 1), new Location(1, 0),
+        new Location(1, 1));
+    Location[] cells = new Location[49];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = new Location(i / 7, i % 7);
+    }
+    Field large = new Field();
+    large.addCells(true, cells);
+    ReachableCells reachable = small.reachableWithin(small.getCell(0, 0), 2);
+    assertEquals(3, reachable.size());
+    assertSame(reachable, large.reachableWithin(large.getCell(0, 0), 20, reachable));
+    assertEquals(48, reachable.size());
+    assertTrue(reachable.contains(6, 6));
+    assertFalse(reachable.contains(small.getCell(1, 1)));
+    small.reachableWithin(small.getCell(1, 1), 1, reachable);
+    assertEquals(2, reachable.size());
+    assertFalse(reachable.contains(large.getCell(0, 1)));
+    assertTrue(reachable.contains(0, 1));
+  }
+
+  /**
+   * Checks that the paths found are shortest and respect the constraints.
+   */
+  @Test
+  public void testFindPath() {
+    Location location00 = map.getCell(0, 0),
+        location22 = map.getCell(2, 2);
+    List<Location> path = map.findPath(location00, location22, PathConstraints.NONE);
+    assertEquals(5, path.size());
+    assertSame(location00, path.get(0));
+    assertSame(location22, path.get(4));
+    for (int i = 1; i < path.size(); i++) {
+      assertTrue(path.get(i - 1).isNeighbour(path.get(i)));
+    }
+    assertEquals(List.of(location00), map.findPath(location00, location00, PathConstraints.NONE));
+    assertTrue(map.findPath(location00, location22, new PathConstraints(3, false)).isEmpty());
+    assertTrue(map.findPath(location00, new Location(2, 2), PathConstraints.NONE).isEmpty());
+
+    // Only the path through (0, 2) is left
+    map.getCell(1, 0).setUnit(new Alpaca(50, 2, null));
+    map.getCell(1, 1).setUnit(new Alpaca(50, 2, null));
+    location00.setUnit(new Alpaca(50, 2, null));
+    path = map.findPath(location00, location22, PathConstraints.forMovement(4));
+    assertEquals(List.of(location00, map.getCell(0, 1), map.getCell(0, 2), map.getCell(1, 2),
+        location22), path);
+    assertEquals(5, map.findPath(location00, location22, new PathConstraints(4, false)).size());
+    map.getCell(0, 1).setUnit(new Alpaca(50, 2, null));
+    assertTrue(map.findPath(location00, location22, PathConstraints.forMovement(8)).isEmpty());
+    assertTrue(map.findPath(location22, map.getCell(0, 1), PathConstraints.forMovement(8))
+        .isEmpty());
+
+    // A longer detour around removed connections
+    Field field = new Field();
+    Location[] cells = new Location[25];
+    for (int i = 0; i < 25; i++) {
+      cells[i] = new Location(i / 5, i % 5);
+    }
+    field.addCells(true, cells);
+    for (int row = 0; row < 4; row++) {
+      field.removeConnection(field.getCell(row, 2), field.getCell(row, 3));
+    }
+    path = field.findPath(field.getCell(0, 0), field.getCell(0, 4), PathConstraints.NONE);
+    assertEquals(field.distance(field.getCell(0, 0), field.getCell(0, 4)), path.size() - 1);
+    assertEquals(13, path.size());
+  }
+
+  /**
+   * Checks that the map is written as text row by row.
+   */
+  @Test
+  public void testRender() throws IOException {
+    map.getCell(0, 0).setUnit(new Alpaca(50, 2, null));
+    map.removeConnection(map.getCell(1, 1), map.getCell(2, 1));
+    map.removeConnection(map.getCell(1, 1), map.getCell(1, 2));
+    String expected = " #  #  # \n"
+        + "#+  +  +#\n"
+        + "    #    \n"
+        + "    #    \n"
+        + "#+  +##+#\n"
+        + "#o  +  +#\n"
+        + " #  #  # \n";
+    StringWriter out = new StringWriter();
+    map.render(out);
+    assertEquals(expected, out.toString());
+    assertEquals(expected, map.toString());
+  }
+
   @Test
   public void testConnectedness() {
     for (int i = 0; i < 50; i++) {
@@ -109,6 +276,122 @@ class FieldTest {
     assertFalse(otherField.isConnected());
   }
 
+  /**
+   * Checks that the bridges of the map are found and that the connectedness is kept up to date
+   * while connections are removed.
+   */
+  @Test
+  public void testRemovableConnections() {
+    Location cell00 = map.getCell(0, 0),
+        cell01 = map.getCell(0, 1),
+        cell10 = map.getCell(1, 0);
+    assertTrue(map.isConnected());
+    assertTrue(map.canRemoveConnection(cell00, cell01));
+    assertFalse(map.canRemoveConnection(cell01, cell10));
+    assertFalse(map.canRemoveConnection(cell00, map.getCell(5, 5)));
+
+    map.removeConnection(cell00, cell01);
+    assertTrue(map.isConnected());
+    assertFalse(map.canRemoveConnection(cell00, cell10));
+    assertFalse(map.canRemoveConnection(cell10, cell00));
+    assertTrue(map.canRemoveConnection(cell10, map.getCell(1, 1)));
+
+    // Carve the map until it's a tree, every remaining connection is then a bridge
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        Location cell = map.getCell(row, col);
+        for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+          Location neighbour = cell.getNeighbour(direction);
+          if (neighbour != null && map.canRemoveConnection(cell, neighbour)) {
+            map.removeConnection(cell, neighbour);
+            assertTrue(map.isConnected());
+          }
+        }
+      }
+    }
+    int connections = 0;
+    for (Location cell : map.getMap().values()) {
+      connections += cell.getNeighbourCount();
+    }
+    assertEquals(2 * 8, connections);
+
+    // A tree of 9 cells in a grid always has a connection between two inner cells
+    Location inner = null,
+        neighbour = null;
+    for (Location cell : map.getMap().values()) {
+      for (Location other : cell.getNeighbours()) {
+        if (cell.getNeighbourCount() > 1 && other.getNeighbourCount() > 1) {
+          inner = cell;
+          neighbour = other;
+        }
+      }
+    }
+    assertNotNull(inner);
+    map.removeConnection(inner, neighbour);
+    assertFalse(map.isConnected());
+    inner.addNeighbour(neighbour);
+    assertTrue(map.isConnected());
+  }
+
+  /**
+   * Checks that carving a map connection by connection keeps the bridges up to date without
+   * traversing the whole grid again.
+   */
+  @Test
+  public void testCarvingKeepsBridges() {
+    Location[] cells = new Location[144];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = new Location(i / 12, i % 12);
+    }
+    Field field = new Field();
+    field.addCells(true, cells);
+    List<Location[]> connections = new ArrayList<>();
+    for (Location cell : cells) {
+      for (int direction = 0; direction < Location.DIRECTIONS; direction += 2) {
+        Location neighbour = cell.getNeighbour(direction ^ 1);
+        if (neighbour != null) {
+          connections.add(new Location[]{cell, neighbour});
+        }
+      }
+    }
+    Collections.shuffle(connections, new Random(7));
+    assertTrue(field.isConnected());
+    int updates = field.getConnectivityUpdates();
+
+    // Bridges stay bridges while connections are removed, so a single pass leaves a tree
+    for (Location[] connection : connections) {
+      if (field.canRemoveConnection(connection[0], connection[1])) {
+        field.removeConnection(connection[0], connection[1]);
+        assertTrue(field.distance(connection[0], connection[1]) < Field.UNREACHABLE);
+        assertTrue(field.isConnected());
+      }
+    }
+    int links = 0;
+    for (Location cell : cells) {
+      links += cell.getNeighbourCount();
+    }
+    assertEquals(2 * (cells.length - 1), links);
+
+    // Removing bridges splits the map, every other connection is still a bridge
+    int removed = 0;
+    for (Location[] connection : connections) {
+      if (connection[0].isNeighbour(connection[1]) && connection[0].getNeighbourCount() > 1
+          && connection[1].getNeighbourCount() > 1 && removed < 3) {
+        assertFalse(field.canRemoveConnection(connection[0], connection[1]));
+        field.removeConnection(connection[0], connection[1]);
+        assertEquals(Field.UNREACHABLE, field.distance(connection[0], connection[1]));
+        removed++;
+        assertFalse(field.isConnected());
+      }
+    }
+    assertEquals(3, removed);
+    assertEquals(updates, field.getConnectivityUpdates());
+
+    cells[0].addNeighbour(cells[1]);
+    field.isConnected();
+    assertEquals(updates + 1, field.getConnectivityUpdates());
+  }
+
   /**
    * Checks that the distance between 2 cells is calculated correctly.
    */
@@ -124,6 +407,78 @@ class FieldTest {
     assertEquals(4, location00.distanceTo(map.getCell(2, 2)));
   }
 
+  /**
+   * Checks the single-pair and single-source searches of the field.
+   */
+  @Test
+  public void testDistanceEngine() {
+    Location location00 = map.getCell(0, 0);
+    assertEquals(4, map.distance(location00, map.getCell(2, 2)));
+    assertEquals(Field.UNREACHABLE, map.distance(location00, map.getCell(2, 2), 3));
+    assertEquals(2, map.distance(location00, map.getCell(1, 1), 2));
+    assertEquals(Field.UNREACHABLE, map.distance(location00, new InvalidLocation()));
+
+    Map<Location, Integer> distances = map.distancesFrom(location00);
+    assertEquals(9, distances.size());
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        assertEquals(row + col, (int) distances.get(map.getCell(row, col)));
+      }
+    }
+    assertEquals(6, map.distancesFrom(location00, 2).size());
+    assertEquals(Double.POSITIVE_INFINITY, location00.distanceTo(map.getCell(2, 2), 3));
+  }
+
+  /**
+   * Checks that the distances of a big map are calculated in a reasonable time.
+   */
+  @Test
+  public void testDistancesBigMap() {
+    Field bigMap = new Field();
+    int size = 50;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        bigMap.addCells(true, new Location(row, col));
+      }
+    }
+    Location corner = bigMap.getCell(0, 0);
+    assertEquals(2 * (size - 1), corner.distanceTo(bigMap.getCell(size - 1, size - 1)));
+    assertEquals(size * size, bigMap.distancesFrom(corner).size());
+  }
+
+  /**
+   * Checks that the precomputed distances match the searches and follow the changes of the map.
+   */
+  @Test
+  public void testDistanceTable() {
+    assertNull(map.getDistanceTable());
+    map.setDistanceTableLimit(9);
+    DistanceTable table = map.getDistanceTable();
+    assertNotNull(table);
+    assertEquals(9, table.getCellCount());
+    assertEquals(DistanceTable.memoryFor(9), table.getMemoryUse());
+    assertTrue(table.getBuildTime() >= 0);
+    Location location00 = map.getCell(0, 0);
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        assertEquals(row + col, map.distance(location00, map.getCell(row, col)));
+      }
+    }
+    assertEquals(Field.UNREACHABLE, map.distance(location00, map.getCell(2, 2), 3));
+
+    map.removeConnection(location00, map.getCell(0, 1));
+    assertNotSame(table, map.getDistanceTable());
+    assertEquals(3, location00.distanceTo(map.getCell(0, 1)));
+    assertEquals(3, map.getCell(0, 1).distanceTo(location00));
+
+    map.addCells(true, new Location(0, 3));
+    assertNull(map.getDistanceTable());
+    assertEquals(5, location00.distanceTo(map.getCell(0, 3)));
+    map.setDistanceTableLimit(16);
+    assertEquals(16, map.getDistanceTable().getCellCount());
+    assertEquals(5, location00.distanceTo(map.getCell(0, 3)));
+  }
+
   @Test
   public void testRemoveConnection() {
     Location
@@ -144,4 +499,154 @@ class FieldTest {
     assertTrue(map.checkConnection(cell00, cell10));
     assertFalse(map.checkConnection(cell01, cell10));
   }
-}
\ No newline at end of file
+
+  /**
+   * Checks the costs of the moves when some cells are more expensive to enter.
+   */
+  @Test
+  public void testMovementCosts() {
+    Location
+        cell00 = map.getCell(0, 0),
+        cell11 = map.getCell(1, 1);
+    map.setMovementCost(map.getCell(0, 1), 2);
+    map.setMovementCost(cell11, 5);
+    assertEquals(5, map.getMovementCost(cell11));
+    assertEquals(1, map.getMovementCost(cell00));
+    assertEquals(1, map.getMovementCost(new Location(1, 1)));
+    assertThrows(IllegalArgumentException.class, () -> map.setMovementCost(cell00, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> map.setMovementCost(cell00, Field.MAX_MOVEMENT_COST + 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> map.setMovementCost(new Location(0, 0), 2));
+
+    assertEquals(3, map.movementCost(cell00, map.getCell(0, 2), Field.UNREACHABLE));
+    assertEquals(4, map.movementCost(cell00, map.getCell(2, 2), Field.UNREACHABLE));
+    assertEquals(6, map.movementCost(cell00, cell11, Field.UNREACHABLE));
+    assertEquals(Field.UNREACHABLE, map.movementCost(cell00, cell11, 5));
+    assertEquals(2, map.distance(cell00, cell11));
+    assertEquals(6, cell00.movementCostTo(cell11, 6));
+
+    assertEquals(List.of(cell00, map.getCell(1, 0), map.getCell(2, 0), map.getCell(2, 1),
+        map.getCell(2, 2)), map.findPath(cell00, map.getCell(2, 2), PathConstraints.NONE));
+    assertTrue(map.findPath(cell00, map.getCell(2, 2), PathConstraints.forMovement(3)).isEmpty());
+
+    ReachableCells reachable = map.reachableWithin(cell00, 2);
+    assertEquals(3, reachable.size());
+    assertTrue(reachable.contains(map.getCell(0, 1)));
+    assertTrue(reachable.contains(map.getCell(2, 0)));
+    assertFalse(reachable.contains(map.getCell(0, 2)));
+
+    Alpaca alpaca = new Alpaca(50, 2, cell00);
+    alpaca.moveTo(map.getCell(0, 2));
+    assertEquals(cell00, alpaca.getLocation());
+    alpaca.moveTo(map.getCell(2, 0));
+    assertEquals(map.getCell(2, 0), alpaca.getLocation());
+    // the other units block the moves
+    reachable = map.reachableWithin(cell00, 2);
+    assertEquals(2, reachable.size());
+
+    map.addCells(true, new Location(3, 3));
+    assertEquals(5, map.getMovementCost(cell11));
+    assertEquals(1, map.getMovementCost(map.getCell(3, 3)));
+    assertEquals(6, map.movementCost(cell00, cell11, Field.UNREACHABLE));
+  }
+
+  /**
+   * Compares the costs of the moves with a search that relaxes every connection until no cost
+   * changes.
+   */
+  @Test
+  public void testMovementCostsOnRandomMap() {
+    Field field = new SpanningTreeFactoryMap(25, 0.8).createMap();
+    Random random = new Random(19);
+    for (int row = 0; row < 25; row++) {
+      for (int col = 0; col < 25; col++) {
+        field.setMovementCost(field.getCell(row, col), 1 + random.nextInt(4));
+      }
+    }
+    for (int i = 0; i < 5; i++) {
+      Location source = field.getCell(random.nextInt(25), random.nextInt(25));
+      Map<Location, Integer> expected = new HashMap<>();
+      expected.put(source, 0);
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (Location cell : new ArrayList<>(expected.keySet())) {
+          for (Location neighbour : cell.getNeighbours()) {
+            int cost = expected.get(cell) + field.getMovementCost(neighbour);
+            if (cost < expected.getOrDefault(neighbour, Field.UNREACHABLE)) {
+              expected.put(neighbour, cost);
+              changed = true;
+            }
+          }
+        }
+      }
+      ReachableCells reachable = field.reachableWithin(source, 6);
+      for (int row = 0; row < 25; row++) {
+        for (int col = 0; col < 25; col++) {
+          Location cell = field.getCell(row, col);
+          int cost = expected.getOrDefault(cell, Field.UNREACHABLE);
+          assertEquals(cost, field.movementCost(source, cell, Field.UNREACHABLE));
+          assertEquals(cell != source && cost <= 6, reachable.contains(cell));
+          List<Location> path = field.findPath(source, cell, PathConstraints.NONE);
+          int pathCost = 0;
+          for (int step = 1; step < path.size(); step++) {
+            assertTrue(path.get(step - 1).isNeighbour(path.get(step)));
+            pathCost += field.getMovementCost(path.get(step));
+          }
+          assertEquals(cost, pathCost);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compares the search from both ends of the paths with the search from the origin, on maps
+   * with different densities and some cells cut from the rest.
+   */
+  @Test
+  public void testBidirectionalSearch() {
+    assertTrue(map.isBidirectionalSearch());
+    Random random = new Random(29);
+    for (double density : new double[]{0.5, 0.75, 1}) {
+      Field field = new SpanningTreeFactoryMap(30, density).createMap();
+      for (int i = 0; i < 40; i++) {
+        Location cell = field.getCell(random.nextInt(30), random.nextInt(30));
+        for (Location neighbour : cell.getNeighbours()) {
+          field.removeConnection(cell, neighbour);
+        }
+      }
+      for (int i = 0; i < 300; i++) {
+        Location from = field.getCell(random.nextInt(30), random.nextInt(30)),
+            to = field.getCell(random.nextInt(30), random.nextInt(30));
+        int limit = i % 3 == 0 ? Field.UNREACHABLE : random.nextInt(60);
+        field.setBidirectionalSearch(true);
+        int distance = field.distance(from, to, limit);
+        field.setBidirectionalSearch(false);
+        assertEquals(field.distance(from, to, limit), distance);
+      }
+    }
+  }
+
+  @Test
+  public void testDistancesToManyCells() {
+    Random random = new Random(31);
+    Field field = new SpanningTreeFactoryMap(30, 0.75).createMap();
+    for (int i = 0; i < 50; i++) {
+      Location from = field.getCell(random.nextInt(30), random.nextInt(30));
+      Location[] targets = new Location[10];
+      for (int j = 0; j < targets.length; j++) {
+        targets[j] = field.getCell(random.nextInt(30), random.nextInt(30));
+      }
+      targets[0] = from;
+      int limit = random.nextInt(20);
+      int[] distances = field.distances(from, targets, limit);
+      for (int j = 0; j < targets.length; j++) {
+        assertEquals(field.distance(from, targets[j], limit), distances[j]);
+      }
+    }
+    Location outside = new Location(0, 0);
+    assertEquals(field.distance(outside, field.getCell(0, 1), 5),
+        field.distances(outside, new Location[]{field.getCell(0, 1)}, 5)[0]);
+  }
+}
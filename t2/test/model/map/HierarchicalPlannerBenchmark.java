@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+
+/**
+ * Compares the hierarchical planner with the A* search of the field on big random maps.
+ * <p>
+ * Shows the time to build the hierarchy, the time per query of both searches, how much longer the
+ * hierarchical paths are and the time to update the hierarchy after a connection is removed. Run
+ * it as a plain java program with a big heap, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class HierarchicalPlannerBenchmark {
+
+  private static final int QUERIES = 50;
+  private static final int CLUSTER_SIZE = 32;
+
+  public static void main(String[] args) {
+    System.out.println("size\tbuild ms\ta* ns/query\thpa* ns/query\tlength ratio\tupdate ms");
+    for (int size = 256; size <= 2048; size *= 2) {
+      Field map = new SpanningTreeFactoryMap(size).createMap();
+      Location[] from = new Location[QUERIES],
+          to = new Location[QUERIES];
+      Random random = new Random(size);
+      for (int i = 0; i < QUERIES; i++) {
+        from[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+        to[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+      }
+      long start = System.nanoTime();
+      HierarchicalPlanner planner = new HierarchicalPlanner(map, CLUSTER_SIZE);
+      planner.getNodeCount();
+      long build = System.nanoTime() - start;
+
+      long shortest = 0;
+      start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        shortest += map.findPath(from[i], to[i], PathConstraints.NONE).size() - 1;
+      }
+      long aStar = (System.nanoTime() - start) / QUERIES;
+      long planned = 0;
+      start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        planned += planner.findPath(from[i], to[i]).size() - 1;
+      }
+      long hierarchical = (System.nanoTime() - start) / QUERIES;
+
+      Location cell = map.getCell(size / 2, size / 2);
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        Location neighbour = cell.getNeighbour(direction);
+        if (neighbour != null && map.canRemoveConnection(cell, neighbour)) {
+          map.removeConnection(cell, neighbour);
+          break;
+        }
+      }
+      start = System.nanoTime();
+      planner.getNodeCount();
+      long update = System.nanoTime() - start;
+      System.out.printf("%d\t%d\t%d\t%d\t%.3f\t%.2f%n", size, build / 1_000_000, aStar,
+          hierarchical, (double) planned / shortest, update / 1e6);
+    }
+  }
+}
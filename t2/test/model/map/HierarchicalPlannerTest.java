@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test set for the hierarchical path planner.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class HierarchicalPlannerTest {
+
+  private Field map;
+  private HierarchicalPlanner planner;
+
+  @BeforeEach
+  void setUp() {
+    SpanningTreeFactoryMap factory = new SpanningTreeFactoryMap(45, 0.7);
+    factory.setNumLong(8);
+    map = factory.createMap();
+    planner = new HierarchicalPlanner(map, 8);
+  }
+
+  /**
+   * Checks that a path is made of connected cells, goes between the right cells and is not
+   * shorter than the shortest path.
+   */
+  private void checkPath(final Location from, final Location to, final List<Location> path) {
+    assertSame(from, path.get(0));
+    assertSame(to, path.get(path.size() - 1));
+    for (int i = 1; i < path.size(); i++) {
+      assertTrue(path.get(i - 1).isNeighbour(path.get(i)));
+    }
+    assertTrue(path.size() - 1 >= map.distance(from, to));
+  }
+
+  /**
+   * Checks the paths between random cells of the map.
+   */
+  @Test
+  public void testFindPath() {
+    Random random = new Random(3);
+    int planned = 0,
+        shortest = 0;
+    for (int i = 0; i < 200; i++) {
+      Location from = map.getCell(random.nextInt(45), random.nextInt(45)),
+          to = map.getCell(random.nextInt(45), random.nextInt(45));
+      List<Location> path = planner.findPath(from, to);
+      checkPath(from, to, path);
+      planned += path.size() - 1;
+      shortest += map.distance(from, to);
+    }
+    // the paths can only cross the borders at the transitions, but they stay close to the best
+    assertTrue(planned <= shortest * 1.2);
+    assertEquals(List.of(map.getCell(3, 3)), planner.findPath(map.getCell(3, 3),
+        map.getCell(3, 3)));
+    assertTrue(planner.findPath(map.getCell(0, 0), new Location(1, 1)).isEmpty());
+  }
+
+  /**
+   * Checks that only the clusters around a changed connection are rebuilt.
+   */
+  @Test
+  public void testIncrementalRebuild() {
+    Location from = map.getCell(0, 0),
+        to = map.getCell(44, 44);
+    checkPath(from, to, planner.findPath(from, to));
+    int built = planner.getRebuiltClusters();
+    assertEquals(36, built);
+
+    Random random = new Random(5);
+    for (int i = 0; i < 20; i++) {
+      Location cell = map.getCell(random.nextInt(45), random.nextInt(45));
+      for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+        Location neighbour = cell.getNeighbour(direction);
+        if (neighbour != null && map.canRemoveConnection(cell, neighbour)) {
+          map.removeConnection(cell, neighbour);
+          break;
+        }
+      }
+      List<Location> path = planner.findPath(from, to);
+      checkPath(from, to, path);
+      assertTrue(planner.getRebuiltClusters() - built <= 4);
+      built = planner.getRebuiltClusters();
+      assertEquals(new HierarchicalPlanner(map, 8).findPath(from, to).size(), path.size());
+    }
+  }
+
+  /**
+   * Checks that there is no path between cells of different components.
+   */
+  @Test
+  public void testDisconnectedMap() {
+    Field field = new Field();
+    Location[] cells = new Location[100];
+    for (int i = 0; i < 100; i++) {
+      cells[i] = new Location(i / 10, i % 10);
+    }
+    field.addCells(true, cells);
+    HierarchicalPlanner fieldPlanner = new HierarchicalPlanner(field, 4);
+    assertEquals(19, fieldPlanner.findPath(field.getCell(0, 0), field.getCell(9, 9)).size());
+    for (int row = 0; row < 10; row++) {
+      field.getCell(row, 5).removeNeighbour(field.getCell(row, 6));
+    }
+    assertTrue(fieldPlanner.findPath(field.getCell(0, 0), field.getCell(9, 9)).isEmpty());
+    checkPath(field.getCell(0, 0), field.getCell(9, 5),
+        fieldPlanner.findPath(field.getCell(0, 0), field.getCell(9, 5)));
+
+    field.addCells(true, new Location(12, 0));
+    assertEquals(List.of(field.getCell(12, 0)),
+        fieldPlanner.findPath(field.getCell(12, 0), field.getCell(12, 0)));
+    fieldPlanner.dispose();
+  }
+}
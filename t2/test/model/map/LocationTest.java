@@ -118,6 +118,33 @@ class LocationTest {
     assertEquals(2, locationA0.getNeighbours().size());
   }
 
+  /**
+   * Checks that only adjacent locations can be neighbours and that the neighbours can be read one
+   * direction at a time.
+   */
+  @Test
+  void testNeighbourSlots() {
+    Location farLocation = new Location(3, 3);
+    locationA0.addNeighbour(farLocation);
+    assertFalse(locationA0.isNeighbour(farLocation));
+    assertEquals(0, locationA0.getNeighbourCount());
+
+    locationA0.addNeighbour(locationB0);
+    locationA0.addNeighbour(locationA1);
+    assertEquals(2, locationA0.getNeighbourCount());
+    assertEquals(1, locationA1.getNeighbourCount());
+    assertNull(locationA0.getNeighbour(0));
+    assertSame(locationB0, locationA0.getNeighbour(1));
+    assertNull(locationA0.getNeighbour(2));
+    assertSame(locationA1, locationA0.getNeighbour(3));
+    assertSame(locationA0, locationB0.getNeighbour(0));
+    assertSame(locationA0, locationA1.getNeighbour(2));
+
+    locationA1.removeNeighbour(locationA0);
+    assertFalse(locationA0.isNeighbour(locationA1));
+    assertEquals(0, locationA1.getNeighbourCount());
+  }
+
   @Test
   public void testSetUnit(){
     FactoryProviderUnit factory = new FactoryProviderUnit();
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the time needed to load big maps from a {@link MapFile}.
+ * <p>
+ * This is not part of the test suite, run it manually with the size of the map as argument and a
+ * heap big enough for the grid, for example <code>-Xmx4g</code> for 10000 x 10000 cells.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class MapFileBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int size = args.length == 0 ? 10000 : Integer.parseInt(args[0]);
+    byte[] links = new byte[size * size];
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        int mask = 0;
+        for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+          int adjacentRow = row + Location.ROW_OFFSETS[direction],
+              adjacentCol = col + Location.COLUMN_OFFSETS[direction];
+          if (adjacentRow >= 0 && adjacentCol >= 0 && adjacentRow < size && adjacentCol < size
+              && (direction < 2 || (row + adjacentCol) % 3 != 0)) {
+            mask |= 1 << direction;
+          }
+        }
+        links[row * size + col] = (byte) mask;
+      }
+    }
+    Path file = Files.createTempFile("map", ".bin");
+    try {
+      MapFile.write(Field.onDemand(size, links), 42, false, file);
+      links = null;
+      System.out.printf("%dx%d map, file of %.1f MB%n", size, size, Files.size(file) / 1e6);
+      for (int i = 0; i < 3; i++) {
+        long start = System.nanoTime();
+        Field map = MapFile.open(file).toField();
+        long loaded = System.nanoTime();
+        int distance = map.distance(map.getCell(0, 0), map.getCell(size - 1, size - 1));
+        long searched = System.nanoTime();
+        System.out.printf("load %.1f ms, first distance query (%d steps) %.1f ms%n",
+            (loaded - start) / 1e6, distance, (searched - loaded) / 1e6);
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import model.map.factoryMap.FactoryMap;
+import model.map.factoryMap.IFactoryMap;
+import model.units.Alpaca;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test set for the binary map files.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class MapFileTest {
+
+  @TempDir
+  Path folder;
+
+  private Field map;
+
+  @BeforeEach
+  void setUp() {
+    IFactoryMap factory = new FactoryMap(13);
+    factory.setNumLong(77);
+    map = factory.createMap();
+  }
+
+  /**
+   * Checks that a saved map is loaded with the same connections and header.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    Path file = folder.resolve("map.bin");
+    MapFile.write(map, 77, false, file);
+    assertEquals(24 + (13 * 13 + 3) / 4, Files.size(file));
+
+    MapFile mapFile = MapFile.open(file);
+    assertEquals(MapFile.VERSION, mapFile.getVersion());
+    assertEquals(13, mapFile.getSize());
+    assertEquals(77, mapFile.getSeed());
+    assertFalse(mapFile.hasOccupancy());
+    assertFalse(mapFile.isOccupied(0, 0));
+
+    Field loaded = mapFile.toField();
+    assertEquals(13, loaded.getSize());
+    assertTrue(loaded.isConnected());
+    assertEquals(map.distance(map.getCell(0, 0), map.getCell(12, 12)),
+        loaded.distance(loaded.getCell(0, 0), loaded.getCell(12, 12)));
+    for (int row = 0; row < 13; row++) {
+      for (int col = 0; col < 13; col++) {
+        Location cell = loaded.getCell(row, col);
+        assertSame(cell, loaded.getCell(row, col));
+        assertEquals(map.getCell(row, col).getNeighbours(), cell.getNeighbours());
+      }
+    }
+    assertEquals(map.toString(), loaded.toString());
+  }
+
+  /**
+   * Checks that the cells of a loaded map are created on demand and can be edited.
+   */
+  @Test
+  public void testLoadOnDemand() throws IOException {
+    Path file = folder.resolve("map.bin");
+    MapFile.write(map, 77, false, file);
+    Field loaded = MapFile.open(file).toField();
+    Location corner = loaded.getCell(12, 12);
+    assertEquals(24, loaded.distance(loaded.getCell(0, 0), corner));
+    assertEquals(map.getCell(12, 12).getNeighbourCount(), corner.getNeighbourCount());
+
+    Location neighbour = corner.getNeighbours().iterator().next();
+    corner.removeNeighbour(neighbour);
+    assertFalse(neighbour.isNeighbour(corner));
+    assertFalse(loaded.checkConnection(corner, neighbour));
+    corner.addNeighbour(neighbour);
+    assertTrue(loaded.checkConnection(neighbour, corner));
+
+    loaded.addCells(true, new Location(13, 0));
+    assertEquals(13 * 13 + 1, loaded.getMap().size());
+    assertTrue(loaded.isConnected());
+    assertSame(corner, loaded.getCell(12, 12));
+  }
+
+  /**
+   * Checks that the occupied cells are saved.
+   */
+  @Test
+  public void testOccupancy() throws IOException {
+    Path file = folder.resolve("units.bin");
+    new Alpaca(50, 2, map.getCell(3, 4));
+    map.getCell(12, 12).setUnit(new Alpaca(50, 2, null));
+    MapFile.write(map, 0, true, file);
+    MapFile mapFile = MapFile.open(file);
+    assertTrue(mapFile.hasOccupancy());
+    assertTrue(mapFile.isOccupied(3, 4));
+    assertTrue(mapFile.isOccupied(12, 12));
+    assertFalse(mapFile.isOccupied(4, 3));
+    assertFalse(mapFile.isOccupied(13, 0));
+  }
+
+  /**
+   * Checks that invalid files are rejected.
+   */
+  @Test
+  public void testInvalidFiles() throws IOException {
+    Path file = folder.resolve("text.bin");
+    Files.write(file, "not a map".getBytes());
+    assertThrows(IOException.class, () -> MapFile.open(file));
+
+    MapFile.write(map, 77, true, file);
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 1));
+    assertThrows(IOException.class, () -> MapFile.open(file));
+
+    map.addCells(true, new Location(13, 0));
+    assertThrows(IllegalArgumentException.class, () -> MapFile.write(map, 0, false, file));
+  }
+
+  /**
+   * Checks that a square map whose grid grew with room to spare is saved.
+   */
+  @Test
+  public void testGrownGrid() throws IOException {
+    Field grown = new Field();
+    for (int row = 0; row < 7; row++) {
+      for (int col = 0; col < 7; col++) {
+        grown.addCells(false, new Location(row, col));
+      }
+    }
+    assertTrue(grown.getSide() > grown.getSize());
+    grown.getCell(6, 6).setUnit(new Alpaca(50, 2, null));
+    Path file = folder.resolve("grown.bin");
+    MapFile.write(grown, 0, true, file);
+    MapFile mapFile = MapFile.open(file);
+    assertEquals(7, mapFile.getSize());
+    assertTrue(mapFile.isOccupied(6, 6));
+    assertFalse(mapFile.isOccupied(0, 0));
+    grown.getCell(6, 6).setUnit(null);
+    assertEquals(grown.toString(), mapFile.toField().toString());
+  }
+
+  /**
+   * Checks that a map with more cells than an array can hold is rejected when it's loaded.
+   */
+  @Test
+  public void testTooBig() throws IOException {
+    Path file = folder.resolve("big.bin");
+    MapFile.write(map, 0, false, file);
+    int size = 46341;
+    try (RandomAccessFile big = new RandomAccessFile(file.toFile(), "rw")) {
+      big.seek(8);
+      big.writeInt(size);
+      big.setLength(24 + ((long) size * size + 3) / 4);
+    }
+    MapFile mapFile = MapFile.open(file);
+    assertEquals(size, mapFile.getSize());
+    assertThrows(IllegalStateException.class, mapFile::toField);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+
+/**
+ * Compares the Dijkstra searches used when the cells have movement costs with the breadth-first
+ * searches used while every cell costs 1.
+ * <p>
+ * The same map is searched first without costs and then with a cost of 1 stored for every cell,
+ * so both searches give the same answers and only the search changes. The last column searches
+ * again with random costs between 1 and 3. Run it as a plain java program, it's not part of the
+ * test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class MovementCostBenchmark {
+
+  private static final int QUERIES = 50;
+  private static final int MOVEMENT = 12;
+
+  public static void main(String[] args) {
+    System.out.println("size\tquery\tbfs ns\tdijkstra ns\tratio\tterrain ns");
+    for (int size = 64; size <= 1024; size *= 2) {
+      Field map = new SpanningTreeFactoryMap(size).createMap();
+      Location[] from = new Location[QUERIES],
+          to = new Location[QUERIES];
+      Random random = new Random(size);
+      for (int i = 0; i < QUERIES; i++) {
+        from[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+        to[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+      }
+      long[] uniform = measure(map, from, to);
+      map.setMovementCost(from[0], 2);
+      map.setMovementCost(from[0], 1);
+      long[] weighted = measure(map, from, to);
+      for (int row = 0; row < size; row++) {
+        for (int col = 0; col < size; col++) {
+          map.setMovementCost(map.getCell(row, col), 1 + random.nextInt(3));
+        }
+      }
+      long[] terrain = measure(map, from, to);
+      if (uniform[2] != weighted[2]) {
+        throw new IllegalStateException("the searches found different costs");
+      }
+      String[] names = {"pair", "reach"};
+      for (int i = 0; i < 2; i++) {
+        System.out.printf("%d\t%s\t%d\t%d\t%.2f\t%d%n", size, names[i], uniform[i], weighted[i],
+            (double) weighted[i] / uniform[i], terrain[i]);
+      }
+    }
+  }
+
+  /**
+   * Runs the cost of the moves between pairs of cells and the reachable cells of the origins.
+   *
+   * @return the time of each query in nanoseconds and a checksum of the answers
+   */
+  private static long[] measure(final Field map, final Location[] from, final Location[] to) {
+    long check = 0;
+    // the first rounds warm up and the last one is measured
+    long pairs = 0,
+        reach = 0;
+    ReachableCells cells = new ReachableCells();
+    for (int round = 0; round < 3; round++) {
+      check = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        check += map.movementCost(from[i], to[i], Field.UNREACHABLE);
+      }
+      pairs = (System.nanoTime() - start) / QUERIES;
+      start = System.nanoTime();
+      // the reachable cells are few, so they are searched more times
+      for (int repeat = 0; repeat < 20; repeat++) {
+        for (int i = 0; i < QUERIES; i++) {
+          check += map.reachableWithin(from[i], MOVEMENT, cells).size();
+        }
+      }
+      reach = (System.nanoTime() - start) / QUERIES / 20;
+    }
+    return new long[]{pairs, reach, check};
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.Random;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+
+/**
+ * Compares the searches for the distance between two cells: breadth-first from the origin,
+ * breadth-first from both ends and A*, on maps of different sizes and densities.
+ * <p>
+ * The density is the fraction of the possible connections present in the map, from a spanning
+ * tree (about 0.5) to a full grid. Every search gets the same random pairs of cells and must give
+ * the same distances. Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class PairSearchBenchmark {
+
+  private static final int QUERIES = 50;
+  private static final double[] DENSITIES = {0.5, 0.7, 0.85, 1};
+
+  public static void main(String[] args) {
+    System.out.println("size\tdensity\tbfs ns\tboth ends ns\ta* ns\tboth ends speedup");
+    for (int size = 64; size <= 1024; size *= 2) {
+      for (double density : DENSITIES) {
+        Field map = new SpanningTreeFactoryMap(size, density).createMap();
+        Location[] from = new Location[QUERIES],
+            to = new Location[QUERIES];
+        Random random = new Random(size);
+        for (int i = 0; i < QUERIES; i++) {
+          from[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+          to[i] = map.getCell(random.nextInt(size), random.nextInt(size));
+        }
+        long[] times = new long[3];
+        // the first round warms up and the second one is measured
+        for (int round = 0; round < 2; round++) {
+          long check = 0;
+          map.setBidirectionalSearch(false);
+          long start = System.nanoTime();
+          for (int i = 0; i < QUERIES; i++) {
+            check += map.distance(from[i], to[i]);
+          }
+          times[0] = (System.nanoTime() - start) / QUERIES;
+          map.setBidirectionalSearch(true);
+          start = System.nanoTime();
+          for (int i = 0; i < QUERIES; i++) {
+            check -= map.distance(from[i], to[i]);
+          }
+          times[1] = (System.nanoTime() - start) / QUERIES;
+          start = System.nanoTime();
+          for (int i = 0; i < QUERIES; i++) {
+            check += map.findPath(from[i], to[i], PathConstraints.NONE).size() - 1;
+          }
+          times[2] = (System.nanoTime() - start) / QUERIES;
+          for (int i = 0; i < QUERIES; i++) {
+            check -= map.distance(from[i], to[i]);
+          }
+          if (check != 0) {
+            throw new IllegalStateException("the searches found different distances");
+          }
+        }
+        System.out.printf("%d\t%.2f\t%d\t%d\t%d\t%.2f%n", size, density, times[0], times[1],
+            times[2], (double) times[0] / times[1]);
+      }
+    }
+  }
+}
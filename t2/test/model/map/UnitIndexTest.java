@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import controller.Tactician;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import model.items.Bow;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import model.units.Archer;
+import model.units.IUnit;
+import model.units.NormalUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test set for the index of the units of a map.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class UnitIndexTest {
+
+  private Field map;
+  private UnitIndex index;
+  private Tactician player;
+  private Tactician enemy;
+  private Random random;
+
+  @BeforeEach
+  void setUp() {
+    map = new SpanningTreeFactoryMap(20, 0.7).createMap();
+    player = new Tactician("player");
+    enemy = new Tactician("enemy");
+    random = new Random(13);
+    // half of the units are placed before the index exists
+    addUnits(player, 8);
+    index = map.getUnitIndex();
+    addUnits(enemy, 8);
+  }
+
+  /**
+   * Places archers with a bow in random free cells of the map.
+   */
+  private void addUnits(final Tactician owner, final int count) {
+    for (int i = 0; i < count; i++) {
+      Location cell;
+      do {
+        cell = map.getCell(random.nextInt(20), random.nextInt(20));
+      } while (cell.getUnit() != null);
+      Bow bow = new Bow("bow", 10, 2, 4);
+      Archer archer = new Archer(50, 3, cell, bow);
+      archer.equipItem(bow);
+      owner.addUnitInventory(archer);
+    }
+  }
+
+  /**
+   * @return the units of both tacticians that are in a range of distances from a cell
+   */
+  private Set<IUnit> unitsInRing(final Location cell, final int minRange, final int maxRange,
+      final Tactician skipped) {
+    Set<IUnit> units = new HashSet<>();
+    for (Tactician owner : List.of(player, enemy)) {
+      if (owner == skipped) {
+        continue;
+      }
+      for (IUnit unit : owner.getUnits()) {
+        int distance = map.distance(cell, unit.getLocation());
+        if (distance >= minRange && distance <= maxRange) {
+          units.add(unit);
+        }
+      }
+    }
+    return units;
+  }
+
+  /**
+   * Compares every query of the index with the distances to every unit.
+   */
+  private void checkQueries() {
+    assertEquals(player.getUnits().size() + enemy.getUnits().size(), index.size());
+    assertEquals(player.getUnits().size(), index.getCells(player).size());
+    for (int i = 0; i < 30; i++) {
+      Location cell = map.getCell(random.nextInt(20), random.nextInt(20));
+      int radius = random.nextInt(8);
+      assertEquals(unitsInRing(cell, 0, radius, null), new HashSet<>(index.unitsWithin(cell,
+          radius)));
+      assertEquals(unitsInRing(cell, 2, radius, null), new HashSet<>(index.unitsInRing(cell, 2,
+          radius)));
+    }
+    for (Tactician owner : List.of(player, enemy)) {
+      for (IUnit unit : owner.getUnits()) {
+        List<IUnit> enemies = index.enemiesInRange(unit);
+        assertEquals(unitsInRing(unit.getLocation(), 2, 4, owner), new HashSet<>(enemies));
+        for (int i = 1; i < enemies.size(); i++) {
+          assertTrue(map.distance(unit.getLocation(), enemies.get(i - 1).getLocation())
+              <= map.distance(unit.getLocation(), enemies.get(i).getLocation()));
+        }
+        IUnit nearest = index.nearestEnemy(unit);
+        int expected = Field.UNREACHABLE;
+        for (IUnit other : (owner == player ? enemy : player).getUnits()) {
+          expected = Math.min(expected, map.distance(unit.getLocation(), other.getLocation()));
+        }
+        assertEquals(expected, nearest == null ? Field.UNREACHABLE
+            : map.distance(unit.getLocation(), nearest.getLocation()));
+      }
+    }
+  }
+
+  /**
+   * Checks that the targets of every unit are the living units inside the range of its item, and
+   * that listing them doesn't change the item.
+   */
+  @Test
+  public void testTargets() {
+    List<IUnit> all = new ArrayList<>(player.getUnits());
+    all.addAll(enemy.getUnits());
+    all.get(3).receiveAttack(new Bow("bow", 100, 2, 4));
+    for (IUnit unit : all) {
+      unit.getEquippedItem().setDistance(-7);
+      Set<IUnit> expected = new HashSet<>();
+      for (IUnit other : all) {
+        int distance = map.distance(unit.getLocation(), other.getLocation());
+        if (distance >= 2 && distance <= 4 && other.getCurrentHitPoints() > 0
+            && player.hasUnit(unit) != player.hasUnit(other)) {
+          expected.add(other);
+        }
+      }
+      List<IUnit> targets = unit.getTargets();
+      assertEquals(unit.getCurrentHitPoints() > 0 ? expected : Set.of(), new HashSet<>(targets));
+      assertEquals(new HashSet<>(targets).size(), targets.size());
+      assertEquals(-7, unit.getEquippedItem().getDistance());
+    }
+
+    // a location outside any field explores its own neighbours
+    Location[] cells = new Location[5];
+    for (int i = 0; i < 5; i++) {
+      cells[i] = new Location(0, i);
+      if (i > 0) {
+        cells[i].addNeighbour(cells[i - 1]);
+      }
+    }
+    Bow bow = new Bow("bow", 10, 2, 3);
+    Archer archer = new Archer(50, 3, cells[0], bow);
+    archer.equipItem(bow);
+    Archer near = new Archer(50, 3, cells[1]);
+    Archer target = new Archer(50, 3, cells[3]);
+    Archer far = new Archer(50, 3, cells[4]);
+    assertEquals(List.of(target), archer.getTargets());
+    assertEquals(List.of(near, target, far), cells[0].unitsInRing(1, 4));
+  }
+
+  /**
+   * Checks the queries while the units move and are removed.
+   */
+  @Test
+  public void testQueries() {
+    checkQueries();
+    for (int i = 0; i < 20; i++) {
+      IUnit unit = (i % 2 == 0 ? player : enemy).getUnits().get(random.nextInt(8));
+      unit.moveTo(map.getCell(random.nextInt(20), random.nextInt(20)));
+    }
+    checkQueries();
+    List<IUnit> removed = new ArrayList<>(enemy.getUnits().subList(0, 7));
+    for (IUnit unit : removed) {
+      enemy.removeUnit((NormalUnit) unit);
+    }
+    checkQueries();
+    enemy.removeUnit((NormalUnit) enemy.getUnits().get(0));
+    checkQueries();
+    assertNull(index.nearestEnemy(player.getUnits().get(0)));
+    assertTrue(index.unitsWithin(new Location(0, 0), 5).isEmpty());
+  }
+}
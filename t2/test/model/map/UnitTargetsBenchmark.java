@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.items.Bow;
+import model.map.factoryMap.SpanningTreeFactoryMap;
+import model.units.Archer;
+import model.units.IUnit;
+
+/**
+ * Compares {@link IUnit#getTargets()} with checking {@link IUnit#isInRange(IUnit)} against every
+ * other unit, when the targets of all the units of a map are listed at the start of a turn.
+ * <p>
+ * Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class UnitTargetsBenchmark {
+
+  private static final int SIZE = 256;
+  private static final int UNITS = 128;
+  private static final int TURNS = 20;
+
+  public static void main(String[] args) {
+    Field map = new SpanningTreeFactoryMap(SIZE).createMap();
+    Random random = new Random(SIZE);
+    List<IUnit> units = new ArrayList<>();
+    while (units.size() < UNITS) {
+      Location cell = map.getCell(random.nextInt(SIZE), random.nextInt(SIZE));
+      if (cell.getUnit() == null) {
+        Bow bow = new Bow("bow", 10, 2, 3);
+        Archer archer = new Archer(50, 3, cell, bow);
+        archer.equipItem(bow);
+        units.add(archer);
+      }
+    }
+
+    map.getUnitIndex();
+    // the first rounds let the compiler warm up both ways
+    for (int round = 0; round < 3; round++) {
+      long check = 0;
+      long start = System.nanoTime();
+      for (int turn = 0; turn < TURNS; turn++) {
+        for (IUnit unit : units) {
+          for (IUnit other : units) {
+            if (other != unit && unit.isInRange(other)) {
+              check++;
+            }
+          }
+        }
+      }
+      long naive = (System.nanoTime() - start) / TURNS;
+
+      start = System.nanoTime();
+      for (int turn = 0; turn < TURNS; turn++) {
+        for (IUnit unit : units) {
+          check -= unit.getTargets().size();
+        }
+      }
+      long indexed = (System.nanoTime() - start) / TURNS;
+      if (check != 0) {
+        throw new IllegalStateException("the targets don't match the range checks");
+      }
+      System.out.printf("round %d: range check per pair %d ns/turn, targets of each unit %d "
+          + "ns/turn, speedup %.1f%n", round, naive, indexed, (double) naive / indexed);
+    }
+  }
+}
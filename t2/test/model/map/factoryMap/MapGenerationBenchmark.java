@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map.factoryMap;
+
+import model.map.Field;
+
+/**
+ * Measures the time needed to generate big maps with {@link FactoryMap} and
+ * {@link ParallelFactoryMap}.
+ * <p>
+ * This is not part of the test suite, run it manually with a big heap, for example
+ * <code>-Xmx8g</code>, and the sizes to measure as arguments.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class MapGenerationBenchmark {
+
+  public static void main(String[] args) {
+    int[] sizes = args.length == 0 ? new int[]{500, 1000, 2000} : new int[args.length];
+    for (int i = 0; i < args.length; i++) {
+      sizes[i] = Integer.parseInt(args[i]);
+    }
+    for (int size : sizes) {
+      if (size <= 2000) {
+        measure("sequential", size, new FactoryMap(size));
+      }
+      measure("parallel x1", size, new ParallelFactoryMap(size, 1));
+      measure("parallel", size, new ParallelFactoryMap(size));
+    }
+  }
+
+  private static void measure(String name, int size, IFactoryMap factory) {
+    factory.setNumLong(42);
+    factory.createMap();
+    long start = System.nanoTime();
+    Field map = factory.createMap();
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("%-12s %5dx%-5d %8.1f ms (%d cells)%n", name, size, size, elapsed / 1e6,
+        map.getSize() * map.getSize());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map.factoryMap;
+
+import model.map.Field;
+import model.map.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ *
+ */
+
+class ParallelFactoryMapTest {
+    IFactoryMap factory;
+
+    @BeforeEach
+    void setUp() {
+        factory = new ParallelFactoryMap(150, 4);
+    }
+
+    @Test
+    void createMap() {
+        Field map = factory.createMap();
+        assertEquals(150 * 150, map.getMap().size());
+        assertEquals(150, map.getSize());
+        assertTrue(map.isConnected());
+        factory.setNumLong(100);
+        assertEquals(100, factory.getLong());
+    }
+
+    @Test
+    void sameSeedSameMap() {
+        factory.setNumLong(1234);
+        IFactoryMap singleThread = new ParallelFactoryMap(150, 1);
+        singleThread.setNumLong(1234);
+        IFactoryMap commonPool = new ParallelFactoryMap(150);
+        commonPool.setNumLong(1234);
+        Field map = factory.createMap();
+        assertSameConnections(map, singleThread.createMap());
+        assertSameConnections(map, commonPool.createMap());
+
+        IFactoryMap otherSeed = new ParallelFactoryMap(150, 4);
+        otherSeed.setNumLong(4321);
+        assertNotEquals(map.toString(), otherSeed.createMap().toString());
+    }
+
+    @Test
+    void sameDistributionAsFactoryMap() {
+        double[] parallel = connectionRates(factory.createMap());
+        IFactoryMap sequential = new FactoryMap(150);
+        sequential.setNumLong(1234);
+        double[] expected = connectionRates(sequential.createMap());
+        assertEquals(1, expected[0]);
+        assertEquals(1, parallel[0]);
+        assertEquals(2.0 / 3, expected[1], 0.02);
+        assertEquals(expected[1], parallel[1], 0.02);
+    }
+
+    /**
+     * @return the fraction of the possible vertical and horizontal connections of the map
+     */
+    private double[] connectionRates(Field map) {
+        int vertical = 0, horizontal = 0;
+        for (int row = 0; row < 150; row++) {
+            for (int col = 0; col < 150; col++) {
+                Location cell = map.getCell(row, col);
+                if (row > 0 && cell.isNeighbour(map.getCell(row - 1, col))) vertical++;
+                if (col > 0 && row > 0 && cell.isNeighbour(map.getCell(row, col - 1))) horizontal++;
+            }
+        }
+        return new double[]{vertical / (150.0 * 149), horizontal / (149.0 * 149)};
+    }
+
+    private void assertSameConnections(Field expected, Field actual) {
+        for (int row = 0; row < 150; row++) {
+            for (int col = 0; col < 150; col++) {
+                Location expectedCell = expected.getCell(row, col),
+                    actualCell = actual.getCell(row, col);
+                assertEquals(expectedCell, actualCell);
+                for (int direction = 0; direction < Location.DIRECTIONS; direction++) {
+                    assertEquals(expectedCell.getNeighbour(direction) == null,
+                        actualCell.getNeighbour(direction) == null);
+                }
+            }
+        }
+    }
+}
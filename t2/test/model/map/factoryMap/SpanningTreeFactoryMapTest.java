@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.map.factoryMap;
+
+import model.map.Field;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Sebastian Sepulveda
+ * @version 1.0
+ * @since 2.0
+ *
+ */
+
+class SpanningTreeFactoryMapTest {
+
+    @Test
+    void createMap() {
+        IFactoryMap factory = new SpanningTreeFactoryMap(7);
+        Field map = factory.createMap();
+        assertEquals(49, map.getMap().size());
+        assertEquals(7, map.getSize());
+        assertTrue(map.isConnected());
+        factory.setNumLong(100);
+        assertEquals(100, factory.getLong());
+        assertEquals(map.toString(), new SpanningTreeFactoryMap(7).createMap().toString());
+    }
+
+    @Test
+    void connectedOnFirstPass() {
+        for (int seed = 1; seed <= 50; seed++) {
+            IFactoryMap tree = new SpanningTreeFactoryMap(20, 0);
+            tree.setNumLong(seed);
+            Field map = tree.createMap();
+            assertTrue(map.isConnected());
+            assertEquals(20 * 20 - 1, countConnections(map, 20));
+        }
+    }
+
+    @Test
+    void density() {
+        int possible = 2 * 20 * 19;
+        IFactoryMap factory = new SpanningTreeFactoryMap(20, 0.75);
+        factory.setNumLong(3);
+        Field map = factory.createMap();
+        assertTrue(map.isConnected());
+        assertEquals(Math.round(0.75 * possible), countConnections(map, 20));
+        assertEquals(possible, countConnections(new SpanningTreeFactoryMap(20, 1).createMap(), 20));
+    }
+
+    private int countConnections(Field map, int size) {
+        int connections = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                connections += map.getCell(row, col).getNeighbourCount();
+            }
+        }
+        return connections / 2;
+    }
+}
@@ -35,10 +35,13 @@ import model.items.magic.Light;
 import model.items.magic.Soul;
 import model.map.Field;
 import model.map.Location;
+import model.units.handlers.UnitListener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.print.attribute.standard.MediaSize;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -403,7 +406,8 @@ public abstract class AbstractTestUnit implements ITestUnit {
   }
 
   /**
-   * Checks if the unit moves correctly
+   * Checks if the unit moves correctly, with the same rule of the reachable cells of the map:
+   * the units on the way block the move
    */
   @Override
   @Test
@@ -411,6 +415,14 @@ public abstract class AbstractTestUnit implements ITestUnit {
     getTestUnit().moveTo(getField().getCell(2, 2));
     assertEquals(new Location(0, 0), getTestUnit().getLocation());
 
+    Location origin = getField().getCell(0, 0);
+    int movement = getTestUnit().getMovement();
+    assertFalse(getField().reachableWithin(origin, movement).contains(getField().getCell(0, 2)));
+    getTestUnit().moveTo(getField().getCell(0, 2));
+    assertEquals(new Location(0, 0), getTestUnit().getLocation());
+
+    getField().getCell(0, 1).setUnit(null);
+    assertTrue(getField().reachableWithin(origin, movement).contains(getField().getCell(0, 2)));
     getTestUnit().moveTo(getField().getCell(0, 2));
     assertEquals(new Location(0, 2), getTestUnit().getLocation());
 
@@ -419,6 +431,37 @@ public abstract class AbstractTestUnit implements ITestUnit {
     assertEquals(new Location(0, 2), getTestUnit().getLocation());
   }
 
+  /**
+   * Checks that the typed listeners receive the hits that change the hit points and the moves
+   */
+  @Test
+  public void testUnitListener() {
+    List<String> changes = new ArrayList<>();
+    getTestUnit().addUnitListener(new UnitListener() {
+      @Override
+      public void onHpChanged(IUnit unit, double oldHitPoints, double newHitPoints) {
+        assertSame(getTestUnit(), unit);
+        changes.add(oldHitPoints + " -> " + newHitPoints);
+      }
+
+      @Override
+      public void onMoved(IUnit unit, Location from, Location to) {
+        assertSame(getTestUnit(), unit);
+        changes.add(from + " -> " + to);
+      }
+    });
+    double hitPoints = getTestUnit().getCurrentHitPoints();
+    getTestUnit().receiveAttack(new Axe("Axe", 10, 1, 2));
+    getTestUnit().receiveAttackResistant(new Axe("Axe", 10, 1, 2));
+    getTestUnit().receiveAttackWeakness(new Axe("Axe", 10, 1, 2));
+    getTestUnit().receiveDamage(0);
+    getField().getCell(0, 1).setUnit(null);
+    getTestUnit().moveTo(getField().getCell(0, 2));
+    assertEquals(List.of(hitPoints + " -> " + (hitPoints - 10),
+        (hitPoints - 10) + " -> " + (hitPoints - 25),
+        new Location(0, 0) + " -> " + new Location(0, 2)), changes);
+  }
+
   /**
    * @return the test field
    */
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import controller.Tactician;
+import java.util.ArrayList;
+import java.util.List;
+import model.items.Axe;
+import model.items.IEquipableItem;
+import model.items.Sword;
+import model.items.magic.Darkness;
+import model.items.magic.Light;
+import model.map.Field;
+import model.map.Location;
+import model.units.handlers.ResponseNormalUnit;
+
+/**
+ * Compares the attacks of the units with {@link CombatEngine#attack(IUnit, IUnit)}, for pairs of
+ * neighbour units of different classes that attack each other many times. The range check of
+ * {@link IUnit#initCombat(IUnit)} is part of both, it's measured alone to see the cost of
+ * resolving the exchange.
+ * <p>
+ * Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class CombatEngineBenchmark {
+
+  private static final int PAIRS = 64;
+  private static final int EXCHANGES = 20000;
+
+  public static void main(String[] args) {
+    run(false);
+    run(true);
+  }
+
+  /**
+   * @param listened true if the tactician listens to the hit points of the units, like in a game
+   */
+  private static void run(boolean listened) {
+    System.out.println(listened ? "units in a game:" : "units without listeners:");
+    Field map = new Field();
+    for (int row = 0; row < PAIRS; row++) {
+      map.addCells(true, new Location(row, 0), new Location(row, 1));
+    }
+    Tactician player = new Tactician("player");
+    List<IUnit> units = new ArrayList<>();
+    for (int row = 0; row < PAIRS; row++) {
+      units.add(unit(row, map.getCell(row, 0), listened ? player : null));
+      units.add(unit(row + 1, map.getCell(row, 1), listened ? player : null));
+    }
+
+    // the first rounds let the compiler warm up both ways
+    for (int round = 0; round < 5; round++) {
+      int check = 0;
+      long start = System.nanoTime();
+      for (int exchange = 0; exchange < EXCHANGES; exchange++) {
+        for (int i = 0; i < units.size(); i += 2) {
+          if (units.get(i).initCombat(units.get(i + 1))) {
+            check++;
+          }
+        }
+      }
+      long range = (System.nanoTime() - start) / EXCHANGES / PAIRS;
+
+      double before = hitPoints(units);
+      start = System.nanoTime();
+      for (int exchange = 0; exchange < EXCHANGES; exchange++) {
+        for (int i = 0; i < units.size(); i += 2) {
+          units.get(i).attack(units.get(i + 1));
+        }
+      }
+      long visitor = (System.nanoTime() - start) / EXCHANGES / PAIRS;
+      double middle = hitPoints(units);
+
+      start = System.nanoTime();
+      for (int exchange = 0; exchange < EXCHANGES; exchange++) {
+        for (int i = 0; i < units.size(); i += 2) {
+          CombatEngine.attack(units.get(i), units.get(i + 1));
+        }
+      }
+      long table = (System.nanoTime() - start) / EXCHANGES / PAIRS;
+      if (check != EXCHANGES * PAIRS
+          || Math.abs((before - middle) - (middle - hitPoints(units))) > 1e-6 * before) {
+        throw new IllegalStateException("the engine doesn't match the attacks");
+      }
+      System.out.printf("round %d: range check %d ns, attacks of the units %d ns, combat engine "
+          + "%d ns per exchange%n", round, range, visitor, table);
+    }
+  }
+
+  private static double hitPoints(List<IUnit> units) {
+    double total = 0;
+    for (IUnit unit : units) {
+      total += unit.getCurrentHitPoints();
+    }
+    return total;
+  }
+
+  /**
+   * @return a unit that never dies, of a class selected by the number, its hit points are
+   * listened by the player if it isn't null
+   */
+  private static IUnit unit(int number, Location location, Tactician player) {
+    IEquipableItem item;
+    AbstractNormalUnit unit;
+    int hitPoints = Integer.MAX_VALUE;
+    switch (number % 4) {
+      case 0:
+        item = new Axe("Axe", 30, 1, 2);
+        unit = new Fighter(hitPoints, 2, location, item);
+        break;
+      case 1:
+        item = new Sword("Sword", 30, 1, 2);
+        unit = new SwordMaster(hitPoints, 2, location, item);
+        break;
+      case 2:
+        item = new Darkness("Darkness", 30, 1, 2);
+        unit = new Sorcerer(hitPoints, 2, location, item);
+        break;
+      default:
+        item = new Light("Light", 30, 1, 2);
+        unit = new Sorcerer(hitPoints, 2, location, item);
+        break;
+    }
+    unit.equipItem(item);
+    if (player != null) {
+      unit.addResponseNormalUnit(new ResponseNormalUnit(player));
+    }
+    return unit;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import model.items.Axe;
+import model.items.Bow;
+import model.items.IEquipableItem;
+import model.items.Spear;
+import model.items.Staff;
+import model.items.Sword;
+import model.items.factoryItem.ItemType;
+import model.items.magic.Darkness;
+import model.items.magic.Light;
+import model.items.magic.Soul;
+import model.map.Field;
+import model.map.Location;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the combat engine with the attacks of the units
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class CombatEngineTest {
+  private static final double EPSILON = 1e-6;
+
+  @Test
+  public void testTable() {
+    assertEquals(CombatEngine.WEAKNESS, CombatEngine.getAttackEffect(ItemType.AXE, ItemType.SPEAR));
+    assertEquals(CombatEngine.RESISTANT,
+        CombatEngine.getCounterEffect(ItemType.AXE, ItemType.SPEAR));
+    assertEquals(CombatEngine.RESISTANT,
+        CombatEngine.getAttackEffect(ItemType.SOUL, ItemType.DARKNESS));
+    assertEquals(CombatEngine.WEAKNESS, CombatEngine.getAttackEffect(ItemType.BOW, ItemType.LIGHT));
+    assertEquals(CombatEngine.NORMAL, CombatEngine.getAttackEffect(ItemType.BOW, ItemType.STAFF));
+    assertEquals(CombatEngine.NONE, CombatEngine.getCounterEffect(ItemType.BOW, ItemType.STAFF));
+    assertEquals(CombatEngine.NONE, CombatEngine.getAttackEffect(ItemType.STAFF, ItemType.AXE));
+    assertEquals(1.5, CombatEngine.getMultiplier(CombatEngine.WEAKNESS), EPSILON);
+    assertEquals(-20, CombatEngine.getModifier(CombatEngine.RESISTANT));
+    assertEquals(0, CombatEngine.damage(10, CombatEngine.RESISTANT), EPSILON);
+    assertEquals(45, CombatEngine.damage(30, CombatEngine.WEAKNESS), EPSILON);
+  }
+
+  /**
+   * Every pair of item types, at every distance, with weak and strong items and with
+   * defenders that die before they can counterattack
+   */
+  @Test
+  public void testEquivalentToAttacks() {
+    int combats = 0;
+    for (ItemType attacker : ItemType.values()) {
+      for (ItemType defender : ItemType.values()) {
+        for (int distance = 1; distance <= 3; distance++) {
+          for (int power : new int[] { 10, 30 }) {
+            for (int hitPoints : new int[] { 50, 12 }) {
+              IUnit[] visitor = combat(attacker, defender, distance, power, hitPoints);
+              IUnit[] table = combat(attacker, defender, distance, power, hitPoints);
+              visitor[0].attack(visitor[1]);
+              CombatEngine.attack(table[0], table[1]);
+              String pair = attacker + " vs " + defender + " at " + distance;
+              assertEquals(visitor[0].getCurrentHitPoints(), table[0].getCurrentHitPoints(),
+                  EPSILON, pair);
+              assertEquals(visitor[1].getCurrentHitPoints(), table[1].getCurrentHitPoints(),
+                  EPSILON, pair);
+              if (visitor[1].getCurrentHitPoints() != hitPoints) combats++;
+            }
+          }
+        }
+      }
+    }
+    assertTrue(combats > 0);
+  }
+
+  /**
+   * @return an attacker and a defender standing at the distance, each one with an item
+   * of the type
+   */
+  private IUnit[] combat(ItemType attacker, ItemType defender, int distance, int power,
+                         int hitPoints) {
+    Field field = new Field();
+    field.addCells(true, new Location(0, 0), new Location(0, 1), new Location(0, 2),
+        new Location(0, 3));
+    return new IUnit[] { unit(attacker, power, 50, field.getCell(0, 0)),
+        unit(defender, power, hitPoints, field.getCell(0, distance)) };
+  }
+
+  private IUnit unit(ItemType type, int power, int hitPoints, Location location) {
+    IEquipableItem item;
+    IUnit unit;
+    switch (type) {
+      case AXE:
+        item = new Axe("Axe", power, 1, 2);
+        unit = new Fighter(hitPoints, 2, location, item);
+        break;
+      case BOW:
+        item = new Bow("Bow", power, 2, 3);
+        unit = new Archer(hitPoints, 2, location, item);
+        break;
+      case SPEAR:
+        item = new Spear("Spear", power, 1, 2);
+        unit = new Hero(hitPoints, 2, location, item);
+        break;
+      case SWORD:
+        item = new Sword("Sword", power, 1, 2);
+        unit = new SwordMaster(hitPoints, 2, location, item);
+        break;
+      case STAFF:
+        item = new Staff("Staff", power, 1, 2);
+        unit = new Cleric(hitPoints, 2, location, item);
+        break;
+      case DARKNESS:
+        item = new Darkness("Darkness", power, 1, 2);
+        unit = new Sorcerer(hitPoints, 2, location, item);
+        break;
+      case LIGHT:
+        item = new Light("Light", power, 1, 2);
+        unit = new Sorcerer(hitPoints, 2, location, item);
+        break;
+      case SOUL:
+        item = new Soul("Soul", power, 1, 2);
+        unit = new Sorcerer(hitPoints, 2, location, item);
+        break;
+      default:
+        return new Alpaca(hitPoints, 2, location);
+    }
+    unit.equipItem(item);
+    assertEquals(type, unit.getEquippedItem().getType());
+    return unit;
+  }
+}
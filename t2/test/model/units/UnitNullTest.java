@@ -62,6 +62,7 @@ class UnitNullTest {
         assertEquals(0, unitNull.getMovement());
         assertEquals(0, unitNull.getMaxCurrentHitPoints());
         assertFalse(unitNull.isInRange(unitNormal));
+        assertTrue(unitNull.getTargets().isEmpty());
         assertFalse(unitNull.isEquipable());
         assertFalse(unitNull.canCounterAttack(1));
         assertFalse(unitNull.canExchange(unitNormal, item));
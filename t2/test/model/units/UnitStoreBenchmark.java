@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import java.util.Arrays;
+import model.items.Axe;
+import model.items.IEquipableItem;
+import model.items.Sword;
+import model.map.Field;
+import model.map.Location;
+import model.units.factoryUnit.UnitType;
+
+/**
+ * Compares the units of a {@link UnitStore} with the regular units in a battle of about 100k
+ * units: the memory that the units take and the time of their attacks and their moves.
+ * The units stand in pairs, a fighter and a sword master in the first two columns of every
+ * block of four, the second unit of each pair moves to the free columns and back.
+ * <p>
+ * Run it as a plain java program, it's not part of the test suite.
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+public class UnitStoreBenchmark {
+
+  private static final int SIZE = 448;
+  private static final int ROUNDS = 20;
+
+  public static void main(String[] args) {
+    byte[] connections = new byte[SIZE * SIZE];
+    Arrays.fill(connections, (byte) 0x0F);
+    Field map = Field.fromConnections(SIZE, connections);
+    int count = SIZE * SIZE / 2;
+    System.out.println(count + " units");
+
+    for (int round = 0; round < 5; round++) {
+      long before = usedMemory();
+      IUnit[] units = new IUnit[count];
+      for (int i = 0; i < count; i++) {
+        units[i] = unit(i, map.getCell(row(i), column(i)));
+      }
+      long regularMemory = usedMemory() - before;
+      double regularHitPoints = 0;
+      long start = System.nanoTime();
+      for (int repeat = 0; repeat < ROUNDS; repeat++) {
+        for (int i = 0; i < count; i += 2) {
+          CombatEngine.attack(units[i], units[i + 1], 1);
+        }
+      }
+      long regularAttack = (System.nanoTime() - start) / ROUNDS / (count / 2);
+      start = System.nanoTime();
+      for (int i = 1; i < count; i += 2) {
+        units[i].moveTo(map.getCell(row(i), column(i) + 2));
+        units[i].moveTo(map.getCell(row(i), column(i)));
+      }
+      long regularMove = (System.nanoTime() - start) / count;
+      for (IUnit unit : units) {
+        regularHitPoints += unit.getCurrentHitPoints();
+        unit.getLocation().setUnit(null);
+      }
+      units = null;
+
+      before = usedMemory();
+      UnitStore store = new UnitStore(map, count);
+      int axe = store.addItem(new Axe("Axe", 30, 1, 2));
+      int sword = store.addItem(new Sword("Sword", 30, 1, 2));
+      for (int i = 0; i < count; i++) {
+        Location cell = map.getCell(row(i), column(i));
+        int unit = store.add(i % 2 == 0 ? UnitType.FIGHTER : UnitType.SWORDMASTER,
+            Integer.MAX_VALUE, 2, cell);
+        store.equip(unit, i % 2 == 0 ? axe : sword);
+      }
+      long storeMemory = usedMemory() - before;
+      start = System.nanoTime();
+      for (int repeat = 0; repeat < ROUNDS; repeat++) {
+        for (int i = 0; i < count; i += 2) {
+          store.attack(i, i + 1, 1);
+        }
+      }
+      long storeAttack = (System.nanoTime() - start) / ROUNDS / (count / 2);
+      start = System.nanoTime();
+      for (int i = 1; i < count; i += 2) {
+        store.moveTo(i, map.getCell(row(i), column(i) + 2));
+        store.moveTo(i, map.getCell(row(i), column(i)));
+      }
+      long storeMove = (System.nanoTime() - start) / count;
+      double storeHitPoints = 0;
+      for (int i = 0; i < count; i++) {
+        storeHitPoints += store.getHitPoints(i);
+      }
+      if (Math.abs(regularHitPoints - storeHitPoints) > 1e-6 * Math.abs(regularHitPoints)) {
+        throw new IllegalStateException("the store doesn't match the units");
+      }
+      System.out.printf("round %d: memory %d KB / %d KB, attack %d ns / %d ns, move %d ns / "
+              + "%d ns (units / store)%n", round, regularMemory / 1024, storeMemory / 1024,
+          regularAttack, storeAttack, regularMove, storeMove);
+    }
+  }
+
+  private static int row(int unit) {
+    return unit / (SIZE / 2);
+  }
+
+  /**
+   * @return the column of the unit, the first two columns of every block of four are taken
+   */
+  private static int column(int unit) {
+    int index = unit % (SIZE / 2);
+    return index / 2 * 4 + index % 2;
+  }
+
+  private static IUnit unit(int number, Location location) {
+    IEquipableItem item;
+    IUnit unit;
+    if (number % 2 == 0) {
+      item = new Axe("Axe", 30, 1, 2);
+      unit = new Fighter(Integer.MAX_VALUE, 2, location, item);
+    } else {
+      item = new Sword("Sword", 30, 1, 2);
+      unit = new SwordMaster(Integer.MAX_VALUE, 2, location, item);
+    }
+    unit.equipItem(item);
+    return unit;
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
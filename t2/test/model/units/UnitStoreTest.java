@@ -0,0 +1,384 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2019 Google, Inc. http://angularjs.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package model.units;
+
+import controller.Tactician;
+import model.items.Axe;
+import model.items.Bow;
+import model.items.IEquipableItem;
+import model.items.Spear;
+import model.items.Staff;
+import model.items.Sword;
+import model.items.factoryItem.ItemType;
+import model.items.magic.Darkness;
+import model.items.magic.Light;
+import model.items.magic.Soul;
+import model.map.Field;
+import model.map.Location;
+import model.map.ReachableCells;
+import model.units.factoryUnit.UnitType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the units of a store with the rest of the units
+ *
+ * @author Sebastian Sepulveda
+ * @since 2.0
+ */
+class UnitStoreTest {
+  private static final double EPSILON = 1e-6;
+  private Field field;
+  private UnitStore store;
+
+  @BeforeEach
+  public void setUp() {
+    field = new Field();
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 4; col++) {
+        field.addCells(true, new Location(row, col));
+      }
+    }
+    store = new UnitStore(field, 2);
+  }
+
+  @Test
+  public void testUnits() {
+    int fighter = store.add(UnitType.FIGHTER, 50, 2, field.getCell(0, 0));
+    int cleric = store.add(UnitType.CLERIC, 30, 3, null);
+    assertEquals(2, store.size());
+    assertEquals(50, store.getHitPoints(fighter), EPSILON);
+    assertEquals(30, store.getMaxHitPoints(cleric), EPSILON);
+    assertEquals(3, store.getMovement(cleric));
+    assertEquals(UnitType.CLERIC, store.getType(cleric));
+    assertEquals(field.getCell(0, 0), store.getLocation(fighter));
+    assertNull(store.getLocation(cleric));
+    assertEquals(fighter, store.unitAt(field.getCell(0, 0)));
+    assertEquals(UnitStore.EMPTY, store.unitAt(field.getCell(0, 1)));
+    assertNull(store.getTactician(fighter));
+    assertEquals(UnitStore.EMPTY, store.getEquippedItem(fighter));
+    assertThrows(IllegalArgumentException.class,
+        () -> store.add(UnitType.HERO, 50, 2, field.getCell(0, 0)));
+    assertThrows(IllegalArgumentException.class,
+        () -> store.add(UnitType.HERO, 50, 2, new Location(5, 5)));
+
+    int axe = store.addItem(new Axe("Axe", 10, 1, 2));
+    int staff = store.addItem(new Staff("Staff", 10, 1, 2));
+    assertFalse(store.equip(fighter, staff));
+    assertTrue(store.equip(fighter, axe));
+    assertTrue(store.equip(cleric, staff));
+    assertEquals(axe, store.getEquippedItem(fighter));
+    assertEquals(ItemType.AXE, store.getItem(axe).getType());
+
+    // the store grows past its capacity
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i + 2, store.add(UnitType.ALPACA, i + 1, 1, null));
+    }
+    assertEquals(100, store.getHitPoints(101), EPSILON);
+    assertEquals(50, store.getHitPoints(fighter), EPSILON);
+  }
+
+  /**
+   * Every pair of item types, at every distance, with weak and strong items and with
+   * defenders that die before they can counterattack
+   */
+  @Test
+  public void testEquivalentToAttacks() {
+    int combats = 0;
+    for (ItemType attacker : ItemType.values()) {
+      for (ItemType defender : ItemType.values()) {
+        for (int distance = 1; distance <= 3; distance++) {
+          for (int power : new int[] { 10, 30 }) {
+            for (int hitPoints : new int[] { 50, 12 }) {
+              setUp();
+              IUnit[] units = { unit(attacker, power, 50, field.getCell(0, 0)),
+                  unit(defender, power, hitPoints, field.getCell(0, distance)) };
+              int first = stored(attacker, power, 50, field.getCell(2, 0));
+              int second = stored(defender, power, hitPoints, field.getCell(2, distance));
+              units[0].attack(units[1]);
+              store.attack(first, second);
+              String pair = attacker + " vs " + defender + " at " + distance;
+              assertEquals(units[0].getCurrentHitPoints(), store.getHitPoints(first), EPSILON,
+                  pair);
+              assertEquals(units[1].getCurrentHitPoints(), store.getHitPoints(second), EPSILON,
+                  pair);
+              if (store.getHitPoints(second) != hitPoints) combats++;
+            }
+          }
+        }
+      }
+    }
+    assertTrue(combats > 0);
+  }
+
+  @Test
+  public void testTargets() {
+    Tactician player = new Tactician("player");
+    Tactician enemy = new Tactician("enemy");
+    int fighter = stored(ItemType.AXE, 10, 50, field.getCell(0, 0));
+    int ally = stored(ItemType.SWORD, 10, 50, field.getCell(0, 1));
+    int cleric = stored(ItemType.STAFF, 15, 50, field.getCell(1, 0));
+    int foe = stored(ItemType.SPEAR, 10, 50, field.getCell(1, 1));
+    store.setTactician(fighter, player);
+    store.setTactician(ally, player);
+    store.setTactician(cleric, player);
+    store.setTactician(foe, enemy);
+    assertEquals(enemy, store.getTactician(foe));
+
+    assertFalse(store.attack(fighter, ally));
+    assertEquals(50, store.getHitPoints(ally), EPSILON);
+    assertTrue(store.attack(fighter, foe));
+    assertEquals(35, store.getHitPoints(foe), EPSILON);
+    assertEquals(50, store.getHitPoints(fighter), EPSILON);
+
+    assertTrue(store.attack(foe, ally, 1));
+    assertEquals(35, store.getHitPoints(ally), EPSILON);
+    assertFalse(store.attack(cleric, foe));
+    assertTrue(store.attack(cleric, ally));
+    assertEquals(50, store.getHitPoints(ally), EPSILON);
+    // too far for the axe
+    assertFalse(store.attack(fighter, foe, 3));
+
+    // the views list the enemies of the attackers and the allies of the clerics
+    for (int unit : new int[]{fighter, ally, cleric}) {
+      player.addUnitInventory(store.getUnit(unit));
+    }
+    enemy.addUnitInventory(store.getUnit(foe));
+    assertEquals(List.of(store.getUnit(foe)), store.getUnit(fighter).getTargets());
+    assertEquals(List.of(store.getUnit(foe)), store.getUnit(ally).getTargets());
+    List<IUnit> healed = store.getUnit(cleric).getTargets();
+    assertFalse(healed.isEmpty());
+    assertTrue(healed.stream().allMatch(player::hasUnit));
+  }
+
+  @Test
+  public void testMoves() {
+    int fighter = store.add(UnitType.FIGHTER, 50, 2, field.getCell(0, 0));
+    int other = store.add(UnitType.FIGHTER, 50, 2, field.getCell(0, 2));
+    new Fighter(50, 2, field.getCell(1, 1));
+    assertFalse(store.moveTo(fighter, field.getCell(0, 2)));
+    assertFalse(store.moveTo(fighter, field.getCell(1, 1)));
+    assertFalse(store.moveTo(fighter, field.getCell(2, 3)));
+    assertFalse(store.moveTo(fighter, new Location(0, 1)));
+    assertTrue(store.moveTo(fighter, field.getCell(1, 0)));
+    assertEquals(field.getCell(1, 0), store.getLocation(fighter));
+    assertEquals(fighter, store.unitAt(field.getCell(1, 0)));
+    assertEquals(UnitStore.EMPTY, store.unitAt(field.getCell(0, 0)));
+    // the units without view aren't put in the cells
+    assertNull(field.getCell(1, 0).getUnit());
+    assertTrue(store.place(other, field.getCell(2, 3)));
+    assertEquals(other, store.unitAt(field.getCell(2, 3)));
+    assertFalse(store.place(other, field.getCell(1, 1)));
+  }
+
+  @Test
+  public void testMovesFollowReachableCells() {
+    int fighter = store.add(UnitType.FIGHTER, 50, 2, field.getCell(0, 0));
+    StoredUnit view = store.getUnit(fighter);
+    new Fighter(50, 2, field.getCell(0, 1));
+    ReachableCells reachable = field.reachableWithin(field.getCell(0, 0), 2);
+    assertFalse(reachable.contains(field.getCell(0, 2)));
+    assertTrue(reachable.contains(field.getCell(1, 1)));
+    // the unit on the way blocks the move, like in the reachable cells
+    view.moveTo(field.getCell(0, 2));
+    assertEquals(field.getCell(0, 0), view.getLocation());
+    assertFalse(store.moveTo(fighter, field.getCell(0, 2)));
+    view.moveTo(field.getCell(1, 1));
+    assertEquals(field.getCell(1, 1), view.getLocation());
+    assertSame(view, field.getCell(1, 1).getUnit());
+  }
+
+  @Test
+  public void testViews() {
+    Tactician player = new Tactician("player");
+    Tactician enemy = new Tactician("enemy");
+    int fighter = stored(ItemType.AXE, 30, 50, field.getCell(0, 0));
+    int hero = stored(ItemType.SPEAR, 10, 20, field.getCell(0, 1));
+    StoredUnit fighterView = store.getUnit(fighter);
+    StoredUnit heroView = store.getUnit(hero);
+    assertSame(fighterView, store.getUnit(fighter));
+    assertThrows(IndexOutOfBoundsException.class, () -> store.getUnit(2));
+    assertSame(fighterView, field.getCell(0, 0).getUnit());
+    assertEquals(UnitType.HERO, heroView.getType());
+    assertEquals(hero, heroView.getNumber());
+    assertSame(store, heroView.getStore());
+    player.addUnitInventory(fighterView);
+    enemy.addUnitHero(heroView);
+    assertSame(player, fighterView.getTactician());
+    assertEquals(List.of(heroView), fighterView.getTargets());
+    assertTrue(fighterView.isInRange(heroView));
+    assertTrue(fighterView.initCombat(heroView));
+    assertFalse(fighterView.initCombat(fighterView));
+
+    List<PropertyChangeEvent> moves = new ArrayList<>();
+    heroView.addObserverMovement(moves::add);
+    heroView.moveTo(field.getCell(1, 1));
+    assertSame(heroView, field.getCell(1, 1).getUnit());
+    assertNull(field.getCell(0, 1).getUnit());
+    assertEquals(1, moves.size());
+    assertEquals(List.of(heroView), enemy.getMoves());
+
+    // the views fight with the rules of the store
+    assertTrue(CombatEngine.attack(fighterView, heroView));
+    assertEquals(-25, heroView.getCurrentHitPoints(), EPSILON);
+    assertFalse(enemy.getStatus());
+    assertNull(field.getCell(1, 1).getUnit());
+
+    // the other units attack the views without counterattack
+    Fighter regular = new Fighter(50, 2, field.getCell(1, 0), new Axe("Axe", 20, 1, 2));
+    regular.equipItem(regular.getItems().get(0));
+    regular.attack(fighterView);
+    assertEquals(30, fighterView.getCurrentHitPoints(), EPSILON);
+    assertEquals(50, regular.getCurrentHitPoints(), EPSILON);
+    regular.attack(fighterView);
+    assertEquals(10, fighterView.getCurrentHitPoints(), EPSILON);
+    regular.attack(fighterView);
+    assertFalse(player.getUnits().contains(fighterView));
+
+    IEquipableItem sword = new Sword("Sword", 10, 1, 2);
+    fighterView.equipItem(sword);
+    assertEquals(ItemType.AXE, fighterView.getEquippedItem().getType());
+    fighterView.removeItem(fighterView.getEquippedItem());
+    assertTrue(fighterView.getItems().isEmpty());
+    assertEquals(ItemType.OTHER, fighterView.getEquippedItem().getType());
+  }
+
+  /**
+   * Checks that a unit with a view that dies under a tactician leaves its cell in the store too.
+   */
+  @Test
+  public void testDeathUnderTactician() {
+    Tactician player = new Tactician("player");
+    int fighter = stored(ItemType.AXE, 30, 20, field.getCell(0, 0));
+    int enemy = stored(ItemType.AXE, 30, 50, field.getCell(0, 1));
+    int other = stored(ItemType.AXE, 10, 50, field.getCell(1, 0));
+    StoredUnit fighterView = store.getUnit(fighter);
+    player.addUnitInventory(fighterView);
+    assertTrue(store.attack(enemy, fighter));
+    assertFalse(player.getUnits().contains(fighterView));
+    assertNull(field.getCell(0, 0).getUnit());
+    assertNull(fighterView.getLocation());
+    assertEquals(UnitStore.EMPTY, store.unitAt(field.getCell(0, 0)));
+    assertFalse(store.getUnit(enemy).isInRange(fighterView));
+
+    assertTrue(store.moveTo(other, field.getCell(0, 0)));
+    assertEquals(other, store.unitAt(field.getCell(0, 0)));
+    assertSame(store.getUnit(other), field.getCell(0, 0).getUnit());
+    assertFalse(store.place(fighter, field.getCell(0, 0)));
+  }
+
+  /**
+   * @return the number of a unit of the store with an item of the type
+   */
+  private int stored(ItemType type, int power, int hitPoints, Location location) {
+    IEquipableItem item = item(type, power);
+    int unit = store.add(unitType(type), hitPoints, 2, location);
+    if (item != null) {
+      assertTrue(store.equip(unit, store.addItem(item)));
+    }
+    return unit;
+  }
+
+  private IUnit unit(ItemType type, int power, int hitPoints, Location location) {
+    IEquipableItem item = item(type, power);
+    IUnit unit;
+    switch (type) {
+      case AXE:
+        unit = new Fighter(hitPoints, 2, location, item);
+        break;
+      case BOW:
+        unit = new Archer(hitPoints, 2, location, item);
+        break;
+      case SPEAR:
+        unit = new Hero(hitPoints, 2, location, item);
+        break;
+      case SWORD:
+        unit = new SwordMaster(hitPoints, 2, location, item);
+        break;
+      case STAFF:
+        unit = new Cleric(hitPoints, 2, location, item);
+        break;
+      case DARKNESS:
+      case LIGHT:
+      case SOUL:
+        unit = new Sorcerer(hitPoints, 2, location, item);
+        break;
+      default:
+        return new Alpaca(hitPoints, 2, location);
+    }
+    unit.equipItem(item);
+    return unit;
+  }
+
+  private IEquipableItem item(ItemType type, int power) {
+    switch (type) {
+      case AXE:
+        return new Axe("Axe", power, 1, 2);
+      case BOW:
+        return new Bow("Bow", power, 2, 3);
+      case SPEAR:
+        return new Spear("Spear", power, 1, 2);
+      case SWORD:
+        return new Sword("Sword", power, 1, 2);
+      case STAFF:
+        return new Staff("Staff", power, 1, 2);
+      case DARKNESS:
+        return new Darkness("Darkness", power, 1, 2);
+      case LIGHT:
+        return new Light("Light", power, 1, 2);
+      case SOUL:
+        return new Soul("Soul", power, 1, 2);
+      default:
+        return null;
+    }
+  }
+
+  private UnitType unitType(ItemType type) {
+    switch (type) {
+      case AXE:
+        return UnitType.FIGHTER;
+      case BOW:
+        return UnitType.ARCHER;
+      case SPEAR:
+        return UnitType.HERO;
+      case SWORD:
+        return UnitType.SWORDMASTER;
+      case STAFF:
+        return UnitType.CLERIC;
+      case DARKNESS:
+      case LIGHT:
+      case SOUL:
+        return UnitType.SORCERER;
+      default:
+        return UnitType.ALPACA;
+    }
+  }
+}
@@ -50,12 +50,17 @@ class ResponseMovementUnitTest extends AbstractResponse{
     @Test
     public void moveUnitTest(){
 
+        // the units on the way block the moves, the target leaves the way first
+        getTacticianTarget().setCurrentUnit(getNormalUnitTarget());
+        getNormalUnitTarget().moveTo(getField().getCell(2,0));
+
+        assertEquals(1, getTacticianTarget().getMoves().size());
+        assertEquals(0, getTacticianTest().getMoves().size());
+
         getTacticianTest().setCurrentUnit(getNormalUnitTest());
-        getNormalUnitTest().moveTo(getField().getCell(2,0));
+        getNormalUnitTest().moveTo(getField().getCell(1,0));
 
         assertEquals(1, getTacticianTest().getMoves().size());
-
-        getTacticianTarget().setCurrentUnit(getNormalUnitTarget());
     }
 
 }
\ No newline at end of file